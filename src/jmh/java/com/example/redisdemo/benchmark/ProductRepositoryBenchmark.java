@@ -0,0 +1,77 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.support.EmbeddedApplication;
+import com.example.redisdemo.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The repository queries behind the product endpoints, on H2 with the 500 sample products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductRepositoryBenchmark {
+
+    private static final long PRODUCTS = 500;
+
+    private EmbeddedApplication application;
+    private ProductRepository productRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = EmbeddedApplication.start(Map.of());
+        productRepository = application.getBean(ProductRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Optional<?> findById() {
+        return productRepository.findById(ThreadLocalRandom.current().nextLong(1, PRODUCTS + 1));
+    }
+
+    @Benchmark
+    public List<?> findAllById() {
+        long first = ThreadLocalRandom.current().nextLong(1, PRODUCTS - 50);
+        return productRepository.findAllById(List.of(first, first + 10, first + 20, first + 30, first + 40));
+    }
+
+    @Benchmark
+    public List<?> findByCategory() {
+        return productRepository.findByCategory("Electronics");
+    }
+
+    @Benchmark
+    public List<Long> findIdsByCategory() {
+        return productRepository.findIdsByCategory("Electronics");
+    }
+
+    @Benchmark
+    public List<?> findByNameContaining() {
+        return productRepository.findByNameContainingIgnoreCase("model 2");
+    }
+
+    @Benchmark
+    public List<?> keysetPage() {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(
+                ThreadLocalRandom.current().nextLong(0, PRODUCTS - 100), Limit.of(100));
+    }
+}
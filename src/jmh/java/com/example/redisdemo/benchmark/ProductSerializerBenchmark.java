@@ -0,0 +1,131 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.cache.ProductBinarySerializer;
+import com.example.redisdemo.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encoding and decoding one {@link Product} with the JSON serializer the caches started out with
+ * and with the compact binary format. {@code large} has a description long enough to be deflated.
+ * With {@code compression=on} the binary format deflates descriptions from the default threshold
+ * on, and the JSON document is deflated as a whole; {@link ProductSerializerSizes} prints the
+ * resulting bytes per entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductSerializerBenchmark {
+
+    static final int COMPRESSION_THRESHOLD = 256;
+
+    @Param({ "small", "large" })
+    public String product;
+
+    @Param({ "off", "on" })
+    public String compression;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> binary;
+
+    private Product value;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        boolean compressed = compression.equals("on");
+        json = json(compressed);
+        binary = binary(compressed);
+        value = sample(product);
+        jsonBytes = json.serialize(value);
+        binaryBytes = binary.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.serialize(value);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    static Product sample(String size) {
+        String description = size.equals("large")
+                ? "Apple M3 Max chip, 36GB RAM, 1TB SSD. ".repeat(20)
+                : "Apple M3 Max chip, 36GB RAM, 1TB SSD";
+        return new Product(42L, "MacBook Pro 16 - Model 3", description, new BigDecimal("2499.99"), "Electronics",
+                57, 3L);
+    }
+
+    static RedisSerializer<Object> json(boolean compressed) {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        return compressed ? new Deflated(json) : json;
+    }
+
+    static RedisSerializer<Object> binary(boolean compressed) {
+        return new ProductBinarySerializer(compressed ? COMPRESSION_THRESHOLD : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Deflates whatever another serializer writes, at the speed-first level the binary format uses.
+     */
+    private record Deflated(RedisSerializer<Object> serializer) implements RedisSerializer<Object> {
+
+        @Override
+        public byte[] serialize(Object value) {
+            byte[] bytes = serializer.serialize(value);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            // The stream only ends a Deflater it created itself
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+                stream.write(bytes);
+            } catch (IOException e) {
+                throw new SerializationException("Could not deflate", e);
+            } finally {
+                deflater.end();
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+                return serializer.deserialize(in.readAllBytes());
+            } catch (IOException e) {
+                throw new SerializationException("Could not inflate", e);
+            }
+        }
+    }
+}
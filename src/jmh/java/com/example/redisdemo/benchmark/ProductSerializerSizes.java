@@ -0,0 +1,30 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.model.Product;
+
+import java.util.List;
+
+/**
+ * Prints the bytes per cache entry of the {@link ProductSerializerBenchmark} products, per
+ * serializer and with and without compression, as a Markdown table. Sizes are the same on every
+ * run, so they are printed rather than measured by JMH; run with {@code ./gradlew serializerSizes}.
+ */
+public final class ProductSerializerSizes {
+
+    private ProductSerializerSizes() {
+    }
+
+    public static void main(String[] args) {
+        System.out.println("| Product | Serializer | Uncompressed | Compressed |");
+        System.out.println("|---------|------------|-------------:|-----------:|");
+        for (String size : List.of("small", "large")) {
+            Product product = ProductSerializerBenchmark.sample(size);
+            System.out.printf("| %s | JSON | %d B | %d B |%n", size,
+                    ProductSerializerBenchmark.json(false).serialize(product).length,
+                    ProductSerializerBenchmark.json(true).serialize(product).length);
+            System.out.printf("| %s | binary | %d B | %d B |%n", size,
+                    ProductSerializerBenchmark.binary(false).serialize(product).length,
+                    ProductSerializerBenchmark.binary(true).serialize(product).length);
+        }
+    }
+}
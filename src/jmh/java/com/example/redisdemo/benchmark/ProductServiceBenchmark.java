@@ -0,0 +1,68 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.support.EmbeddedApplication;
+import com.example.redisdemo.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductService#getProductById} through the Spring cache proxy with the simulated database
+ * delay switched off: a warm lookup (answered by L1, or by Redis with {@code nearCache=false}) and a
+ * lookup right after an eviction (H2 load plus cache write).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    private static final long PRODUCTS = 500;
+
+    @Param({ "true", "false" })
+    public boolean nearCache;
+
+    private EmbeddedApplication application;
+    private ProductService productService;
+    private Cache productsCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = EmbeddedApplication.start(Map.<String, Object>of("app.cache.near.enabled", nearCache));
+        productService = application.getBean(ProductService.class);
+        productsCache = application.getBean(CacheManager.class).getCache(ProductService.PRODUCTS_CACHE);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            productService.getProductById(id);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Optional<?> cachedLookup() {
+        return productService.getProductById(ThreadLocalRandom.current().nextLong(1, PRODUCTS + 1));
+    }
+
+    @Benchmark
+    public Optional<?> lookupAfterEviction() {
+        long id = ThreadLocalRandom.current().nextLong(1, PRODUCTS + 1);
+        productsCache.evict(id);
+        return productService.getProductById(id);
+    }
+}
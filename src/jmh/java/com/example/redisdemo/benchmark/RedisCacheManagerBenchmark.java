@@ -0,0 +1,98 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.cache.RedisShards;
+import com.example.redisdemo.support.RespStandIn;
+import com.example.redisdemo.config.CacheSerializerProperties;
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.config.RedisConfig;
+import com.example.redisdemo.config.RefreshAheadProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Get and put through the Redis (L2) cache manager exactly as the application configures it,
+ * against a {@link RespStandIn}, for both value encodings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedisCacheManagerBenchmark {
+
+    private static final int KEYS = 1_000;
+
+    @Param({ "JSON", "BINARY" })
+    public CacheSerializerProperties.Format format;
+
+    private RespStandIn redis;
+    private JedisConnectionFactory connectionFactory;
+    private Cache cache;
+    private Product product;
+
+    @Setup
+    public void setUp() throws IOException {
+        redis = RespStandIn.start();
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", redis.getPort()),
+                JedisClientConfiguration.builder().usePooling().build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        CacheSerializerProperties serializerProperties = new CacheSerializerProperties();
+        serializerProperties.setFormat(format);
+        RedisCacheManager cacheManager = new RedisConfig().redisCacheManager(connectionFactory,
+                new StaticListableBeanFactory().getBeanProvider(RedisShards.class), new RefreshAheadProperties(),
+                serializerProperties, new ProductLookupProperties());
+        cacheManager.afterPropertiesSet();
+        cache = cacheManager.getCache(ProductService.PRODUCTS_CACHE);
+
+        for (long id = 1; id <= KEYS; id++) {
+            cache.put(id, product(id));
+        }
+        product = product(KEYS + 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return cache.get(ThreadLocalRandom.current().nextLong(1, KEYS + 1));
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return cache.get(ThreadLocalRandom.current().nextLong(KEYS + 1, Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(ThreadLocalRandom.current().nextLong(1, KEYS + 1), product);
+    }
+
+    private static Product product(long id) {
+        return new Product(id, "Product " + id, "Apple M3 Max chip, 36GB RAM, 1TB SSD", new BigDecimal("1999.99"),
+                "Electronics", 25, 0L);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.service.ProductService;
+import com.example.redisdemo.service.ProductStock;
+import com.example.redisdemo.service.StockChange;
+import com.example.redisdemo.support.EmbeddedApplication;
+import com.example.redisdemo.support.RespStandIn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Eight threads taking one unit of stock and giving it back, spread over {@code hotProducts}
+ * products: through {@link ProductStock} (one script run per change, written back in batches) and
+ * the old way, as a read-modify-write {@link ProductService#updateProduct} per change.
+ * <p>
+ * The stand-in has no Lua, so the reservation script runs as {@link #adjust its Java equivalent}
+ * under the stand-in's script lock. Every change is undone, so the stock should end where it
+ * started; tear-down prints how far it drifted and how many updates failed on conflicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class StockReservationBenchmark {
+
+    @Param({ "1", "50" })
+    public int hotProducts;
+
+    private EmbeddedApplication application;
+    private ProductStock productStock;
+    private ProductService productService;
+    private final Map<Long, Long> initialStock = new HashMap<>();
+    private final LongAdder conflicts = new LongAdder();
+
+    @Setup
+    public void setUp() throws IOException {
+        application = EmbeddedApplication.start(Map.of());
+        application.getRedis().registerScript(ProductStock.ADJUST_SCRIPT.getScriptAsString(),
+                StockReservationBenchmark::adjust);
+        application.getRedis().registerScript(ProductStock.CLEAR_DIRTY_SCRIPT.getScriptAsString(),
+                StockReservationBenchmark::clearDirty);
+        productStock = application.getBean(ProductStock.class);
+        productService = application.getBean(ProductService.class);
+        for (long id = 1; id <= hotProducts; id++) {
+            initialStock.put(id, productStock.getStock(id).orElseThrow());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        productStock.flush();
+        long drift = 0;
+        for (Map.Entry<Long, Long> entry : initialStock.entrySet()) {
+            drift += Math.abs(productStock.getStock(entry.getKey()).orElseThrow() - entry.getValue());
+        }
+        System.out.printf("%nStock drift: %d units, failed updates: %d%n", drift, conflicts.sum());
+        application.close();
+    }
+
+    @Benchmark
+    public Optional<StockChange> reserveAndRelease() {
+        long id = hotProduct();
+        Optional<StockChange> reserved = productStock.reserve(id, 1);
+        if (reserved.isPresent() && reserved.get().applied()) {
+            return productStock.release(id, 1);
+        }
+        return reserved;
+    }
+
+    @Benchmark
+    public Product readModifyWrite() {
+        long id = hotProduct();
+        try {
+            changeStock(id, -1);
+            return changeStock(id, 1);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            conflicts.increment();
+            return null;
+        }
+    }
+
+    private Product changeStock(long id, int delta) {
+        Product product = productService.getProductById(id).orElseThrow().copy();
+        product.setStockQuantity(product.getStockQuantity() + delta);
+        return productService.updateProduct(id, product);
+    }
+
+    private long hotProduct() {
+        return ThreadLocalRandom.current().nextLong(1, hotProducts + 1);
+    }
+
+    /**
+     * {@link ProductStock#ADJUST_SCRIPT}, in Java.
+     */
+    private static Object adjust(RespStandIn redis, List<String> keys, List<String> args) {
+        String stock = redis.get(keys.get(0));
+        if (stock == null) {
+            return List.of(-1L, 0L);
+        }
+        long updated = Long.parseLong(stock) + Long.parseLong(args.get(0));
+        if (updated < 0) {
+            return List.of(0L, Long.parseLong(stock));
+        }
+        redis.set(keys.get(0), Long.toString(updated), Long.parseLong(args.get(2)));
+        redis.addMember(keys.get(1), args.get(1));
+        return List.of(1L, updated);
+    }
+
+    /**
+     * {@link ProductStock#CLEAR_DIRTY_SCRIPT}, in Java.
+     */
+    private static Object clearDirty(RespStandIn redis, List<String> keys, List<String> args) {
+        int ids = keys.size() - 1;
+        long cleared = 0;
+        for (int i = 1; i <= ids; i++) {
+            String counter = redis.get(keys.get(i));
+            boolean written = counter == null || counter.equals(args.get(ids + i - 1));
+            if (written && redis.removeMember(keys.get(0), args.get(i - 1))) {
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.redisdemo.benchmark;
+
+import com.example.redisdemo.service.ProductService;
+import com.example.redisdemo.support.EmbeddedApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.CacheManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of concurrent {@code GET /api/products/{id}} requests that all miss the cache, with
+ * platform and virtual threads. Each miss waits on the simulated database for
+ * {@value #DATABASE_LATENCY}. The endpoint releases its request thread while it waits, so the burst
+ * is bounded by the pool that runs database loads ({@code app.cache.async.load-pool-size}); the
+ * larger pool setting shows what that pool costs when its threads are platform vs. virtual.
+ * <p>
+ * {@code virtualThreads=true} needs the benchmark JVM to be Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadingModeBenchmark {
+
+    private static final int PRODUCTS = 500;
+    private static final String DATABASE_LATENCY = "50ms";
+
+    @Param({ "false", "true" })
+    public boolean virtualThreads;
+
+    @Param({ "16", "500" })
+    public int loadPoolSize;
+
+    private EmbeddedApplication application;
+    private CacheManager cacheManager;
+    private HttpClient httpClient;
+    private HttpRequest[] requests;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("virtualThreads=true needs Java 21+, running on " + Runtime.version());
+        }
+        application = EmbeddedApplication.startWebServer(Map.<String, Object>of(
+                "spring.threads.virtual.enabled", virtualThreads,
+                "app.cache.async.load-pool-size", loadPoolSize,
+                "app.products.lookup.simulated-latency.model", "FIXED",
+                "app.products.lookup.simulated-latency.base", DATABASE_LATENCY));
+        cacheManager = application.getBean(CacheManager.class);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        requests = new HttpRequest[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            requests[i] = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + application.getLocalPort() + "/api/products/" + (i + 1))).build();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void evictProducts() {
+        cacheManager.getCache(ProductService.PRODUCTS_CACHE).clear();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public int missBurst() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            responses[i] = httpClient.sendAsync(requests[i], HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.redisdemo.loadtest;
+
+import com.example.redisdemo.cache.CacheOutcome;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * Added to the application under test: counts the cache hits and misses made while serving each
+ * load-test request and credits them to the operation named in the {@value #OPERATION_HEADER} header.
+ */
+@Configuration(proxyBeanMethods = false)
+class CacheOutcomeFilter {
+
+    static final String OPERATION_HEADER = "X-Load-Test-Operation";
+
+    /**
+     * Set by the load test once the application is up.
+     */
+    static volatile BiConsumer<Operation, CacheOutcome.Tally> sink = (operation, tally) -> { };
+
+    @Bean
+    OncePerRequestFilter loadTestCacheOutcomeFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                    FilterChain chain) throws ServletException, IOException {
+                String operation = request.getHeader(OPERATION_HEADER);
+                if (operation == null) {
+                    chain.doFilter(request, response);
+                    return;
+                }
+                CacheOutcome.track();
+                CacheOutcome.Tally tally;
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    tally = CacheOutcome.finish();
+                }
+                // Async endpoints keep recording into the tally until their response is complete
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new AsyncListener() {
+                        @Override
+                        public void onComplete(AsyncEvent event) {
+                            sink.accept(Operation.valueOf(operation), tally);
+                        }
+
+                        @Override
+                        public void onTimeout(AsyncEvent event) {
+                        }
+
+                        @Override
+                        public void onError(AsyncEvent event) {
+                        }
+
+                        @Override
+                        public void onStartAsync(AsyncEvent event) {
+                        }
+                    });
+                } else {
+                    sink.accept(Operation.valueOf(operation), tally);
+                }
+            }
+        };
+    }
+}
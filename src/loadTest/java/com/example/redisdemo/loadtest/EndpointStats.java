@@ -0,0 +1,75 @@
+package com.example.redisdemo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side latency and errors, plus server-side cache hits and misses, for one operation.
+ */
+final class EndpointStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    void recordLatency(long nanos) {
+        latency.recordValue(Math.min(Math.max(nanos, 1), MAX_TRACKABLE_NANOS));
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordCacheOutcomes(int hits, int misses) {
+        cacheHits.add(hits);
+        cacheMisses.add(misses);
+    }
+
+
+    long requests() {
+        return latency.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return latency.getMaxValue() / 1_000_000.0;
+    }
+
+    /**
+     * Share of cache lookups answered by L1 or Redis, or {@code NaN} if the endpoint made none.
+     */
+    double cacheHitRatio() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+
+    Map<String, Object> toReport(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requests());
+        report.put("errors", errors());
+        report.put("throughputPerSecond", requests() / seconds);
+        report.put("p50Ms", percentileMillis(50));
+        report.put("p99Ms", percentileMillis(99));
+        report.put("p999Ms", percentileMillis(99.9));
+        report.put("maxMs", maxMillis());
+        double hitRatio = cacheHitRatio();
+        report.put("cacheHitRatio", Double.isNaN(hitRatio) ? null : hitRatio);
+        return report;
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.redisdemo.loadtest;
+
+import com.example.redisdemo.service.ProductCategoryIndex;
+import com.example.redisdemo.support.EmbeddedApplication;
+import com.example.redisdemo.support.RespStandIn;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application against an in-process Redis stand-in and H2, drives a weighted mix of
+ * product requests with Zipfian key skew from many concurrent clients, and reports throughput,
+ * latency percentiles and cache hit ratio per operation.
+ * <p>
+ * With {@code loadtest.rate} set, each client follows a fixed schedule and latency is measured
+ * from the time a request was due rather than when it was actually sent, so a stalled server
+ * shows up in the percentiles instead of silently lowering the request rate.
+ * <p>
+ * With {@code loadtest.redis-pause} set, every Redis stand-in stops answering for that long, a
+ * third of the way into the measurement, to show how requests fare while Redis hangs.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; see the task in {@code build.gradle} for the settings.
+ */
+public final class LoadTest {
+
+    private static final Map<String, Object> APPLICATION_DEFAULTS = Map.of(
+            "app.products.lookup.simulated-latency.model", "LOG_NORMAL",
+            "app.products.lookup.simulated-latency.base", "20ms",
+            "app.products.lookup.simulated-latency.spread", "80ms",
+            "app.products.lookup.simulated-latency.per-row", "1ms");
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final Map<Operation, EndpointStats> stats;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<RespStandIn> redisServers = new ArrayList<>();
+    private final List<Long> hotIds = new ArrayList<>();
+    private final Map<Long, ObjectNode> catalog = new LinkedHashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private ZipfianSampler productSampler;
+    private ZipfianSampler categorySampler;
+
+    private volatile long measuringFrom = Long.MAX_VALUE;
+
+    private LoadTest(LoadTestConfig config, String baseUrl, Map<Operation, EndpointStats> stats) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+        this.operations = config.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += config.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+
+        try (EmbeddedApplication application = EmbeddedApplication.startWebServer(APPLICATION_DEFAULTS,
+                config.redisShards(), CacheOutcomeFilter.class)) {
+            LoadTest loadTest = new LoadTest(config, "http://127.0.0.1:" + application.getLocalPort(), stats);
+            CacheOutcomeFilter.sink = (operation, tally) -> {
+                if (System.nanoTime() >= loadTest.measuringFrom) {
+                    stats.get(operation).recordCacheOutcomes(tally.hits(), tally.misses());
+                }
+            };
+            // The category sets live on the main server, which has no Lua
+            application.getRedis().registerScript(ProductCategoryIndex.APPLY_SCRIPT.getScriptAsString(),
+                    LoadTest::applyCategoryChange);
+            application.getRedis().registerScript(ProductCategoryIndex.REBUILD_SCRIPT.getScriptAsString(),
+                    LoadTest::rebuildCategory);
+            loadTest.redisServers.add(application.getRedis());
+            loadTest.redisServers.addAll(application.getShards());
+            loadTest.loadCatalog();
+            loadTest.run();
+            loadTest.report();
+            if (!application.getShards().isEmpty()) {
+                System.out.printf("Redis keys per shard: %s%n",
+                        application.getShards().stream().map(shard -> String.valueOf(shard.size())).toList());
+            }
+        }
+    }
+
+    /**
+     * {@link ProductCategoryIndex#APPLY_SCRIPT}, in Java.
+     */
+    private static Object applyCategoryChange(RespStandIn redis, List<String> keys, List<String> args) {
+        String id = args.get(0);
+        for (int i = 1; i < args.size(); i++) {
+            String set = keys.get(2 * i - 2);
+            redis.increment(keys.get(2 * i - 1));
+            if (redis.exists(set)) {
+                if (args.get(i).equals("+")) {
+                    redis.addMember(set, id);
+                } else {
+                    redis.removeMember(set, id);
+                }
+            }
+        }
+        return 1L;
+    }
+
+    /**
+     * {@link ProductCategoryIndex#REBUILD_SCRIPT}, in Java.
+     */
+    private static Object rebuildCategory(RespStandIn redis, List<String> keys, List<String> args) {
+        if (!Objects.requireNonNullElse(redis.get(keys.get(1)), "0").equals(args.get(0))) {
+            return 0L;
+        }
+        redis.delete(keys.get(0));
+        args.subList(2, args.size()).forEach(member -> redis.addMember(keys.get(0), member));
+        redis.expire(keys.get(0), Long.parseLong(args.get(1)));
+        return 1L;
+    }
+
+    /**
+     * Reads the product catalog through the streaming endpoint; hot products are a seeded shuffle of it.
+     */
+    private void loadCatalog() throws IOException, InterruptedException {
+        HttpResponse<java.io.InputStream> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/stream"))
+                        .header("Accept", "application/x-ndjson").build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!line.isBlank()) {
+                    ObjectNode product = (ObjectNode) objectMapper.readTree(line);
+                    catalog.put(product.get("id").asLong(), product);
+                    String category = product.get("category").asText();
+                    if (!categories.contains(category)) {
+                        categories.add(category);
+                    }
+                }
+            }
+        }
+        if (catalog.isEmpty()) {
+            throw new IllegalStateException("The application returned no products to test against");
+        }
+        hotIds.addAll(catalog.keySet());
+        Collections.shuffle(hotIds, new Random(7));
+        productSampler = new ZipfianSampler(hotIds.size(), config.zipfExponent());
+        categorySampler = new ZipfianSampler(categories.size(), config.zipfExponent());
+        System.out.printf("Loaded %d products in %d categories; %d clients, mix %s, zipf s=%.2f%n",
+                catalog.size(), categories.size(), config.threads(), config.mix(), config.zipfExponent());
+    }
+
+    private void run() throws InterruptedException {
+        long start = System.nanoTime();
+        measuringFrom = start + config.warmup().toNanos();
+        long end = measuringFrom + config.duration().toNanos();
+        long intervalNanos = config.rate() > 0 ? (long) (config.threads() * 1e9 / config.rate()) : 0;
+
+        System.out.printf("Warming up for %ds, then measuring for %ds...%n", config.warmup().toSeconds(),
+                config.duration().toSeconds());
+        if (!config.redisPause().isZero()) {
+            scheduleRedisPause(measuringFrom + config.duration().toNanos() / 3);
+        }
+        CountDownLatch done = new CountDownLatch(config.threads());
+        for (int t = 0; t < config.threads(); t++) {
+            long firstSlot = start + (intervalNanos * t) / config.threads();
+            Thread client = new Thread(() -> {
+                try {
+                    clientLoop(firstSlot, intervalNanos, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + t);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+    }
+
+    private void scheduleRedisPause(long at) {
+        Thread fault = new Thread(() -> {
+            sleepNanos(at - System.nanoTime());
+            System.out.printf("Pausing Redis for %dms%n", config.redisPause().toMillis());
+            redisServers.forEach(RespStandIn::pause);
+            sleepNanos(config.redisPause().toNanos());
+            redisServers.forEach(RespStandIn::resume);
+            System.out.println("Redis answers again");
+        }, "redis-pause");
+        fault.setDaemon(true);
+        fault.start();
+    }
+
+    private void clientLoop(long firstSlot, long intervalNanos, long end) {
+        long nextSlot = firstSlot;
+        while (true) {
+            long intended;
+            if (intervalNanos > 0) {
+                intended = nextSlot;
+                nextSlot += intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    sleepNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= end) {
+                return;
+            }
+
+            Operation operation = pickOperation();
+            boolean ok = send(operation);
+            long latency = System.nanoTime() - intended;
+            if (intended >= measuringFrom) {
+                EndpointStats endpoint = stats.get(operation);
+                endpoint.recordLatency(latency);
+                if (!ok) {
+                    endpoint.recordError();
+                }
+            }
+        }
+    }
+
+    private Operation pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private boolean send(Operation operation) {
+        try {
+            HttpRequest request = buildRequest(operation)
+                    .header(CacheOutcomeFilter.OPERATION_HEADER, operation.name())
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() < 400;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder buildRequest(Operation operation) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case GET -> get("/api/products/" + hotId());
+            case BATCH -> {
+                List<Long> ids = new ArrayList<>(config.batchSize());
+                for (int i = 0; i < config.batchSize(); i++) {
+                    ids.add(hotId());
+                }
+                yield json("/api/products/batch", "POST", objectMapper.writeValueAsString(ids));
+            }
+            case CATEGORY -> get("/api/products/category/"
+                    + encode(categories.get(categorySampler.next())).replace("+", "%20"));
+            case SEARCH -> get("/api/products/search?name=" + encode(searchTerm(catalog.get(hotId()))));
+            case LIST -> get("/api/products?limit=50&afterId=" + hotIds.get(random.nextInt(hotIds.size())));
+            case UPDATE -> {
+                long id = hotId();
+                ObjectNode body = catalog.get(id).deepCopy();
+                body.put("price", randomPrice());
+                body.put("stockQuantity", random.nextInt(10, 200));
+                yield json("/api/products/" + id, "PUT", objectMapper.writeValueAsString(body));
+            }
+            case CREATE -> {
+                ObjectNode body = objectMapper.createObjectNode()
+                        .put("name", "Load Test Product " + random.nextInt(1_000_000))
+                        .put("description", "Created by the load test")
+                        .put("price", randomPrice())
+                        .put("category", categories.get(categorySampler.next()))
+                        .put("stockQuantity", random.nextInt(10, 200));
+                yield json("/api/products", "POST", objectMapper.writeValueAsString(body));
+            }
+        };
+    }
+
+    private long hotId() {
+        return hotIds.get(productSampler.next());
+    }
+
+    /**
+     * A prefix of the product name's first word, as typed into a search box.
+     */
+    private static String searchTerm(JsonNode product) {
+        String firstWord = product.get("name").asText().split("\\s+")[0].toLowerCase(Locale.ROOT);
+        int length = Math.min(firstWord.length(), ThreadLocalRandom.current().nextInt(3, 7));
+        return firstWord.substring(0, length);
+    }
+
+    private static BigDecimal randomPrice() {
+        return BigDecimal.valueOf(ThreadLocalRandom.current().nextDouble(5, 3000)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder json(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report() throws IOException {
+        double seconds = config.duration().toNanos() / 1e9;
+        System.out.println();
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s %10s%n", "operation", "requests", "errors",
+                "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "cache hit");
+        Map<String, Object> operationsReport = new LinkedHashMap<>();
+        long totalRequests = 0;
+        for (Operation operation : operations) {
+            EndpointStats endpoint = stats.get(operation);
+            double hitRatio = endpoint.cacheHitRatio();
+            System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10s%n", operation.label(),
+                    endpoint.requests(), endpoint.errors(), endpoint.requests() / seconds,
+                    endpoint.percentileMillis(50), endpoint.percentileMillis(99), endpoint.percentileMillis(99.9),
+                    endpoint.maxMillis(),
+                    Double.isNaN(hitRatio) ? "-" : String.format(Locale.ROOT, "%.1f%%", hitRatio * 100));
+            operationsReport.put(operation.label(), endpoint.toReport(seconds));
+            totalRequests += endpoint.requests();
+        }
+        System.out.printf("%nTotal: %d requests, %.1f req/s%n", totalRequests, totalRequests / seconds);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("durationSeconds", config.duration().toSeconds());
+        settings.put("warmupSeconds", config.warmup().toSeconds());
+        settings.put("threads", config.threads());
+        settings.put("targetRate", config.rate());
+        settings.put("zipfExponent", config.zipfExponent());
+        settings.put("batchSize", config.batchSize());
+        settings.put("redisShards", config.redisShards());
+        settings.put("redisPauseMillis", config.redisPause().toMillis());
+        settings.put("mix", config.mix());
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("throughputPerSecond", totalRequests / seconds);
+        report.put("operations", operationsReport);
+
+        Files.createDirectories(config.report().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.report().toFile(), report);
+        System.out.println("Report written to " + config.report().toAbsolutePath());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.redisdemo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ *
+ * @param duration     how long to measure, after the warm-up
+ * @param warmup       how long to run before measuring
+ * @param threads      concurrent clients
+ * @param rate         target requests per second across all clients (open loop); 0 = as fast as possible
+ * @param mix          relative weight per operation
+ * @param zipfExponent key skew; 0 = uniform, ~1 = a few products get most of the traffic
+ * @param batchSize    IDs per batch request
+ * @param redisShards  Redis stand-ins the products cache is sharded over; 0 = unsharded
+ * @param redisPause   how long Redis stops answering, a third of the way into the measurement; 0 = never
+ * @param report       where the JSON report is written
+ */
+record LoadTestConfig(Duration duration, Duration warmup, int threads, double rate, Map<Operation, Integer> mix,
+        double zipfExponent, int batchSize, int redisShards, Duration redisPause, Path report) {
+
+    static final String DEFAULT_MIX = "get=60,batch=5,category=10,search=10,list=5,update=8,create=2";
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Duration.parse("PT" + property("duration", "30s").toUpperCase()),
+                Duration.parse("PT" + property("warmup", "10s").toUpperCase()),
+                Integer.parseInt(property("threads", "32")),
+                Double.parseDouble(property("rate", "0")),
+                parseMix(property("mix", DEFAULT_MIX)),
+                Double.parseDouble(property("zipf", "0.99")),
+                Integer.parseInt(property("batch-size", "20")),
+                Integer.parseInt(property("redis-shards", "0")),
+                Duration.parse("PT" + property("redis-pause", "0s").toUpperCase()),
+                Path.of(property("report", "build/reports/loadtest/report.json")));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in loadtest.mix, got '" + part + "'");
+            }
+            int value = Integer.parseInt(weight[1].trim());
+            if (value > 0) {
+                weights.put(Operation.valueOf(weight[0].trim().toUpperCase()), value);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no operation with a positive weight");
+        }
+        return weights;
+    }
+}
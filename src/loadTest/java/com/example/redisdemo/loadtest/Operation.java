@@ -0,0 +1,26 @@
+package com.example.redisdemo.loadtest;
+
+/**
+ * The request types the load test can mix.
+ */
+enum Operation {
+
+    /** {@code GET /api/products/{id}} */
+    GET,
+    /** {@code POST /api/products/batch} */
+    BATCH,
+    /** {@code GET /api/products/category/{category}} */
+    CATEGORY,
+    /** {@code GET /api/products/search?name=} */
+    SEARCH,
+    /** {@code GET /api/products?afterId=&limit=} */
+    LIST,
+    /** {@code PUT /api/products/{id}} */
+    UPDATE,
+    /** {@code POST /api/products} */
+    CREATE;
+
+    String label() {
+        return name().toLowerCase();
+    }
+}
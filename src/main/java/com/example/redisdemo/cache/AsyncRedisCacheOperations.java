@@ -0,0 +1,145 @@
+package com.example.redisdemo.cache;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking reads and writes against the Redis keys of one {@code RedisCache}, over a single
+ * Lettuce connection per Redis node shared by every caller.
+ * <p>
+ * Lettuce writes each command to the socket as soon as it is issued and matches replies in order,
+ * so concurrent callers are pipelined on that one connection without holding a thread or a pooled
+ * connection while they wait. Keys, values and TTLs are encoded exactly as
+ * {@link RedisCacheBulkOperations} (and therefore {@code RedisCache}) encodes them, and routed to
+ * the same nodes.
+ * <p>
+ * Futures complete on Lettuce's I/O threads; callers must not block in their continuations.
+ */
+public class AsyncRedisCacheOperations {
+
+    private final RedisCacheBulkOperations codec;
+    private final RedisShards shards;
+    private final RedisAsyncCommands<byte[], byte[]> pubSubCommands;
+
+    /**
+     * @param pubSubCommands where invalidations are published; cache entries go to the nodes of
+     *                       {@code codec}'s {@link RedisShards}
+     */
+    public AsyncRedisCacheOperations(RedisCacheBulkOperations codec,
+            RedisAsyncCommands<byte[], byte[]> pubSubCommands) {
+        this.codec = codec;
+        this.shards = codec.getShards();
+        this.pubSubCommands = pubSubCommands;
+    }
+
+    /**
+     * Completes with {@code null} when the key does not exist and with {@link
+     * org.springframework.cache.support.NullValue#INSTANCE} for a cached {@code null}.
+     */
+    public CompletableFuture<Object> get(String key) {
+        byte[] redisKey = codec.serializeKey(key);
+        RedisShards.Node node = shards.nodeFor(redisKey);
+        return shards.track(node, node.getAsyncCommands().get(redisKey).toCompletableFuture())
+                .thenApply(value -> value != null ? codec.deserializeValue(value) : null);
+    }
+
+    /**
+     * GET and PTTL back to back on the key's node; same result as {@link RedisCacheBulkOperations#getWithTtl}.
+     */
+    public CompletableFuture<RedisCacheBulkOperations.TimedValue> getWithTtl(String key) {
+        byte[] redisKey = codec.serializeKey(key);
+        RedisShards.Node node = shards.nodeFor(redisKey);
+        RedisAsyncCommands<byte[], byte[]> commands = node.getAsyncCommands();
+        CompletableFuture<byte[]> value = shards.track(node, commands.get(redisKey).toCompletableFuture());
+        CompletableFuture<Long> remainingMillis = shards.track(node, commands.pttl(redisKey).toCompletableFuture());
+        return value.thenCombine(remainingMillis, (bytes, millis) -> {
+            if (bytes == null) {
+                return null;
+            }
+            Duration remaining = millis == null || millis < 0 ? null : Duration.ofMillis(millis);
+            return new RedisCacheBulkOperations.TimedValue(codec.deserializeValue(bytes), remaining);
+        });
+    }
+
+    /**
+     * One MGET per node, all in flight at once; same result shape as {@link RedisCacheBulkOperations#getAll}.
+     */
+    public CompletableFuture<Map<String, Object>> getAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        byte[][] redisKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            redisKeys[i] = codec.serializeKey(keys.get(i));
+        }
+        List<CompletableFuture<Map<String, Object>>> replies = new ArrayList<>();
+        codec.partition(redisKeys).forEach((node, indexes) -> {
+            byte[][] nodeKeys = indexes.stream().map(i -> redisKeys[i]).toArray(byte[][]::new);
+            replies.add(shards.track(node, node.getAsyncCommands().mget(nodeKeys).toCompletableFuture())
+                    .thenApply(values -> {
+                        Map<String, Object> found = new HashMap<>();
+                        for (int i = 0; i < indexes.size() && i < values.size(); i++) {
+                            KeyValue<byte[], byte[]> value = values.get(i);
+                            if (value.hasValue()) {
+                                found.put(keys.get(indexes.get(i)), codec.deserializeValue(value.getValue()));
+                            }
+                        }
+                        return found;
+                    }));
+        });
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<String, Object> result = new HashMap<>();
+            replies.forEach(reply -> result.putAll(reply.join()));
+            return result;
+        });
+    }
+
+    /**
+     * Issues one SET per entry back to back on its node, each with the TTL the cache would have used,
+     * and completes once Redis has acknowledged all of them.
+     */
+    public CompletableFuture<Void> putAll(Map<String, ?> entries) {
+        List<CompletableFuture<String>> replies = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> {
+            long ttlMillis = codec.ttlMillis(key, value);
+            byte[] redisKey = codec.serializeKey(key);
+            byte[] redisValue = codec.serializeValue(value);
+            RedisShards.Node node = shards.nodeFor(redisKey);
+            RedisAsyncCommands<byte[], byte[]> commands = node.getAsyncCommands();
+            RedisFuture<String> reply = ttlMillis > 0
+                    ? commands.set(redisKey, redisValue, SetArgs.Builder.px(ttlMillis))
+                    : commands.set(redisKey, redisValue);
+            replies.add(shards.track(node, reply.toCompletableFuture()));
+        });
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * SET NX with the TTL the cache would have used; completes with whether the key was written.
+     */
+    public CompletableFuture<Boolean> putIfAbsent(String key, Object value) {
+        long ttlMillis = codec.ttlMillis(key, value);
+        byte[] redisKey = codec.serializeKey(key);
+        byte[] redisValue = codec.serializeValue(value);
+        RedisShards.Node node = shards.nodeFor(redisKey);
+        SetArgs args = ttlMillis > 0 ? SetArgs.Builder.nx().px(ttlMillis) : SetArgs.Builder.nx();
+        return shards.track(node, node.getAsyncCommands().set(redisKey, redisValue, args).toCompletableFuture())
+                .thenApply(reply -> reply != null);
+    }
+
+    /**
+     * PUBLISH on the shared connection; used for invalidations that follow an async write.
+     */
+    public CompletableFuture<Long> publish(byte[] channel, byte[] message) {
+        return pubSubCommands.publish(channel, message).toCompletableFuture();
+    }
+}
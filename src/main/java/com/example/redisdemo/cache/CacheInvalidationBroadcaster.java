@@ -0,0 +1,103 @@
+package com.example.redisdemo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes L1 invalidations over Redis pub/sub.
+ * Failures are logged and swallowed: a lost message only means a peer serves
+ * its L1 copy until that entry's time-to-live runs out.
+ */
+@Slf4j
+public class CacheInvalidationBroadcaster {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final String nodeId;
+
+    public CacheInvalidationBroadcaster(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            String channel, String nodeId) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.nodeId = nodeId;
+    }
+
+    public void evict(String cacheName, String key) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, List.of(key)));
+    }
+
+    public void evict(String cacheName, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            publish(new CacheInvalidationMessage(nodeId, cacheName, List.copyOf(keys)));
+        }
+    }
+
+    /**
+     * Like {@link #evict(String, Collection)}, but published on the shared async connection so the
+     * caller never waits for Redis. Completes normally even if publishing fails.
+     */
+    public CompletableFuture<Void> evictAsync(String cacheName, Collection<String> keys,
+            AsyncRedisCacheOperations asyncOperations) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CacheInvalidationMessage message = new CacheInvalidationMessage(nodeId, cacheName, List.copyOf(keys));
+        return asyncOperations.publish(channel.getBytes(StandardCharsets.UTF_8), encode(message))
+                .handle((receivers, e) -> {
+                    if (e != null) {
+                        log.warn("Could not publish cache invalidation for {}::{} - peers will expire it by TTL",
+                                cacheName, message.keys(), e);
+                    }
+                    return null;
+                });
+    }
+
+    public void clear(String cacheName) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, List.of()));
+    }
+
+    public CacheInvalidationMessage decode(byte[] body) {
+        try {
+            return objectMapper.readValue(body, CacheInvalidationMessage.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isFromThisNode(CacheInvalidationMessage message) {
+        return nodeId.equals(message.origin());
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    private void publish(CacheInvalidationMessage message) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode " + message, e);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish cache invalidation for {}::{} - peers will expire it by TTL",
+                    message.cacheName(), message.keys(), e);
+        }
+    }
+
+    private byte[] encode(CacheInvalidationMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode " + message, e);
+        }
+    }
+}
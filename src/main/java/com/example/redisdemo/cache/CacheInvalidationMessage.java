@@ -0,0 +1,17 @@
+package com.example.redisdemo.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Pub/sub payload telling other nodes to drop L1 entries.
+ * An empty key list means "clear the whole cache".
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, List<String> keys) {
+
+    @JsonIgnore
+    public boolean isClear() {
+        return keys == null || keys.isEmpty();
+    }
+}
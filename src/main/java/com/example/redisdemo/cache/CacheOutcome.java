@@ -0,0 +1,78 @@
+package com.example.redisdemo.cache;
+
+/**
+ * Where cache lookups on the current thread were answered from.
+ * <p>
+ * Recording only happens between {@link #track()} and {@link #finish()}, so threads that never
+ * ask for the outcome pay nothing beyond a thread-local read. Multi-key lookups record one
+ * outcome per key. Async lookups capture the caller's tally with {@link #current()} and record
+ * into it from whichever thread completes them.
+ */
+public enum CacheOutcome {
+
+    L1_HIT,
+    L2_HIT,
+    MISS;
+
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Starts recording outcomes on this thread.
+     */
+    public static void track() {
+        CURRENT.set(new Tally());
+    }
+
+    /**
+     * Stops recording and returns what was seen since {@link #track()}.
+     */
+    public static Tally finish() {
+        Tally tally = CURRENT.get();
+        CURRENT.remove();
+        return tally != null ? tally : new Tally();
+    }
+
+    /**
+     * The tally being recorded on this thread, or {@code null} if nobody is tracking.
+     */
+    public static Tally current() {
+        return CURRENT.get();
+    }
+
+    static void record(CacheOutcome outcome) {
+        record(CURRENT.get(), outcome);
+    }
+
+    static void record(Tally tally, CacheOutcome outcome) {
+        if (tally != null) {
+            tally.last = outcome;
+            if (outcome == MISS) {
+                tally.misses++;
+            } else {
+                tally.hits++;
+            }
+        }
+    }
+
+    /**
+     * Hits and misses for one request; {@code last} is {@code null} if no cache was consulted.
+     */
+    public static final class Tally {
+
+        private CacheOutcome last;
+        private int hits;
+        private int misses;
+
+        public CacheOutcome last() {
+            return last;
+        }
+
+        public int hits() {
+            return hits;
+        }
+
+        public int misses() {
+            return misses;
+        }
+    }
+}
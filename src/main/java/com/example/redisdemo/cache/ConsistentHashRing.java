@@ -0,0 +1,90 @@
+package com.example.redisdemo.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Maps keys to nodes on a 64-bit hash ring with {@code virtualNodes} points per node.
+ * <p>
+ * A key belongs to the first point at or after its hash. Taking a node off the ring only moves the
+ * keys it owned, each to the next point; adding one only takes keys from its neighbours. With N
+ * nodes that is about 1/N of the keys either way, where {@code hash % N} would move almost all of
+ * them. Points are placed by node name, so every client configured with the same names agrees on
+ * the owner of a key. Immutable; build a new ring when membership changes.
+ */
+final class ConsistentHashRing<N> {
+
+    private static final double RING_SIZE = 0x1p64;
+
+    private final long[] points;
+    private final Object[] owners;
+
+    ConsistentHashRing(Collection<N> nodes, Function<N, String> nameOf, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one point per node");
+        }
+        Point[] ring = nodes.stream()
+                .flatMap(node -> IntStream.range(0, virtualNodes).mapToObj(i ->
+                        new Point(hash((nameOf.apply(node) + "#" + i).getBytes(StandardCharsets.UTF_8)), node)))
+                .sorted(Comparator.comparingLong(Point::hash))
+                .toArray(Point[]::new);
+        this.points = new long[ring.length];
+        this.owners = new Object[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i].hash();
+            owners[i] = ring[i].owner();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    N nodeFor(byte[] key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return (N) owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * The fraction of the hash space (and so, roughly, of the keys) owned by {@code node}.
+     */
+    double share(N node) {
+        if (points.length == 1) {
+            return owners[0].equals(node) ? 1.0 : 0.0;
+        }
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (owners[i].equals(node)) {
+                // Arc from the previous point, wrapping around; the subtraction is exact modulo 2^64
+                long arc = points[i] - points[i == 0 ? points.length - 1 : i - 1];
+                owned += (arc >>> 1) * 2.0 + (arc & 1);
+            }
+        }
+        return owned / RING_SIZE;
+    }
+
+    /**
+     * FNV-1a over the bytes, then the MurmurHash3 finalizer so that keys differing only in their
+     * last characters ("products::41", "products::42") still land far apart.
+     */
+    static long hash(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Point(long hash, Object owner) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.redisdemo.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Approximate per-key counts in a fixed amount of memory.
+ * <p>
+ * Each key increments one counter in each of {@code depth} rows; its estimate is the smallest of
+ * those counters. Collisions can only add to a counter, so an estimate is never below the true
+ * count and overestimates by at most {@code 2 * total / width} in all but a tiny fraction of cases.
+ * Counters are updated lock-free. {@link #decay()} halves every counter so that old traffic fades
+ * out and the sketch tracks what is popular now.
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final AtomicIntegerArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth rows, at most 8
+     */
+    public CountMinSketch(int width, int depth) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.depth = depth;
+        this.widthMask = rowWidth - 1;
+        this.counters = new AtomicIntegerArray(rowWidth * depth);
+    }
+
+    /**
+     * Counts one occurrence of {@code key} and returns its new estimate.
+     */
+    public int increment(Object key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            int count = counters.get(index);
+            // Saturate instead of overflowing into a negative count
+            while (count < Integer.MAX_VALUE && !counters.compareAndSet(index, count, count + 1)) {
+                count = counters.get(index);
+            }
+            estimate = Math.min(estimate, count < Integer.MAX_VALUE ? count + 1 : count);
+        }
+        return estimate;
+    }
+
+    public int estimate(Object key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter. Increments racing with this may be halved or not; either is fine for
+     * an estimate.
+     */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash ^ SEEDS[row]) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= SEEDS[(row + 1) % SEEDS.length];
+        h ^= h >>> 29;
+        return row * (widthMask + 1) + (int) (h & widthMask);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.redisdemo.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over {@code long} keys that also supports removal.
+ * <p>
+ * Each slot is a 4-bit counter, sixteen of them packed per {@code long} and updated with CAS,
+ * so the filter is lock-free and costs half a byte per slot. A counter that reaches 15 is
+ * never decremented again: that keeps removals from ever causing a false negative, at the
+ * cost of the slot staying set.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xFL;
+    private static final long SATURATED = 0xFL;
+
+    private final AtomicLongArray words;
+    private final long slots;
+    private final int hashFunctions;
+
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.slots = Math.max(COUNTERS_PER_WORD, m);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) slots / n * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((slots + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+    }
+
+    public void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            increment(slot(h1, h2, i));
+        }
+    }
+
+    public void remove(long key) {
+        if (!mightContain(key)) {
+            return;
+        }
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            decrement(slot(h1, h2, i));
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counter(slot(h1, h2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A copy of the counters, e.g. to save the filter; each word is read atomically, the whole
+     * array is not.
+     */
+    public long[] toWords() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * A filter sized for {@code expectedInsertions} and {@code falsePositiveRate} with the counters
+     * of {@link #toWords()}, or {@code null} if they came from a filter with other slots or hash functions.
+     */
+    public static CountingBloomFilter fromWords(long expectedInsertions, double falsePositiveRate, long slots,
+            int hashFunctions, long[] words) {
+        CountingBloomFilter filter = new CountingBloomFilter(expectedInsertions, falsePositiveRate);
+        if (filter.slots != slots || filter.hashFunctions != hashFunctions || words.length != filter.words.length()) {
+            return null;
+        }
+        for (int i = 0; i < words.length; i++) {
+            filter.words.set(i, words[i]);
+        }
+        return filter;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public long getSlots() {
+        return slots;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    private long slot(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, slots);
+    }
+
+    private long counter(long slot) {
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        return (words.get((int) (slot / COUNTERS_PER_WORD)) >>> shift) & COUNTER_MASK;
+    }
+
+    private void increment(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long word = words.get(index);
+            long value = (word >>> shift) & COUNTER_MASK;
+            if (value == SATURATED || words.compareAndSet(index, word, word + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long word = words.get(index);
+            long value = (word >>> shift) & COUNTER_MASK;
+            if (value == 0 || value == SATURATED || words.compareAndSet(index, word, word - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
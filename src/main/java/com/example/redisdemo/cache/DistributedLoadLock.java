@@ -0,0 +1,91 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.config.CacheLockProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * A lease-based Redis lock ({@code SET NX PX}) used so that only one node loads a
+ * missing cache entry while the others wait for it to appear in Redis.
+ * <p>
+ * The lock is advisory: if Redis is unreachable, or the holder takes longer than
+ * the wait timeout, callers load the value themselves rather than fail.
+ */
+@Slf4j
+public class DistributedLoadLock {
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheLockProperties properties;
+
+    public DistributedLoadLock(StringRedisTemplate redisTemplate, CacheLockProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Runs {@code loader} while holding the lock for {@code lockKey}. If another node holds it,
+     * polls {@code lookup} until it returns non-null and returns that instead. A lookup that can find
+     * a cached {@code null} should return a holder such as a {@code ValueWrapper}, or waiters cannot
+     * tell it from "not loaded yet".
+     */
+    public <T> T loadOnce(String lockKey, Supplier<T> lookup, Supplier<T> loader) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+
+        while (!tryAcquire(lockKey, token)) {
+            T loadedElsewhere = lookup.get();
+            if (loadedElsewhere != null) {
+                return loadedElsewhere;
+            }
+            if (System.nanoTime() >= deadline) {
+                log.debug("Gave up waiting for lock {} - loading locally", lockKey);
+                return loader.get();
+            }
+            try {
+                Thread.sleep(properties.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            }
+        }
+
+        try {
+            T alreadyLoaded = lookup.get();
+            return alreadyLoaded != null ? alreadyLoaded : loader.get();
+        } finally {
+            release(lockKey, token);
+        }
+    }
+
+    private boolean tryAcquire(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(
+                    redisTemplate.opsForValue().setIfAbsent(lockKey, token, properties.getLeaseTime()));
+        } catch (RuntimeException e) {
+            log.warn("Could not acquire load lock {} - loading without it", lockKey, e);
+            return true;
+        }
+    }
+
+    private void release(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), token);
+        } catch (RuntimeException e) {
+            log.warn("Could not release load lock {} - it expires after {}", lockKey, properties.getLeaseTime(), e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.redisdemo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the most read keys of one cache as they become popular and keeps a pinned local copy of them.
+ * <p>
+ * One in {@code sampleEvery} lookups is counted in a {@link CountMinSketch}. A key whose estimate
+ * reaches {@code threshold} enters the top-K set, displacing the coldest member once the set is
+ * full. Every {@code window} the sketch and the top-K estimates are halved, and keys that fall
+ * below the threshold leave the set, so only current hot spots are tracked.
+ * <p>
+ * Values of top-K keys are held in a replica with a short TTL. Unlike L1, the replica is not
+ * shared with the long tail, so a hot entry is never evicted by a scan over cold ones, and it
+ * still works for caches that run without L1. The owning {@link TwoTierCache} drops replica
+ * entries whenever it invalidates L1.
+ */
+public class HotKeyTracker {
+
+    private final CountMinSketch sketch;
+    private final int sampleEvery;
+    private final int threshold;
+    private final int topK;
+    private final long windowNanos;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> replica;
+    private final Map<String, Integer> hotKeys = new ConcurrentHashMap<>();
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private final AtomicLong nextDecayAt;
+    private final LongAdder replicaHits = new LongAdder();
+
+    public HotKeyTracker(int sampleEvery, int threshold, int topK, Duration window, Duration replicaTtl,
+            int sketchWidth) {
+        this.sketch = new CountMinSketch(sketchWidth, 4);
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.threshold = Math.max(1, threshold);
+        this.topK = topK;
+        this.windowNanos = window.toNanos();
+        this.replica = Caffeine.newBuilder().maximumSize(topK).expireAfterWrite(replicaTtl).build();
+        this.nextDecayAt = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    /**
+     * Counts a sample of lookups; cheap enough to call on every read.
+     */
+    public void recordLookup(String key) {
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        maybeDecay();
+        int estimate = sketch.increment(key);
+        if (estimate < threshold) {
+            return;
+        }
+        if (hotKeys.replace(key, estimate) == null) {
+            admit(key, estimate);
+        }
+    }
+
+    /**
+     * The pinned value of a hot key, or {@code null}.
+     */
+    public Object getReplica(String key) {
+        Object value = replica.getIfPresent(key);
+        if (value != null) {
+            replicaHits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Pins {@code value} if {@code key} is currently hot.
+     */
+    public void offer(String key, Object value) {
+        if (value != null && hotKeys.containsKey(key)) {
+            replica.put(key, value);
+        }
+    }
+
+    /**
+     * Drops the replica of one key, or of all keys for {@code null}.
+     */
+    public void invalidate(String key) {
+        if (key == null) {
+            replica.invalidateAll();
+        } else {
+            replica.invalidate(key);
+        }
+    }
+
+    /**
+     * Hot keys, hottest first. {@code estimatedLookups} scales the sampled count back up and covers
+     * roughly the last one to two windows.
+     */
+    public List<HotKey> getHotKeys() {
+        return hotKeys.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .map(entry -> new HotKey(entry.getKey(), (long) entry.getValue() * sampleEvery,
+                        replica.getIfPresent(entry.getKey()) != null))
+                .toList();
+    }
+
+    public long getReplicaHits() {
+        return replicaHits.sum();
+    }
+
+    /**
+     * Registers the number of hot keys, replica hits, and the estimated lookups of each top-K rank.
+     * Ranks rather than keys are used as tags so the number of series stays fixed however the hot
+     * set changes; the keys themselves are on the admin endpoint.
+     */
+    public void bindTo(MeterRegistry registry, String cacheName) {
+        Gauge.builder("cache.hot_keys.size", hotKeys, Map::size)
+                .description("Keys currently detected as hot")
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("cache.hot_keys.replica_hits", this, HotKeyTracker::getReplicaHits)
+                .description("Lookups answered from the replica of hot keys")
+                .tag("cache", cacheName)
+                .register(registry);
+        for (int rank = 1; rank <= topK; rank++) {
+            int index = rank - 1;
+            Gauge.builder("cache.hot_keys.estimated_lookups", this, tracker -> {
+                        List<HotKey> current = tracker.getHotKeys();
+                        return index < current.size() ? current.get(index).estimatedLookups() : 0;
+                    })
+                    .description("Estimated recent lookups of the key at this rank of the hot set")
+                    .tag("cache", cacheName)
+                    .tag("rank", String.valueOf(rank))
+                    .register(registry);
+        }
+    }
+
+    private void admit(String key, int estimate) {
+        admissionLock.lock();
+        try {
+            if (hotKeys.containsKey(key)) {
+                hotKeys.put(key, estimate);
+                return;
+            }
+            if (hotKeys.size() >= topK) {
+                Map.Entry<String, Integer> coldest = hotKeys.entrySet().stream()
+                        .min(Map.Entry.comparingByValue())
+                        .orElseThrow();
+                if (coldest.getValue() >= estimate) {
+                    return;
+                }
+                hotKeys.remove(coldest.getKey());
+                replica.invalidate(coldest.getKey());
+            }
+            hotKeys.put(key, estimate);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private void maybeDecay() {
+        long now = System.nanoTime();
+        long due = nextDecayAt.get();
+        if (now - due < 0 || !nextDecayAt.compareAndSet(due, now + windowNanos)) {
+            return;
+        }
+        sketch.decay();
+        admissionLock.lock();
+        try {
+            hotKeys.replaceAll((key, estimate) -> estimate >>> 1);
+            hotKeys.entrySet().removeIf(entry -> {
+                boolean cooled = entry.getValue() < threshold;
+                if (cooled) {
+                    replica.invalidate(entry.getKey());
+                }
+                return cooled;
+            });
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * {@code replicated} is whether a value for the key is pinned right now.
+     */
+    public record HotKey(String key, long estimatedLookups, boolean replicated) {
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.redisdemo.cache;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The L1 contents of some caches and the product ID filter, saved to a file that a restarting node
+ * maps into memory.
+ * <p>
+ * Layout: a header (magic, format version, the caller's validity stamp, write time), the ID filter's
+ * counters, then per cache its name and an index of {@code key -> (offset, length)}, and finally
+ * all values back to back, as encoded by the cache's own Redis serializer. Opening a snapshot only
+ * reads the header and the key index; a value is copied out of the mapping (and its page read from
+ * disk) when it is first asked for. Files are written next to the target and moved over it, so a
+ * reader never sees half a snapshot.
+ */
+public final class LocalCacheSnapshot {
+
+    private static final int MAGIC = 0x4C31534E; // "L1SN"
+    private static final int FORMAT_VERSION = 1;
+
+    private final long stamp;
+    private final Instant writtenAt;
+    private final long filterSlots;
+    private final int filterHashFunctions;
+    private final long[] filterWords;
+    private final Map<String, Entries> caches;
+
+    private LocalCacheSnapshot(long stamp, Instant writtenAt, long filterSlots, int filterHashFunctions,
+            long[] filterWords, Map<String, Entries> caches) {
+        this.stamp = stamp;
+        this.writtenAt = writtenAt;
+        this.filterSlots = filterSlots;
+        this.filterHashFunctions = filterHashFunctions;
+        this.filterWords = filterWords;
+        this.caches = caches;
+    }
+
+    /**
+     * Writes a snapshot to {@code path}, replacing the previous one.
+     *
+     * @param idFilter may be {@code null}
+     * @param caches   encoded L1 values by key, per cache name
+     */
+    public static void write(Path path, long stamp, CountingBloomFilter idFilter,
+            Map<String, Map<String, byte[]>> caches) throws IOException {
+        long[] words = idFilter != null ? idFilter.toWords() : new long[0];
+        Map<String, byte[]> names = new HashMap<>();
+        long indexEnd = 4 + 4 + 8 + 8 + 8 + 4 + 4 + (long) words.length * Long.BYTES + 4;
+        long dataSize = 0;
+        for (Map.Entry<String, Map<String, byte[]>> cache : caches.entrySet()) {
+            byte[] name = cache.getKey().getBytes(StandardCharsets.UTF_8);
+            names.put(cache.getKey(), name);
+            indexEnd += 2 + name.length + 4;
+            for (Map.Entry<String, byte[]> entry : cache.getValue().entrySet()) {
+                indexEnd += 2 + entry.getKey().getBytes(StandardCharsets.UTF_8).length + 4 + 4;
+                dataSize += entry.getValue().length;
+            }
+        }
+        if (indexEnd + dataSize > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + (indexEnd + dataSize) + " bytes exceeds 2 GB");
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, indexEnd + dataSize);
+                out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(stamp).putLong(System.currentTimeMillis());
+                out.putLong(idFilter != null ? idFilter.getSlots() : 0)
+                        .putInt(idFilter != null ? idFilter.getHashFunctions() : 0)
+                        .putInt(words.length);
+                for (long word : words) {
+                    out.putLong(word);
+                }
+                out.putInt(caches.size());
+                int valueOffset = (int) indexEnd;
+                for (Map.Entry<String, Map<String, byte[]>> cache : caches.entrySet()) {
+                    byte[] name = names.get(cache.getKey());
+                    out.putShort((short) name.length).put(name).putInt(cache.getValue().size());
+                    for (Map.Entry<String, byte[]> entry : cache.getValue().entrySet()) {
+                        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                        out.putShort((short) key.length).put(key).putInt(valueOffset).putInt(entry.getValue().length);
+                        out.put(valueOffset, entry.getValue());
+                        valueOffset += entry.getValue().length;
+                    }
+                }
+                out.force();
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps a snapshot and reads its key index; the values stay on disk until asked for.
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot of this format
+     */
+    public static LocalCacheSnapshot open(Path path) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException(path + " is not a cache snapshot");
+            }
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(path + " has snapshot format " + version + ", expected " + FORMAT_VERSION);
+            }
+            long stamp = in.getLong();
+            Instant writtenAt = Instant.ofEpochMilli(in.getLong());
+            long filterSlots = in.getLong();
+            int filterHashFunctions = in.getInt();
+            long[] filterWords = new long[in.getInt()];
+            for (int i = 0; i < filterWords.length; i++) {
+                filterWords[i] = in.getLong();
+            }
+            int cacheCount = in.getInt();
+            Map<String, Entries> caches = new HashMap<>();
+            for (int c = 0; c < cacheCount; c++) {
+                String name = readString(in);
+                int entryCount = in.getInt();
+                Map<String, Long> index = new ConcurrentHashMap<>(entryCount * 4 / 3 + 1);
+                for (int e = 0; e < entryCount; e++) {
+                    String key = readString(in);
+                    int offset = in.getInt();
+                    int length = in.getInt();
+                    if (offset < 0 || length < 0 || (long) offset + length > in.capacity()) {
+                        throw new IOException(path + " is truncated");
+                    }
+                    index.put(key, ((long) offset << 32) | length);
+                }
+                caches.put(name, new Entries(in, index));
+            }
+            return new LocalCacheSnapshot(stamp, writtenAt, filterSlots, filterHashFunctions, filterWords, caches);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        }
+    }
+
+    /**
+     * Whatever the writer passed to identify the data the snapshot was taken from.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    public Instant getWrittenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * The saved ID filter, or {@code null} if there was none or it was sized differently.
+     */
+    public CountingBloomFilter getIdFilter(long expectedInsertions, double falsePositiveRate) {
+        if (filterWords.length == 0) {
+            return null;
+        }
+        return CountingBloomFilter.fromWords(expectedInsertions, falsePositiveRate, filterSlots, filterHashFunctions,
+                filterWords);
+    }
+
+    /**
+     * The saved entries of one cache, or {@code null} if it was not saved.
+     */
+    public Entries getEntries(String cacheName) {
+        return caches.get(cacheName);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The saved values of one cache. Each can be taken once; taking or removing it drops it from
+     * the index, so a value that was invalidated in the meantime can never come back.
+     */
+    public static final class Entries {
+
+        private final ByteBuffer data;
+        private final Map<String, Long> index;
+
+        private Entries(ByteBuffer data, Map<String, Long> index) {
+            this.data = data;
+            this.index = index;
+        }
+
+        /**
+         * The encoded value saved for {@code key}, or {@code null}.
+         */
+        public byte[] take(String key) {
+            Long location = index.remove(key);
+            if (location == null) {
+                return null;
+            }
+            byte[] value = new byte[(int) (location & 0xFFFFFFFFL)];
+            data.get((int) (location >>> 32), value);
+            return value;
+        }
+
+        public void remove(String key) {
+            index.remove(key);
+        }
+
+        public int size() {
+            return index.size();
+        }
+    }
+}
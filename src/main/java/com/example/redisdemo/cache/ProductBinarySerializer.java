@@ -0,0 +1,319 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.model.Product;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact, schema-versioned encoding of {@link Product} cache entries.
+ * <p>
+ * Layout: {@code MAGIC, version, flags} followed by the present fields in declaration order.
+ * Integers are zig-zag varints, strings are length-prefixed UTF-8, and a price is stored as
+ * its scale plus unscaled value (a varint whenever it fits in a long). Descriptions longer
+ * than the compression threshold are deflated.
+ * <p>
+ * Anything that does not start with {@link #MAGIC} is handed to the JSON serializer, so entries
+ * written before the switch keep working until they expire. Values that are not products are
+ * written as JSON too.
+ */
+public class ProductBinarySerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xA7;
+    static final byte SCHEMA_VERSION = 2;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_NAME = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int DESCRIPTION_DEFLATED = 1 << 3;
+    private static final int HAS_PRICE = 1 << 4;
+    private static final int HAS_CATEGORY = 1 << 5;
+    private static final int HAS_STOCK = 1 << 6;
+    /** Added in schema version 2; version 1 entries simply never set it. */
+    private static final int HAS_VERSION = 1 << 7;
+
+    private static final int UNSCALED_LONG = 0;
+    private static final int UNSCALED_BYTES = 1;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold descriptions of at least this many UTF-8 bytes are deflated
+     */
+    public ProductBinarySerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof Product product)) {
+            return jsonSerializer.serialize(value);
+        }
+
+        byte[] description = product.getDescription() != null
+                ? product.getDescription().getBytes(StandardCharsets.UTF_8)
+                : null;
+        boolean deflate = description != null && description.length >= compressionThreshold;
+
+        int flags = (product.getId() != null ? HAS_ID : 0)
+                | (product.getName() != null ? HAS_NAME : 0)
+                | (description != null ? HAS_DESCRIPTION : 0)
+                | (deflate ? DESCRIPTION_DEFLATED : 0)
+                | (product.getPrice() != null ? HAS_PRICE : 0)
+                | (product.getCategory() != null ? HAS_CATEGORY : 0)
+                | (product.getStockQuantity() != null ? HAS_STOCK : 0)
+                | (product.getVersion() != null ? HAS_VERSION : 0);
+
+        Writer out = new Writer(64 + (description != null ? description.length : 0));
+        out.writeByte(MAGIC);
+        out.writeByte(SCHEMA_VERSION);
+        out.writeByte(flags);
+        if (product.getId() != null) {
+            out.writeVarLong(product.getId());
+        }
+        if (product.getName() != null) {
+            out.writeString(product.getName());
+        }
+        if (description != null) {
+            if (deflate) {
+                out.writeVarLong(description.length);
+                out.writeBytes(deflate(description));
+            } else {
+                out.writeBytes(description);
+            }
+        }
+        if (product.getPrice() != null) {
+            writeDecimal(out, product.getPrice());
+        }
+        if (product.getCategory() != null) {
+            out.writeString(product.getCategory());
+        }
+        if (product.getStockQuantity() != null) {
+            out.writeVarLong(product.getStockQuantity());
+        }
+        if (product.getVersion() != null) {
+            out.writeVarLong(product.getVersion());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+
+        Reader in = new Reader(bytes);
+        in.readByte();
+        int version = in.readByte();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported product schema version " + version);
+        }
+        int flags = in.readByte() & 0xFF;
+
+        Product product = new Product();
+        if ((flags & HAS_ID) != 0) {
+            product.setId(in.readVarLong());
+        }
+        if ((flags & HAS_NAME) != 0) {
+            product.setName(in.readString());
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            if ((flags & DESCRIPTION_DEFLATED) != 0) {
+                int length = (int) in.readVarLong();
+                product.setDescription(new String(inflate(in.readBytes(), length), StandardCharsets.UTF_8));
+            } else {
+                product.setDescription(new String(in.readBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        if ((flags & HAS_PRICE) != 0) {
+            product.setPrice(readDecimal(in));
+        }
+        if ((flags & HAS_CATEGORY) != 0) {
+            product.setCategory(in.readString());
+        }
+        if ((flags & HAS_STOCK) != 0) {
+            product.setStockQuantity((int) in.readVarLong());
+        }
+        if ((flags & HAS_VERSION) != 0) {
+            product.setVersion(in.readVarLong());
+        }
+        return product;
+    }
+
+    private static void writeDecimal(Writer out, BigDecimal value) {
+        out.writeVarLong(value.scale());
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            out.writeByte(UNSCALED_LONG);
+            out.writeVarLong(unscaled.longValue());
+        } else {
+            out.writeByte(UNSCALED_BYTES);
+            out.writeBytes(unscaled.toByteArray());
+        }
+    }
+
+    private static BigDecimal readDecimal(Reader in) {
+        int scale = (int) in.readVarLong();
+        int kind = in.readByte();
+        if (kind == UNSCALED_LONG) {
+            return BigDecimal.valueOf(in.readVarLong(), scale);
+        }
+        return new BigDecimal(new BigInteger(in.readBytes()), scale);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int originalLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(output, read, originalLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != originalLength) {
+                throw new SerializationException("Truncated product description");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt product description", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Growable byte buffer with varint helpers; avoids the synchronized ByteArrayOutputStream on the hot path.
+     */
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[position];
+            System.arraycopy(buffer, 0, result, 0, position);
+            return result;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, position + extra)];
+                System.arraycopy(buffer, 0, grown, 0, position);
+                buffer = grown;
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            if (position >= buffer.length) {
+                throw new SerializationException("Truncated product entry");
+            }
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new SerializationException("Malformed varint in product entry");
+        }
+
+        byte[] readBytes() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated product entry");
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(buffer, position, result, 0, length);
+            position += length;
+            return result;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new SerializationException("Truncated product entry");
+            }
+            String result = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.model.ProductResponse;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores {@link ProductResponse} entries without re-encoding the body.
+ * <p>
+ * Layout: {@code MAGIC}, the length of the ETag in one byte, the ASCII ETag, then the JSON body
+ * bytes unchanged. Anything else is written and read as JSON.
+ */
+public class ProductResponseSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xA8;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof ProductResponse response)) {
+            return jsonSerializer.serialize(value);
+        }
+        byte[] etag = response.etag().getBytes(StandardCharsets.US_ASCII);
+        if (etag.length > 0xFF) {
+            throw new SerializationException("ETag too long: " + response.etag());
+        }
+        byte[] bytes = new byte[2 + etag.length + response.body().length];
+        bytes[0] = MAGIC;
+        bytes[1] = (byte) etag.length;
+        System.arraycopy(etag, 0, bytes, 2, etag.length);
+        System.arraycopy(response.body(), 0, bytes, 2 + etag.length, response.body().length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        int etagLength = bytes.length > 1 ? bytes[1] & 0xFF : -1;
+        if (etagLength < 0 || 2 + etagLength > bytes.length) {
+            throw new SerializationException("Truncated product response entry");
+        }
+        String etag = new String(bytes, 2, etagLength, StandardCharsets.US_ASCII);
+        byte[] body = new byte[bytes.length - 2 - etagLength];
+        System.arraycopy(bytes, 2 + etagLength, body, 0, body.length);
+        return new ProductResponse(etag, body);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.redisdemo.cache;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-key reads and writes against the Redis keys of one {@code RedisCache}.
+ * <p>
+ * {@code RedisCache} only offers single-key operations, so this class talks to the
+ * connection directly while reusing the cache's own key prefix, serializers and TTL,
+ * which keeps entries written here indistinguishable from ones written by the cache.
+ * <p>
+ * Keys are routed through {@link RedisShards}: a multi-key call becomes one MGET or pipeline per
+ * node, and the nodes are called in parallel.
+ */
+public class RedisCacheBulkOperations {
+
+    /**
+     * What {@code RedisCache} stores for a cached {@code null}; it bypasses the value serializer.
+     */
+    private static final byte[] BINARY_NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+
+    private final String cacheName;
+    private final RedisCacheConfiguration configuration;
+    private final RedisShards shards;
+
+    public RedisCacheBulkOperations(String cacheName, RedisCacheConfiguration configuration, RedisShards shards) {
+        this.cacheName = cacheName;
+        this.configuration = configuration;
+        this.shards = shards;
+    }
+
+    RedisShards getShards() {
+        return shards;
+    }
+
+    /**
+     * Reads all keys with a single MGET per node. Keys without a value are absent from the result;
+     * keys holding a cached {@code null} map to {@link NullValue#INSTANCE}.
+     */
+    public Map<String, Object> getAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        byte[][] redisKeys = serializeKeys(keys);
+
+        List<Map<String, Object>> found = shards.executeAll(partition(redisKeys), (node, indexes) -> {
+            byte[][] nodeKeys = indexes.stream().map(i -> redisKeys[i]).toArray(byte[][]::new);
+            List<byte[]> values;
+            try (RedisConnection connection = node.getConnectionFactory().getConnection()) {
+                values = connection.stringCommands().mGet(nodeKeys);
+            }
+            Map<String, Object> nodeResult = new HashMap<>();
+            for (int i = 0; i < indexes.size() && values != null && i < values.size(); i++) {
+                byte[] value = values.get(i);
+                if (value != null) {
+                    nodeResult.put(keys.get(indexes.get(i)), deserializeValue(value));
+                }
+            }
+            return nodeResult;
+        });
+
+        if (found.size() == 1) {
+            return found.get(0);
+        }
+        Map<String, Object> result = new HashMap<>();
+        found.forEach(result::putAll);
+        return result;
+    }
+
+    /**
+     * Reads a value together with its remaining time-to-live (GET and PTTL in one pipeline).
+     * Returns {@code null} when the key does not exist.
+     */
+    public TimedValue getWithTtl(String key) {
+        byte[] redisKey = serializeKey(key);
+        RedisShards.Node node = shards.nodeFor(redisKey);
+        List<Object> results = shards.execute(node, () -> {
+            try (RedisConnection connection = node.getConnectionFactory().getConnection()) {
+                List<Object> pipelined;
+                connection.openPipeline();
+                try {
+                    connection.stringCommands().get(redisKey);
+                    connection.keyCommands().pTtl(redisKey);
+                } finally {
+                    pipelined = connection.closePipeline();
+                }
+                return pipelined;
+            }
+        });
+
+        byte[] value = (byte[]) results.get(0);
+        if (value == null) {
+            return null;
+        }
+        Long remainingMillis = (Long) results.get(1);
+        Duration remaining = remainingMillis == null || remainingMillis < 0 ? null : Duration.ofMillis(remainingMillis);
+        return new TimedValue(deserializeValue(value), remaining);
+    }
+
+    /**
+     * Writes all entries in one pipeline per node, each with the TTL the cache would have used.
+     * {@code null} values are stored the way {@code RedisCache} stores them.
+     */
+    public void putAll(Map<String, ?> entries) {
+        write(entries, Duration.ZERO, RedisStringCommands.SetOption.upsert());
+    }
+
+    /**
+     * Like {@link #putAll(Map)}, but only for keys that hold no value yet (SET NX), so values read
+     * from the database earlier never replace newer ones written meanwhile. Each TTL is shortened by
+     * a random amount of up to {@code ttlJitter} so that entries written together do not all expire
+     * together.
+     */
+    public void putAllIfAbsent(Map<String, ?> entries, Duration ttlJitter) {
+        write(entries, ttlJitter, RedisStringCommands.SetOption.ifAbsent());
+    }
+
+    private void write(Map<String, ?> entries, Duration ttlJitter, RedisStringCommands.SetOption option) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long jitterMillis = ttlJitter.toMillis();
+        List<String> keys = new ArrayList<>(entries.keySet());
+        byte[][] redisKeys = serializeKeys(keys);
+        shards.executeAll(partition(redisKeys), (node, indexes) -> {
+            try (RedisConnection connection = node.getConnectionFactory().getConnection()) {
+                connection.openPipeline();
+                try {
+                    for (int i : indexes) {
+                        String key = keys.get(i);
+                        Object value = entries.get(key);
+                        connection.stringCommands().set(redisKeys[i], serializeValue(value),
+                                expirationFor(key, value, jitterMillis), option);
+                    }
+                } finally {
+                    connection.closePipeline();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes every entry of this cache from {@code node}, whether or not it owns them right now.
+     */
+    public void clean(RedisShards.Node node) {
+        byte[] pattern = serializeKey("*");
+        RedisCacheWriter.nonLockingRedisCacheWriter(node.getConnectionFactory()).clean(cacheName, pattern);
+    }
+
+    private byte[][] serializeKeys(List<String> keys) {
+        byte[][] redisKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            redisKeys[i] = serializeKey(keys.get(i));
+        }
+        return redisKeys;
+    }
+
+    /**
+     * Indexes into {@code redisKeys}, grouped by the node that owns each key.
+     */
+    Map<RedisShards.Node, List<Integer>> partition(byte[][] redisKeys) {
+        return shards.partition(IntStream.range(0, redisKeys.length).boxed().toList(), i -> redisKeys[i]);
+    }
+
+    private Expiration expirationFor(String key, Object value, long jitterMillis) {
+        long millis = ttlMillis(key, value);
+        if (millis <= 0) {
+            return Expiration.persistent();
+        }
+        if (jitterMillis > 0) {
+            millis = Math.max(1, millis - ThreadLocalRandom.current().nextLong(Math.min(jitterMillis, millis) + 1));
+        }
+        return Expiration.milliseconds(millis);
+    }
+
+    /**
+     * The TTL the cache would give this entry, or 0 if it should not expire.
+     */
+    long ttlMillis(String key, Object value) {
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+        return ttl == null || ttl.isNegative() ? 0 : ttl.toMillis();
+    }
+
+    byte[] serializeKey(String key) {
+        return ByteUtils.getBytes(configuration.getKeySerializationPair()
+                .write(configuration.getKeyPrefixFor(cacheName) + key));
+    }
+
+    byte[] serializeValue(Object value) {
+        if (value == null || value instanceof NullValue) {
+            return BINARY_NULL_VALUE;
+        }
+        return ByteUtils.getBytes(configuration.getValueSerializationPair().write(value));
+    }
+
+    Object deserializeValue(byte[] value) {
+        if (Arrays.equals(value, BINARY_NULL_VALUE)) {
+            return NullValue.INSTANCE;
+        }
+        return configuration.getValueSerializationPair().read(ByteBuffer.wrap(value));
+    }
+
+    /**
+     * A cached value and how long Redis will keep it; {@code remaining} is null for keys without expiry.
+     */
+    public record TimedValue(Object value, Duration remaining) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.redisdemo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling Redis while it keeps failing, so that requests fall back at once instead of each
+ * waiting for its own timeout.
+ * <p>
+ * {@code CLOSED}: calls go through; {@code failureThreshold} consecutive failures open the circuit.
+ * {@code OPEN}: calls are not attempted and the fallback is used. After {@code openDuration} the
+ * next call is let through as a probe ({@code HALF_OPEN}) while all others keep falling back; if it
+ * succeeds the circuit closes and the {@link #onClose close listeners} run, otherwise it opens again.
+ * <p>
+ * A disabled breaker runs every command and lets its failures propagate.
+ */
+@Slf4j
+public class RedisCircuitBreaker implements MeterBinder {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final ReentrantLock transitionLock = new ReentrantLock();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final LongAdder openFallbacks = new LongAdder();
+    private final LongAdder errorFallbacks = new LongAdder();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    public RedisCircuitBreaker(boolean enabled, int failureThreshold, Duration openDuration) {
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Runs {@code command}, or returns {@code fallback} if the circuit is open or the command fails.
+     */
+    public <T> T execute(Supplier<T> command, Supplier<T> fallback) {
+        if (!enabled) {
+            return command.get();
+        }
+        if (!tryAcquire()) {
+            openFallbacks.increment();
+            return fallback.get();
+        }
+        T result;
+        try {
+            result = command.get();
+        } catch (RuntimeException e) {
+            onFailure(e);
+            errorFallbacks.increment();
+            return fallback.get();
+        }
+        onSuccess();
+        return result;
+    }
+
+    /**
+     * Async {@link #execute}: the outcome is recorded when the returned future completes.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> command, Supplier<T> fallback) {
+        if (!enabled) {
+            return command.get();
+        }
+        if (!tryAcquire()) {
+            openFallbacks.increment();
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+        CompletableFuture<T> reply;
+        try {
+            reply = command.get();
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+        return reply.handle((result, e) -> {
+            if (e == null) {
+                onSuccess();
+                return result;
+            }
+            onFailure(e);
+            errorFallbacks.increment();
+            return fallback.get();
+        });
+    }
+
+    /**
+     * Whether calls are currently skipped. Unlike {@link #execute}, this never starts a probe.
+     */
+    public boolean isOpen() {
+        return enabled && state != State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Called on the probing thread right after the circuit closes again.
+     */
+    public void onClose(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.redis.circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("Redis circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+        FunctionCounter.builder("cache.redis.fallbacks", openFallbacks, LongAdder::sum)
+                .description("Redis calls skipped and answered by the fallback")
+                .tag("reason", "open")
+                .register(registry);
+        FunctionCounter.builder("cache.redis.fallbacks", errorFallbacks, LongAdder::sum)
+                .description("Redis calls skipped and answered by the fallback")
+                .tag("reason", "error")
+                .register(registry);
+    }
+
+    private boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.HALF_OPEN || System.nanoTime() - openedAt < openNanos) {
+            return false;
+        }
+        transitionLock.lock();
+        try {
+            if (state != State.OPEN || System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        } finally {
+            transitionLock.unlock();
+        }
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+        transitionLock.lock();
+        try {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            state = State.CLOSED;
+        } finally {
+            transitionLock.unlock();
+        }
+        log.info("✅ Redis answers again - circuit closed");
+        for (Runnable listener : closeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Circuit close listener failed", e);
+            }
+        }
+    }
+
+    private void onFailure(Throwable cause) {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state;
+        if (current == State.OPEN || (current == State.CLOSED && failures < failureThreshold)) {
+            return;
+        }
+        transitionLock.lock();
+        try {
+            if (state == State.OPEN) {
+                return;
+            }
+            openedAt = System.nanoTime();
+            state = State.OPEN;
+        } finally {
+            transitionLock.unlock();
+        }
+        log.warn("🔌 Redis circuit opened after {} consecutive failures ({}) - using fallbacks for {}ms",
+                failures, cause.toString(), openNanos / 1_000_000);
+    }
+}
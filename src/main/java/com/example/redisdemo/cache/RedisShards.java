@@ -0,0 +1,351 @@
+package com.example.redisdemo.cache;
+
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The Redis nodes that a cache's entries are spread over, and which node owns which key.
+ * <p>
+ * Keys are placed with a {@link ConsistentHashRing}. Every command run through {@link #execute}
+ * counts towards the node's health: after {@code failureThreshold} consecutive failures the node is
+ * taken off the ring and its keys fall to the remaining nodes, where they start out as misses. A
+ * health check pings all nodes and puts an ejected node back once it answers, after the
+ * {@link #onReadmit readmit listeners} have dropped the entries it held before it left (they may
+ * have been updated elsewhere in the meantime).
+ * <p>
+ * {@link #single} wraps one connection factory as a one-node ring that never ejects, so the
+ * unsharded caches go through the same code.
+ */
+@Slf4j
+public class RedisShards implements Closeable, MeterBinder {
+
+    private final List<Node> nodes;
+    private final Set<String> cacheNames;
+    private final int virtualNodes;
+    private final int failureThreshold;
+    private final Executor fanOutExecutor;
+    private final List<Consumer<Node>> readmitListeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock membershipLock = new ReentrantLock();
+    private volatile ConsistentHashRing<Node> ring;
+    private volatile boolean running;
+
+    /**
+     * @param failureThreshold consecutive failures before a node is ejected; 0 never ejects
+     * @param fanOutExecutor   runs the per-node parts of multi-key operations; {@code null} runs them in turn
+     */
+    public RedisShards(List<Node> nodes, Set<String> cacheNames, int virtualNodes, int failureThreshold,
+            Executor fanOutExecutor) {
+        this.nodes = List.copyOf(nodes);
+        this.cacheNames = Set.copyOf(cacheNames);
+        this.virtualNodes = virtualNodes;
+        this.failureThreshold = failureThreshold;
+        this.fanOutExecutor = fanOutExecutor;
+        this.ring = new ConsistentHashRing<>(this.nodes, Node::getName, virtualNodes);
+    }
+
+    /**
+     * One node that owns every key and is never ejected.
+     */
+    public static RedisShards single(RedisConnectionFactory connectionFactory,
+            RedisAsyncCommands<byte[], byte[]> asyncCommands) {
+        return new RedisShards(List.of(new Node("default", connectionFactory, asyncCommands, null)), Set.of(), 1, 0,
+                null);
+    }
+
+    /**
+     * Whether the entries of {@code cacheName} are spread over these nodes.
+     */
+    public boolean covers(String cacheName) {
+        return cacheNames.contains(cacheName);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public Node nodeFor(byte[] key) {
+        return ring.nodeFor(key);
+    }
+
+    /**
+     * Groups {@code items} by the node that owns their key, keeping their order within each group.
+     */
+    public <T> Map<Node, List<T>> partition(Collection<T> items, Function<T, byte[]> keyOf) {
+        ConsistentHashRing<Node> current = ring;
+        Map<Node, List<T>> partitions = new LinkedHashMap<>();
+        for (T item : items) {
+            partitions.computeIfAbsent(current.nodeFor(keyOf.apply(item)), node -> new ArrayList<>()).add(item);
+        }
+        return partitions;
+    }
+
+    /**
+     * Runs {@code command} against {@code node} and records whether it failed.
+     */
+    public <T> T execute(Node node, Supplier<T> command) {
+        try {
+            T result = command.get();
+            recordSuccess(node);
+            return result;
+        } catch (RuntimeException e) {
+            recordFailure(node, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Records the outcome of an async command once it completes.
+     */
+    public <T> CompletableFuture<T> track(Node node, CompletableFuture<T> reply) {
+        return reply.whenComplete((result, e) -> {
+            if (e == null) {
+                recordSuccess(node);
+            } else {
+                recordFailure(node, e);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code command} once per partition, in parallel when there is more than one, and returns
+     * the results in partition order. The first failure is rethrown after all parts have finished.
+     */
+    public <T, R> List<R> executeAll(Map<Node, List<T>> partitions, BiFunction<Node, List<T>, R> command) {
+        if (partitions.size() == 1 || fanOutExecutor == null) {
+            List<R> results = new ArrayList<>(partitions.size());
+            partitions.forEach((node, items) -> results.add(execute(node, () -> command.apply(node, items))));
+            return results;
+        }
+        List<CompletableFuture<R>> parts = new ArrayList<>(partitions.size());
+        partitions.forEach((node, items) -> {
+            Supplier<R> part = () -> execute(node, () -> command.apply(node, items));
+            try {
+                parts.add(CompletableFuture.supplyAsync(part, fanOutExecutor));
+            } catch (RejectedExecutionException e) {
+                try {
+                    parts.add(CompletableFuture.completedFuture(part.get()));
+                } catch (RuntimeException failure) {
+                    parts.add(CompletableFuture.failedFuture(failure));
+                }
+            }
+        });
+        try {
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return parts.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Called with a node that is about to be put back on the ring, before it receives any traffic.
+     * A listener that throws keeps the node ejected until the next health check.
+     */
+    public void onReadmit(Consumer<Node> listener) {
+        readmitListeners.add(listener);
+    }
+
+    /**
+     * Pings every node every {@code interval} on {@code executor} until {@link #close()}.
+     */
+    public void startHealthChecks(Executor executor, Duration interval) {
+        running = true;
+        executor.execute(() -> {
+            while (running) {
+                try {
+                    Thread.sleep(interval.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                checkHealth();
+            }
+        });
+        log.info("🧩 Redis sharding over {} nodes ({} points each) for caches {}", nodes.size(), virtualNodes,
+                cacheNames);
+    }
+
+    /**
+     * Pings every node once: failures count towards ejection, an ejected node that answers is readmitted.
+     */
+    public void checkHealth() {
+        for (Node node : nodes) {
+            try (RedisConnection connection = node.getConnectionFactory().getConnection()) {
+                connection.ping();
+            } catch (RuntimeException e) {
+                recordFailure(node, e);
+                continue;
+            }
+            if (node.ejected) {
+                readmit(node);
+            } else {
+                recordSuccess(node);
+            }
+        }
+    }
+
+    public List<NodeStatus> getStatus() {
+        ConsistentHashRing<Node> current = ring;
+        return nodes.stream()
+                .map(node -> new NodeStatus(node.getName(), !node.ejected, node.consecutiveFailures.get(),
+                        current.share(node)))
+                .toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Node node : nodes) {
+            Gauge.builder("cache.redis.shard.healthy", node, n -> n.ejected ? 0 : 1)
+                    .description("1 while the Redis node is on the hash ring, 0 while it is ejected")
+                    .tag("node", node.getName())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Node node : nodes) {
+            if (node.resources != null) {
+                try {
+                    node.resources.close();
+                } catch (Exception e) {
+                    log.warn("Could not close the connections to Redis node {}", node.getName(), e);
+                }
+            }
+        }
+    }
+
+    private void recordSuccess(Node node) {
+        if (node.consecutiveFailures.get() != 0) {
+            node.consecutiveFailures.set(0);
+        }
+    }
+
+    private void recordFailure(Node node, Throwable e) {
+        int failures = node.consecutiveFailures.incrementAndGet();
+        if (failureThreshold > 0 && failures >= failureThreshold && !node.ejected) {
+            eject(node, e);
+        }
+    }
+
+    private void eject(Node node, Throwable cause) {
+        membershipLock.lock();
+        try {
+            if (node.ejected) {
+                return;
+            }
+            node.ejected = true;
+            rebuildRing();
+        } finally {
+            membershipLock.unlock();
+        }
+        log.warn("🔌 Redis node {} ejected after {} consecutive failures ({}) - its keys now map to the other nodes",
+                node.getName(), node.consecutiveFailures.get(), cause.toString());
+    }
+
+    private void readmit(Node node) {
+        membershipLock.lock();
+        try {
+            if (!node.ejected) {
+                return;
+            }
+            try {
+                readmitListeners.forEach(listener -> listener.accept(node));
+            } catch (RuntimeException e) {
+                log.warn("Redis node {} answers again but could not be cleaned - keeping it ejected",
+                        node.getName(), e);
+                return;
+            }
+            node.consecutiveFailures.set(0);
+            node.ejected = false;
+            rebuildRing();
+        } finally {
+            membershipLock.unlock();
+        }
+        log.info("✅ Redis node {} is healthy again and back on the hash ring", node.getName());
+    }
+
+    private void rebuildRing() {
+        List<Node> healthy = nodes.stream().filter(node -> !node.ejected).toList();
+        // With every node down, keep routing to them all: commands fail fast instead of having nowhere to go
+        ring = new ConsistentHashRing<>(healthy.isEmpty() ? nodes : healthy, Node::getName, virtualNodes);
+    }
+
+    /**
+     * One Redis server. {@code asyncCommands} is {@code null} when the async API is disabled;
+     * {@code resources} is closed with the shards and is {@code null} for connections owned elsewhere.
+     */
+    public static final class Node {
+
+        private final String name;
+        private final RedisConnectionFactory connectionFactory;
+        private final RedisAsyncCommands<byte[], byte[]> asyncCommands;
+        private final AutoCloseable resources;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile boolean ejected;
+
+        public Node(String name, RedisConnectionFactory connectionFactory,
+                RedisAsyncCommands<byte[], byte[]> asyncCommands, AutoCloseable resources) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+            this.asyncCommands = asyncCommands;
+            this.resources = resources;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RedisConnectionFactory getConnectionFactory() {
+            return connectionFactory;
+        }
+
+        public RedisAsyncCommands<byte[], byte[]> getAsyncCommands() {
+            return asyncCommands;
+        }
+
+        public boolean isEjected() {
+            return ejected;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * {@code share} is the fraction of keys the node currently owns; 0 while it is ejected.
+     */
+    public record NodeStatus(String name, boolean healthy, int consecutiveFailures, double share) {
+    }
+}
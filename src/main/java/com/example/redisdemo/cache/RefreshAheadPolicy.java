@@ -0,0 +1,22 @@
+package com.example.redisdemo.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * When and where a {@link TwoTierCache} reloads entries that are about to expire.
+ *
+ * @param threshold  remaining lifetime below which a hit triggers a background reload
+ * @param staleGrace how long past the logical TTL Redis keeps the entry around
+ * @param executor   bounded executor running the reloads
+ */
+public record RefreshAheadPolicy(Duration threshold, Duration staleGrace, Executor executor) {
+
+    public boolean isStale(Duration remainingInRedis) {
+        return remainingInRedis.compareTo(staleGrace) <= 0;
+    }
+
+    public boolean isDueForRefresh(Duration remainingInRedis) {
+        return remainingInRedis.compareTo(staleGrace.plus(threshold)) < 0;
+    }
+}
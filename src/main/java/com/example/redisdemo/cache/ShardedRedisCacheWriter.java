@@ -0,0 +1,146 @@
+package com.example.redisdemo.cache;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Sends the single-key commands of {@code RedisCache} to the node that owns the key.
+ * <p>
+ * Caches covered by the {@link RedisShards} go to one plain writer per node, so an entry is stored
+ * exactly as an unsharded cache would store it, just on another server. All other caches use
+ * {@code defaultWriter}. {@link #clean} is sent to every node on the ring.
+ */
+public class ShardedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter defaultWriter;
+    private final RedisShards shards;
+    private final CacheStatisticsCollector statistics;
+    private final Map<RedisShards.Node, RedisCacheWriter> nodeWriters = new HashMap<>();
+
+    public ShardedRedisCacheWriter(RedisCacheWriter defaultWriter, RedisShards shards) {
+        this(defaultWriter, shards, CacheStatisticsCollector.none());
+    }
+
+    private ShardedRedisCacheWriter(RedisCacheWriter defaultWriter, RedisShards shards,
+            CacheStatisticsCollector statistics) {
+        this.defaultWriter = defaultWriter;
+        this.shards = shards;
+        this.statistics = statistics;
+        for (RedisShards.Node node : shards.getNodes()) {
+            nodeWriters.put(node, RedisCacheWriter.nonLockingRedisCacheWriter(node.getConnectionFactory())
+                    .withStatisticsCollector(statistics));
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return onOwner(name, key, writer -> writer.get(name, key));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return onOwner(name, key, writer -> writer.get(name, key, ttl));
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return defaultWriter.supportsAsyncRetrieve()
+                && nodeWriters.values().stream().allMatch(RedisCacheWriter::supportsAsyncRetrieve);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        if (!shards.covers(name)) {
+            return defaultWriter.retrieve(name, key, ttl);
+        }
+        RedisShards.Node node = shards.nodeFor(key);
+        return shards.track(node, nodeWriters.get(node).retrieve(name, key, ttl));
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        onOwner(name, key, writer -> {
+            writer.put(name, key, value, ttl);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        if (!shards.covers(name)) {
+            return defaultWriter.store(name, key, value, ttl);
+        }
+        RedisShards.Node node = shards.nodeFor(key);
+        return shards.track(node, nodeWriters.get(node).store(name, key, value, ttl));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return onOwner(name, key, writer -> writer.putIfAbsent(name, key, value, ttl));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        onOwner(name, key, writer -> {
+            writer.remove(name, key);
+            return null;
+        });
+    }
+
+    /**
+     * Runs on every node on the ring, in parallel. Ejected nodes are cleaned when they are readmitted.
+     */
+    @Override
+    public void clean(String name, byte[] pattern) {
+        if (!shards.covers(name)) {
+            defaultWriter.clean(name, pattern);
+            return;
+        }
+        Map<RedisShards.Node, List<byte[]>> healthyNodes = new LinkedHashMap<>();
+        shards.getNodes().stream().filter(node -> !node.isEjected())
+                .forEach(node -> healthyNodes.put(node, List.of(pattern)));
+        shards.executeAll(healthyNodes, (node, patterns) -> {
+            nodeWriters.get(node).clean(name, pattern);
+            return null;
+        });
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        if (shards.covers(name)) {
+            statistics.reset(name);
+        } else {
+            defaultWriter.clearStatistics(name);
+        }
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new ShardedRedisCacheWriter(defaultWriter.withStatisticsCollector(cacheStatisticsCollector), shards,
+                cacheStatisticsCollector);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return shards.covers(cacheName)
+                ? statistics.getCacheStatistics(cacheName)
+                : defaultWriter.getCacheStatistics(cacheName);
+    }
+
+    private <T> T onOwner(String name, byte[] key, Function<RedisCacheWriter, T> command) {
+        if (!shards.covers(name)) {
+            return command.apply(defaultWriter);
+        }
+        RedisShards.Node node = shards.nodeFor(key);
+        return shards.execute(node, () -> command.apply(nodeWriters.get(node)));
+    }
+}
@@ -0,0 +1,888 @@
+package com.example.redisdemo.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Cache} that checks a bounded in-heap map (L1) before Redis (L2).
+ * <p>
+ * Writes go to Redis first, then to the local map, and finally a pub/sub message
+ * tells every other node to drop its L1 copy so the next read there comes from Redis.
+ * Keys are held locally in their Redis string form so that invalidation messages
+ * (which only carry strings) match regardless of the original key type.
+ * <p>
+ * With a {@link HotKeyTracker}, single-key reads are sampled to find hot keys, and their values
+ * are served from the tracker's replica before L1 is consulted. The replica is invalidated
+ * together with L1.
+ * <p>
+ * Every Redis call goes through a {@link RedisCircuitBreaker}. A read that fails, or is skipped
+ * while the circuit is open, counts as a miss, so values come from the loader and are kept in L1.
+ * A write that fails or is skipped only updates L1; its key is remembered and evicted from Redis
+ * and the other nodes' L1 by {@link #reconcile()} once Redis is back, since Redis may still hold
+ * the old value.
+ * <p>
+ * L1 can be seeded from a {@link LocalCacheSnapshot} of a previous run: its entries are decoded
+ * and moved into L1 on their first lookup, and dropped by any invalidation before that. They are
+ * only served for one L1 time-to-live after the restore.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final RedisCache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final RedisCacheBulkOperations bulkOperations;
+    private final AsyncRedisCacheOperations asyncOperations;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final DistributedLoadLock loadLock;
+    private final RefreshAheadPolicy refreshPolicy;
+    private final HotKeyTracker hotKeys;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxSkippedWrites;
+    private final Duration timeToLive;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Bumped on every invalidation. A value read from Redis is only copied into L1
+     * if no invalidation arrived while the read was in flight; otherwise a stale
+     * value could land in L1 right after the message that should have removed it.
+     */
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder refreshesRejected = new LongAdder();
+
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Keys whose Redis write was skipped; past {@code maxSkippedWrites}, or after a skipped clear,
+     * the whole cache is cleared on recovery instead.
+     */
+    private final Set<String> skippedWrites = ConcurrentHashMap.newKeySet();
+    private volatile boolean skippedClear;
+
+    /**
+     * Encoded entries of a previous run not looked up yet, served until {@code restoredUntil}
+     * (epoch millis); {@code null} without a snapshot or after a clear.
+     */
+    private volatile LocalCacheSnapshot.Entries restored;
+    private volatile long restoredUntil;
+
+    private final Timer redisGet;
+    private final Timer redisGetWithTtl;
+    private final Timer redisMultiGet;
+    private final Timer redisPut;
+    private final Timer redisMultiPut;
+    private final Timer redisEvict;
+    private final Timer redisClear;
+
+    public TwoTierCache(RedisCache redisCache, RedisCacheBulkOperations bulkOperations,
+            AsyncRedisCacheOperations asyncOperations, long maximumSize, Duration timeToLive,
+            CacheInvalidationBroadcaster broadcaster, DistributedLoadLock loadLock, RefreshAheadPolicy refreshPolicy,
+            HotKeyTracker hotKeys, RedisCircuitBreaker circuitBreaker, int maxSkippedWrites,
+            MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.bulkOperations = bulkOperations;
+        this.asyncOperations = asyncOperations;
+        this.broadcaster = broadcaster;
+        this.loadLock = loadLock;
+        this.refreshPolicy = refreshPolicy;
+        this.hotKeys = hotKeys;
+        this.circuitBreaker = circuitBreaker;
+        this.maxSkippedWrites = maxSkippedWrites;
+        this.timeToLive = timeToLive;
+        this.meterRegistry = meterRegistry;
+        this.redisGet = redisTimer("get");
+        this.redisGetWithTtl = redisTimer("get_pttl");
+        this.redisMultiGet = redisTimer("mget");
+        this.redisPut = redisTimer("set");
+        this.redisMultiPut = redisTimer("set_pipelined");
+        this.redisEvict = redisTimer("del");
+        this.redisClear = redisTimer("clear");
+        this.localCache = maximumSize > 0
+                ? Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).build()
+                : null;
+        Gauge.builder("cache.redis.skipped_writes", this,
+                        cache -> cache.skippedClear ? -1 : cache.skippedWrites.size())
+                .description("Keys to evict once Redis is reachable again; -1 when the whole cache will be cleared")
+                .tag("cache", getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    public RedisCache getRedisCache() {
+        return redisCache;
+    }
+
+    /**
+     * The hot-key tracker of this cache, or {@code null} if hot keys are not tracked.
+     */
+    public HotKeyTracker getHotKeys() {
+        return hotKeys;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return lookup(key, null);
+    }
+
+    /**
+     * Hot-key replica and L1, then L2. When a refresh-ahead policy is configured and a loader is available,
+     * the L2 read also fetches the remaining TTL so that entries close to (or just past)
+     * expiry are returned as they are and reloaded in the background.
+     */
+    private ValueWrapper lookup(Object key, Callable<?> loader) {
+        String localKey = toLocalKey(key);
+        long epoch = invalidationEpoch.get();
+        Object local = getLocal(localKey, epoch);
+        if (local != null) {
+            l1Hits.increment();
+            CacheOutcome.record(CacheOutcome.L1_HIT);
+            return new SimpleValueWrapper(local);
+        }
+
+        ValueWrapper wrapper;
+        if (refreshPolicy != null && loader != null) {
+            RedisCacheBulkOperations.TimedValue timed =
+                    redisRead(redisGetWithTtl, () -> bulkOperations.getWithTtl(localKey));
+            boolean knownMissing = timed != null && timed.value() instanceof NullValue;
+            wrapper = timed != null ? new SimpleValueWrapper(knownMissing ? null : timed.value()) : null;
+            if (timed != null && !knownMissing && timed.remaining() != null
+                    && refreshPolicy.isDueForRefresh(timed.remaining())) {
+                if (refreshPolicy.isStale(timed.remaining())) {
+                    staleHits.increment();
+                }
+                scheduleRefresh(key, localKey, loader);
+            }
+        } else {
+            wrapper = redisRead(redisGet, () -> redisCache.get(key));
+        }
+
+        if (wrapper == null) {
+            misses.increment();
+            CacheOutcome.record(CacheOutcome.MISS);
+            return null;
+        }
+        l2Hits.increment();
+        CacheOutcome.record(CacheOutcome.L2_HIT);
+        putLocal(localKey, wrapper.get(), epoch);
+        return wrapper;
+    }
+
+    private void scheduleRefresh(Object key, String localKey, Callable<?> loader) {
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            refreshPolicy.executor().execute(() -> {
+                try {
+                    loadAndStore(key, loader);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    log.warn("Background refresh of {}::{} failed - serving the cached value until it expires",
+                            getName(), localKey, e);
+                } finally {
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+            refreshesRejected.increment();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Read-through lookup with miss coalescing: concurrent misses for the same key in this
+     * JVM share a single call to {@code valueLoader}. With the distributed lock enabled,
+     * only one node loads while the others pick the result up from Redis.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = lookup(key, valueLoader);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        String localKey = toLocalKey(key);
+        CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(localKey, ownLoad);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return (T) awaitLoad(key, valueLoader, inFlight);
+        }
+
+        try {
+            Object value = loadLeader(key, valueLoader);
+            ownLoad.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(localKey, ownLoad);
+        }
+    }
+
+    private Object loadLeader(Object key, Callable<?> valueLoader) {
+        // Another leader may have finished between our miss and registering this load
+        ValueWrapper wrapper = redisRead(redisGet, () -> redisCache.get(key));
+        if (wrapper != null) {
+            return wrapper.get();
+        }
+        if (loadLock != null && loadLock.isEnabled() && !circuitBreaker.isOpen()) {
+            String lockKey = "lock:" + redisCache.getCacheConfiguration().getKeyPrefixFor(getName()) + toLocalKey(key);
+            // Wrapped, so that a value cached as missing ends the wait like any other
+            return loadLock.loadOnce(lockKey, () -> redisRead(redisGet, () -> redisCache.get(key)),
+                    () -> new SimpleValueWrapper(loadAndStore(key, valueLoader))).get();
+        }
+        return loadAndStore(key, valueLoader);
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) {
+        Object value;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            loads.increment();
+            value = valueLoader.call();
+            sample.stop(loadTimer("success"));
+        } catch (Exception e) {
+            sample.stop(loadTimer("failure"));
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null || redisCache.isAllowNullValues()) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    private Object awaitLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    /**
+     * Looks up many keys at once: L1 first, then a single MGET for everything L1 did not have.
+     * The result only contains the keys that were found, mapped from the caller's key objects;
+     * a key cached as {@code null} is present with a {@code null} value.
+     */
+    public <K> Map<K, Object> getAll(Collection<K> keys) {
+        Map<K, Object> result = new HashMap<>();
+        Map<String, K> remaining = new LinkedHashMap<>();
+        long epoch = invalidationEpoch.get();
+        for (K key : keys) {
+            String localKey = toLocalKey(key);
+            Object value = localValue(localKey, epoch);
+            if (value != null) {
+                l1Hits.increment();
+                CacheOutcome.record(CacheOutcome.L1_HIT);
+                result.put(key, value);
+            } else {
+                remaining.put(localKey, key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Object> fromRedis = circuitBreaker.execute(
+                () -> redisMultiGet.record(() -> bulkOperations.getAll(new ArrayList<>(remaining.keySet()))),
+                Map::of);
+        remaining.forEach((localKey, key) -> {
+            Object value = fromRedis.get(localKey);
+            if (value instanceof NullValue) {
+                l2Hits.increment();
+                CacheOutcome.record(CacheOutcome.L2_HIT);
+                result.put(key, null);
+            } else if (value != null) {
+                l2Hits.increment();
+                CacheOutcome.record(CacheOutcome.L2_HIT);
+                result.put(key, value);
+                putLocal(localKey, value, epoch);
+            } else {
+                misses.increment();
+                CacheOutcome.record(CacheOutcome.MISS);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Non-blocking {@link #get(Object)}: L1 on the calling thread, then a GET on the shared async
+     * connection. Without an async connection the Redis read happens synchronously on the calling
+     * thread.
+     */
+    public CompletableFuture<ValueWrapper> getAsync(Object key) {
+        return getAsync(key, null);
+    }
+
+    /**
+     * Like {@link #getAsync(Object)}, with the refresh-ahead of {@link #get(Object, Callable)}: when a
+     * policy is configured, the L2 read is a GET and PTTL, and an entry close to (or just past) expiry
+     * is returned as it is while {@code loader} reloads it on the refresh executor. A miss is not
+     * loaded here.
+     */
+    public CompletableFuture<ValueWrapper> getAsync(Object key, Callable<?> loader) {
+        if (asyncOperations == null) {
+            return CompletableFuture.completedFuture(lookup(key, loader));
+        }
+        String localKey = toLocalKey(key);
+        long epoch = invalidationEpoch.get();
+        Object local = getLocal(localKey, epoch);
+        if (local != null) {
+            l1Hits.increment();
+            CacheOutcome.record(CacheOutcome.L1_HIT);
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(local));
+        }
+
+        CacheOutcome.Tally tally = CacheOutcome.current();
+        boolean refreshAhead = refreshPolicy != null && loader != null;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<Object> read = refreshAhead
+                ? circuitBreaker.executeAsync(() -> asyncOperations.getWithTtl(localKey)
+                        .whenComplete((timed, e) -> sample.stop(redisGetWithTtl)), () -> null)
+                        .thenApply(timed -> {
+                            if (timed == null) {
+                                return null;
+                            }
+                            if (!(timed.value() instanceof NullValue) && timed.remaining() != null
+                                    && refreshPolicy.isDueForRefresh(timed.remaining())) {
+                                if (refreshPolicy.isStale(timed.remaining())) {
+                                    staleHits.increment();
+                                }
+                                scheduleRefresh(key, localKey, loader);
+                            }
+                            return timed.value();
+                        })
+                : circuitBreaker.executeAsync(() -> asyncOperations.get(localKey)
+                        .whenComplete((value, e) -> sample.stop(redisGet)), () -> null);
+        return read.thenApply(value -> {
+            if (value == null) {
+                misses.increment();
+                CacheOutcome.record(tally, CacheOutcome.MISS);
+                return null;
+            }
+            l2Hits.increment();
+            CacheOutcome.record(tally, CacheOutcome.L2_HIT);
+            Object stored = value instanceof NullValue ? null : value;
+            putLocal(localKey, stored, epoch);
+            return new SimpleValueWrapper(stored);
+        });
+    }
+
+    /**
+     * Non-blocking {@link #getAll(Collection)}: L1 on the calling thread, then one MGET on the shared
+     * async connection for the rest.
+     */
+    public <K> CompletableFuture<Map<K, Object>> getAllAsync(Collection<K> keys) {
+        if (asyncOperations == null) {
+            return CompletableFuture.completedFuture(getAll(keys));
+        }
+        Map<K, Object> result = new HashMap<>();
+        Map<String, K> remaining = new LinkedHashMap<>();
+        long epoch = invalidationEpoch.get();
+        for (K key : keys) {
+            String localKey = toLocalKey(key);
+            Object value = localValue(localKey, epoch);
+            if (value != null) {
+                l1Hits.increment();
+                CacheOutcome.record(CacheOutcome.L1_HIT);
+                result.put(key, value);
+            } else {
+                remaining.put(localKey, key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        CacheOutcome.Tally tally = CacheOutcome.current();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return circuitBreaker.executeAsync(() -> asyncOperations.getAll(new ArrayList<>(remaining.keySet()))
+                        .whenComplete((values, e) -> sample.stop(redisMultiGet)), Map::<String, Object>of)
+                .thenApply(fromRedis -> {
+                    remaining.forEach((localKey, key) -> {
+                        Object value = fromRedis.get(localKey);
+                        if (value instanceof NullValue) {
+                            l2Hits.increment();
+                            CacheOutcome.record(tally, CacheOutcome.L2_HIT);
+                            result.put(key, null);
+                        } else if (value != null) {
+                            l2Hits.increment();
+                            CacheOutcome.record(tally, CacheOutcome.L2_HIT);
+                            result.put(key, value);
+                            putLocal(localKey, value, epoch);
+                        } else {
+                            misses.increment();
+                            CacheOutcome.record(tally, CacheOutcome.MISS);
+                        }
+                    });
+                    return result;
+                });
+    }
+
+    /**
+     * Writes many entries to Redis in one pipeline and to L1, then sends a single
+     * invalidation message covering all of them. {@code null} values are only stored
+     * if the cache allows them.
+     */
+    public void putAll(Map<?, ?> entries) {
+        Map<String, Object> byLocalKey = new LinkedHashMap<>();
+        entries.forEach((key, value) -> {
+            if (value != null || redisCache.isAllowNullValues()) {
+                byLocalKey.put(toLocalKey(key), value);
+            }
+        });
+        if (byLocalKey.isEmpty()) {
+            return;
+        }
+
+        boolean written = redisWrite(redisMultiPut, () -> bulkOperations.putAll(byLocalKey));
+        puts.add(byLocalKey.size());
+        byLocalKey.forEach((localKey, value) -> {
+            invalidateLocal(localKey);
+            putLocal(localKey, value, invalidationEpoch.get());
+        });
+        broadcastEvict(byLocalKey.keySet(), written);
+    }
+
+    /**
+     * Non-blocking {@link #putAll(Map)}: the SETs and the invalidation message go out on the shared
+     * async connection, and L1 is updated once Redis has acknowledged the writes.
+     */
+    public CompletableFuture<Void> putAllAsync(Map<?, ?> entries) {
+        if (asyncOperations == null) {
+            putAll(entries);
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, Object> byLocalKey = new LinkedHashMap<>();
+        entries.forEach((key, value) -> {
+            if (value != null || redisCache.isAllowNullValues()) {
+                byLocalKey.put(toLocalKey(key), value);
+            }
+        });
+        if (byLocalKey.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return circuitBreaker.executeAsync(() -> asyncOperations.putAll(byLocalKey)
+                        .whenComplete((ignored, e) -> sample.stop(redisMultiPut))
+                        .thenApply(ignored -> true), () -> false)
+                .thenCompose(written -> {
+                    puts.add(byLocalKey.size());
+                    byLocalKey.forEach((localKey, value) -> {
+                        invalidateLocal(localKey);
+                        putLocal(localKey, value, invalidationEpoch.get());
+                    });
+                    if (!written || circuitBreaker.isOpen()) {
+                        byLocalKey.keySet().forEach(this::skipWrite);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return broadcaster.evictAsync(getName(), byLocalKey.keySet(), asyncOperations);
+                });
+    }
+
+    /**
+     * Counter bumped by every local invalidation; capture it before reading the source of truth and
+     * hand it to {@link #putIfAbsentAsync} so that a change seen in between wins over the value read.
+     */
+    public long getInvalidationEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Writes back a value read from the source of truth after a miss: SET NX on the shared async
+     * connection, so an entry written meanwhile is kept, and nothing at all if an invalidation
+     * arrived since {@code sinceEpoch}. L1 only gets the value if Redis took it. No invalidation is
+     * sent, since nothing changed.
+     */
+    public CompletableFuture<Void> putIfAbsentAsync(Object key, Object value, long sinceEpoch) {
+        if (value == null || invalidationEpoch.get() != sinceEpoch) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String localKey = toLocalKey(key);
+        if (asyncOperations == null) {
+            if (redisWrite(redisPut, () -> bulkOperations.putAllIfAbsent(Map.of(localKey, value), Duration.ZERO))) {
+                puts.increment();
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return circuitBreaker.executeAsync(() -> asyncOperations.putIfAbsent(localKey, value)
+                        .whenComplete((written, e) -> sample.stop(redisPut)), () -> false)
+                .thenAccept(written -> {
+                    if (written) {
+                        puts.increment();
+                        putLocal(localKey, value, sinceEpoch);
+                    }
+                });
+    }
+
+    /**
+     * Fills Redis with values that were just read from the source of truth, e.g. during warm-up.
+     * Keys that already hold a value keep it: it may have been written after these were read.
+     * L1 is left alone and no invalidation is sent, since nothing changed. TTLs are shortened by
+     * a random amount of up to {@code ttlJitter} so the batch does not expire all at once.
+     */
+    public void preload(Map<?, ?> entries, Duration ttlJitter) {
+        Map<String, Object> byLocalKey = new LinkedHashMap<>();
+        entries.forEach((key, value) -> byLocalKey.put(toLocalKey(key), value));
+        if (redisWrite(redisMultiPut, () -> bulkOperations.putAllIfAbsent(byLocalKey, ttlJitter))) {
+            puts.add(byLocalKey.size());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = toLocalKey(key);
+        boolean written = redisWrite(redisPut, () -> redisCache.put(key, value));
+        puts.increment();
+        invalidateLocal(localKey);
+        putLocal(localKey, value, invalidationEpoch.get());
+        broadcastEvict(List.of(localKey), written);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = toLocalKey(key);
+        boolean written = redisWrite(redisEvict, () -> redisCache.evict(key));
+        evictions.increment();
+        invalidateLocal(localKey);
+        broadcastEvict(List.of(localKey), written);
+    }
+
+    @Override
+    public void clear() {
+        boolean written = redisWrite(redisClear, redisCache::clear);
+        invalidateLocal(null);
+        if (written && !circuitBreaker.isOpen()) {
+            broadcaster.clear(getName());
+        } else {
+            skippedClear = true;
+        }
+    }
+
+    /**
+     * Evicts, from Redis and from every node's L1, the entries whose Redis write was skipped while
+     * Redis was unavailable. Called when the circuit closes; keys it cannot evict are kept for the
+     * next time.
+     */
+    public void reconcile() {
+        if (skippedClear) {
+            skippedClear = false;
+            skippedWrites.clear();
+            if (redisWrite(redisClear, redisCache::clear) && !circuitBreaker.isOpen()) {
+                broadcaster.clear(getName());
+                log.info("♻️ Cleared {} after Redis recovered - writes were skipped while it was unavailable",
+                        getName());
+            } else {
+                skippedClear = true;
+            }
+            return;
+        }
+        List<String> keys = new ArrayList<>(skippedWrites);
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.forEach(skippedWrites::remove);
+        boolean evicted = redisWrite(redisEvict, () -> keys.forEach(redisCache::evict));
+        broadcastEvict(keys, evicted);
+        if (evicted) {
+            log.info("♻️ Evicted {} entries of {} whose writes were skipped while Redis was unavailable",
+                    keys.size(), getName());
+        }
+    }
+
+    /**
+     * Drops an L1 entry (or all of them for a {@code null} key) without touching Redis.
+     * Called for invalidation messages coming from other nodes.
+     */
+    public void invalidateLocal(String localKey) {
+        invalidationEpoch.incrementAndGet();
+        if (hotKeys != null) {
+            hotKeys.invalidate(localKey);
+        }
+        LocalCacheSnapshot.Entries entries = restored;
+        if (entries != null) {
+            if (localKey == null) {
+                restored = null;
+            } else {
+                entries.remove(localKey);
+            }
+        }
+        if (localCache == null) {
+            return;
+        }
+        if (localKey == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(localKey);
+        }
+    }
+
+    /**
+     * Seeds L1 with the entries of a snapshot, which stay encoded until they are first looked up.
+     * Ignored without an L1.
+     */
+    public void restoreLocal(LocalCacheSnapshot.Entries entries) {
+        if (localCache == null || entries == null) {
+            return;
+        }
+        restoredUntil = System.currentTimeMillis() + timeToLive.toMillis();
+        restored = entries;
+    }
+
+    /**
+     * The L1 entries, encoded with the Redis value serializer, for a {@link LocalCacheSnapshot}.
+     * Entries not looked up since a restore are not included; values that cannot be serialized are skipped.
+     */
+    public Map<String, byte[]> exportLocal() {
+        if (localCache == null) {
+            return Map.of();
+        }
+        Map<String, byte[]> encoded = new HashMap<>();
+        localCache.asMap().forEach((localKey, value) -> {
+            try {
+                encoded.put(localKey, bulkOperations.serializeValue(value));
+            } catch (RuntimeException e) {
+                log.debug("Not saving {}::{} - its value cannot be serialized", getName(), localKey, e);
+            }
+        });
+        return encoded;
+    }
+
+    public Stats getStats() {
+        return new Stats(l1Hits.sum(), l2Hits.sum(), misses.sum(), loads.sum(), coalescedLoads.sum(),
+                puts.sum(), evictions.sum(), staleHits.sum(), refreshes.sum(), refreshFailures.sum(),
+                refreshesRejected.sum(), localCache != null ? localCache.estimatedSize() : 0);
+    }
+
+    private <T> T redisRead(Timer timer, Supplier<T> command) {
+        return circuitBreaker.execute(() -> timer.record(command), () -> null);
+    }
+
+    /**
+     * Whether the write reached Redis.
+     */
+    private boolean redisWrite(Timer timer, Runnable command) {
+        return circuitBreaker.execute(() -> {
+            timer.record(command);
+            return true;
+        }, () -> false);
+    }
+
+    /**
+     * Tells the other nodes to drop {@code localKeys}, or remembers them for {@link #reconcile()} if
+     * the write was skipped or Redis cannot take the message right now.
+     */
+    private void broadcastEvict(Collection<String> localKeys, boolean written) {
+        if (written && !circuitBreaker.isOpen()) {
+            broadcaster.evict(getName(), localKeys);
+        } else {
+            localKeys.forEach(this::skipWrite);
+        }
+    }
+
+    private void skipWrite(String localKey) {
+        if (skippedWrites.size() >= maxSkippedWrites) {
+            skippedClear = true;
+        } else {
+            skippedWrites.add(localKey);
+        }
+    }
+
+    private Timer redisTimer(String command) {
+        return Timer.builder("cache.redis.commands")
+                .description("Redis round trips made by the cache")
+                .tag("cache", getName())
+                .tag("command", command)
+                .register(meterRegistry);
+    }
+
+    private Timer loadTimer(String result) {
+        return Timer.builder("cache.loads")
+                .description("Loads from the source of truth after a cache miss")
+                .tag("cache", getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The hot-key replica, then L1. Counts the lookup towards hot-key detection, and pins an L1 hit
+     * for a hot key so that it survives L1 evicting it.
+     */
+    private Object getLocal(String localKey, long epoch) {
+        if (hotKeys != null) {
+            hotKeys.recordLookup(localKey);
+            Object pinned = hotKeys.getReplica(localKey);
+            if (pinned != null) {
+                return pinned;
+            }
+        }
+        Object value = localValue(localKey, epoch);
+        if (value != null && hotKeys != null) {
+            hotKeys.offer(localKey, value);
+            if (invalidationEpoch.get() != epoch) {
+                hotKeys.invalidate(localKey);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * L1, then the entries of a restored snapshot; a restored entry found here moves into L1.
+     */
+    private Object localValue(String localKey, long epoch) {
+        if (localCache == null) {
+            return null;
+        }
+        Object value = localCache.getIfPresent(localKey);
+        return value != null ? value : takeRestored(localKey, epoch);
+    }
+
+    private Object takeRestored(String localKey, long epoch) {
+        LocalCacheSnapshot.Entries entries = restored;
+        if (entries == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() > restoredUntil) {
+            restored = null;
+            log.info("🧊 Dropped {} restored entries of {} that were never looked up", entries.size(), getName());
+            return null;
+        }
+        byte[] bytes = entries.take(localKey);
+        if (bytes == null) {
+            return null;
+        }
+        Object value;
+        try {
+            value = bulkOperations.deserializeValue(bytes);
+        } catch (RuntimeException e) {
+            log.debug("Ignoring restored entry {}::{} - it cannot be deserialized", getName(), localKey, e);
+            return null;
+        }
+        if (value == null || value instanceof NullValue) {
+            return null;
+        }
+        putLocal(localKey, value, epoch);
+        // An invalidation that raced with the decode wins
+        return invalidationEpoch.get() == epoch ? value : null;
+    }
+
+    private void putLocal(String localKey, Object value, long expectedEpoch) {
+        if (value == null) {
+            return;
+        }
+        LocalCacheSnapshot.Entries entries = restored;
+        if (entries != null) {
+            entries.remove(localKey);
+        }
+        if (localCache != null) {
+            localCache.put(localKey, value);
+        }
+        if (hotKeys != null) {
+            hotKeys.offer(localKey, value);
+        }
+        if (invalidationEpoch.get() != expectedEpoch) {
+            if (localCache != null) {
+                localCache.invalidate(localKey);
+            }
+            if (hotKeys != null) {
+                hotKeys.invalidate(localKey);
+            }
+        }
+    }
+
+    static String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Point-in-time counters. The L1 hit rate is measured against all lookups, the L2
+     * hit rate only against the lookups that actually reached Redis. {@code coalescedLoads}
+     * counts misses that waited for a load already in flight instead of loading themselves;
+     * {@code staleHits} counts hits served from the grace window after the logical TTL.
+     */
+    public record Stats(long l1Hits, long l2Hits, long misses, long loads, long coalescedLoads,
+            long puts, long evictions, long staleHits, long refreshes, long refreshFailures,
+            long refreshesRejected, long l1Size) {
+
+        static final Stats EMPTY = new Stats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        @JsonProperty
+        public double l1HitRate() {
+            long lookups = l1Hits + l2Hits + misses;
+            return lookups == 0 ? 0.0 : (double) l1Hits / lookups;
+        }
+
+        @JsonProperty
+        public double l2HitRate() {
+            long lookups = l2Hits + misses;
+            return lookups == 0 ? 0.0 : (double) l2Hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.config.CircuitBreakerProperties;
+import com.example.redisdemo.config.HotKeyProperties;
+import com.example.redisdemo.config.NearCacheProperties;
+import com.example.redisdemo.config.RefreshAheadProperties;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Wraps every cache of the {@link RedisCacheManager} in a {@link TwoTierCache}
+ * and applies invalidation messages published by other nodes.
+ * Each cache is bound to the meter registry as soon as it is created. When an async connection
+ * is given, every cache also gets non-blocking operations over it. Caches covered by the optional
+ * {@link RedisShards} read and write their entries on those nodes instead of the default server.
+ * Caches selected by {@link HotKeyProperties} get their own {@link HotKeyTracker}. All caches share
+ * one {@link RedisCircuitBreaker}, and are reconciled with Redis whenever it closes again.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final RedisCacheManager redisCacheManager;
+    private final StatefulRedisConnection<byte[], byte[]> asyncConnection;
+    private final RedisShards defaultShards;
+    private final RedisShards shards;
+    private final NearCacheProperties properties;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final DistributedLoadLock loadLock;
+    private final RefreshAheadProperties refreshProperties;
+    private final Executor refreshExecutor;
+    private final HotKeyProperties hotKeyProperties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxSkippedWrites;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager, RedisConnectionFactory connectionFactory,
+            StatefulRedisConnection<byte[], byte[]> asyncConnection, RedisShards shards,
+            NearCacheProperties properties, CacheInvalidationBroadcaster broadcaster, DistributedLoadLock loadLock,
+            RefreshAheadProperties refreshProperties, Executor refreshExecutor, HotKeyProperties hotKeyProperties,
+            RedisCircuitBreaker circuitBreaker, CircuitBreakerProperties circuitBreakerProperties,
+            MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.asyncConnection = asyncConnection;
+        this.defaultShards = RedisShards.single(connectionFactory,
+                asyncConnection != null ? asyncConnection.async() : null);
+        this.shards = shards;
+        this.properties = properties;
+        this.broadcaster = broadcaster;
+        this.loadLock = loadLock;
+        this.refreshProperties = refreshProperties;
+        this.refreshExecutor = refreshExecutor;
+        this.hotKeyProperties = hotKeyProperties;
+        this.circuitBreaker = circuitBreaker;
+        this.maxSkippedWrites = circuitBreakerProperties.getMaxSkippedWrites();
+        this.meterRegistry = meterRegistry;
+        circuitBreaker.onClose(() -> caches.values().forEach(TwoTierCache::reconcile));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    public Map<String, TwoTierCache.Stats> getStats() {
+        Map<String, TwoTierCache.Stats> stats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    /**
+     * Current hot keys of every cache that tracks them, hottest first.
+     */
+    public Map<String, List<HotKeyTracker.HotKey>> getHotKeys() {
+        Map<String, List<HotKeyTracker.HotKey>> hotKeys = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            if (cache.getHotKeys() != null) {
+                hotKeys.put(name, cache.getHotKeys().getHotKeys());
+            }
+        });
+        return hotKeys;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation = broadcaster.decode(message.getBody());
+        if (invalidation == null || broadcaster.isFromThisNode(invalidation)) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            log.debug("Remote invalidation from {} for {}::{}", invalidation.origin(),
+                    invalidation.cacheName(), invalidation.isClear() ? "*" : invalidation.keys());
+            if (invalidation.isClear()) {
+                cache.invalidateLocal(null);
+            } else {
+                invalidation.keys().forEach(cache::invalidateLocal);
+            }
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        RedisCache redisCache = (RedisCache) redisCacheManager.getCache(name);
+        NearCacheProperties.Spec spec = properties.specFor(name);
+        long maximumSize = properties.isEnabled() ? spec.getMaximumSize() : 0;
+        boolean sharded = shards != null && shards.covers(name);
+        RedisCacheBulkOperations bulkOperations = new RedisCacheBulkOperations(name,
+                redisCache.getCacheConfiguration(), sharded ? shards : defaultShards);
+        if (sharded) {
+            shards.onReadmit(bulkOperations::clean);
+        }
+        AsyncRedisCacheOperations asyncOperations = asyncConnection != null
+                ? new AsyncRedisCacheOperations(bulkOperations, asyncConnection.async())
+                : null;
+        RefreshAheadPolicy refreshPolicy = refreshProperties.appliesTo(name)
+                ? new RefreshAheadPolicy(refreshProperties.getThreshold(), refreshProperties.getStaleGrace(),
+                        refreshExecutor)
+                : null;
+        HotKeyTracker hotKeys = null;
+        if (hotKeyProperties.appliesTo(name)) {
+            hotKeys = new HotKeyTracker(hotKeyProperties.getSampleEvery(), hotKeyProperties.getThreshold(),
+                    hotKeyProperties.getTopK(), hotKeyProperties.getWindow(), hotKeyProperties.getReplicaTtl(),
+                    hotKeyProperties.getSketchWidth());
+            hotKeys.bindTo(meterRegistry, name);
+        }
+        TwoTierCache cache = new TwoTierCache(redisCache, bulkOperations, asyncOperations, maximumSize,
+                spec.getTimeToLive(), broadcaster, loadLock, refreshPolicy, hotKeys, circuitBreaker,
+                maxSkippedWrites, meterRegistry);
+        new TwoTierCacheMetrics(cache, Tags.of("cache.manager", "cacheManager")).bindTo(meterRegistry);
+        return cache;
+    }
+}
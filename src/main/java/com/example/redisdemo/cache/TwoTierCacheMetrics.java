@@ -0,0 +1,84 @@
+package com.example.redisdemo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes a {@link TwoTierCache}'s counters under the standard Micrometer cache meter names
+ * ({@code cache.gets}, {@code cache.puts}, {@code cache.evictions}, {@code cache.size}), plus
+ * the two-tier specifics: hits per tier, coalesced loads, stale hits and background refreshes.
+ * Timers for Redis commands and loads are recorded by the cache itself.
+ */
+public class TwoTierCacheMetrics extends CacheMeterBinder<TwoTierCache> {
+
+    public TwoTierCacheMetrics(TwoTierCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoTierCache cache = getCache();
+        return cache != null ? cache.getStats().l1Size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoTierCache.Stats stats = stats();
+        return stats.l1Hits() + stats.l2Hits();
+    }
+
+    @Override
+    protected Long missCount() {
+        return stats().misses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return stats().evictions();
+    }
+
+    @Override
+    protected long putCount() {
+        return stats().puts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        counter(registry, "cache.tier.hits", "tier", "l1", "Lookups answered from the in-process L1",
+                TwoTierCache.Stats::l1Hits);
+        counter(registry, "cache.tier.hits", "tier", "l2", "Lookups answered from Redis",
+                TwoTierCache.Stats::l2Hits);
+        counter(registry, "cache.loads.coalesced", null, null,
+                "Misses that waited for a load already in flight instead of loading themselves",
+                TwoTierCache.Stats::coalescedLoads);
+        counter(registry, "cache.stale.hits", null, null,
+                "Hits served from the grace window after the logical TTL", TwoTierCache.Stats::staleHits);
+        counter(registry, "cache.refreshes", "result", "success", "Background refreshes",
+                TwoTierCache.Stats::refreshes);
+        counter(registry, "cache.refreshes", "result", "failure", "Background refreshes",
+                TwoTierCache.Stats::refreshFailures);
+        counter(registry, "cache.refreshes", "result", "rejected", "Background refreshes",
+                TwoTierCache.Stats::refreshesRejected);
+    }
+
+    private void counter(MeterRegistry registry, String name, String tagKey, String tagValue, String description,
+            ToLongFunction<TwoTierCache.Stats> count) {
+        FunctionCounter.Builder<TwoTierCache> builder = FunctionCounter
+                .builder(name, getCache(), cache -> count.applyAsLong(cache.getStats()))
+                .tags(getTagsWithCacheName())
+                .description(description);
+        if (tagKey != null) {
+            builder.tag(tagKey, tagValue);
+        }
+        builder.register(registry);
+    }
+
+    private TwoTierCache.Stats stats() {
+        TwoTierCache cache = getCache();
+        return cache != null ? cache.getStats() : TwoTierCache.Stats.EMPTY;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The non-blocking product API: cache reads and writes go over one shared Lettuce connection,
+ * database loads after a miss run on a bounded pool.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.async")
+public class AsyncCacheProperties {
+
+    /**
+     * false = no Lettuce connection; the async API then reads Redis synchronously through Jedis.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Threads that run database loads for async cache misses.
+     */
+    private int loadPoolSize = 16;
+
+    /**
+     * Misses beyond this many queued loads fail fast with 503 instead of piling up.
+     */
+    private int loadQueueCapacity = 1000;
+}
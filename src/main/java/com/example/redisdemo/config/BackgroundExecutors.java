@@ -0,0 +1,79 @@
+package com.example.redisdemo.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the bounded executors used for background cache work and shuts them down with the context.
+ * <p>
+ * These are deliberately not exposed as {@code Executor} beans: doing so would make Spring Boot
+ * back off from its own {@code applicationTaskExecutor}, which MVC async requests rely on.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on Java 21+, tasks run on virtual threads. The
+ * pool and queue limits still apply: they bound how hard background work can hit Redis and the
+ * database, which is a separate concern from how many threads it takes to wait on them.
+ */
+@Component
+@Slf4j
+public class BackgroundExecutors {
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+    private final boolean virtualThreads;
+
+    public BackgroundExecutors(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * A fixed pool of {@code threads} with at most {@code queueCapacity} waiting tasks;
+     * further submissions are rejected with {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public ExecutorService newBoundedExecutor(String name, int threads, int queueCapacity) {
+        ThreadFactory threadFactory = virtualThreads
+                ? new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory()
+                : daemonThreads(name);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        executors.add(executor);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.forEach(ExecutorService::shutdown);
+        for (ExecutorService executor : executors) {
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Background executor did not finish in time; interrupting remaining tasks");
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@code POST /api/products/bulk}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.products.bulk")
+public class BulkImportProperties {
+
+    /**
+     * Rows written per transaction and per cache pipeline (JDBC batches inside it follow
+     * {@code hibernate.jdbc.batch_size}).
+     */
+    private int batchSize = 500;
+
+    /**
+     * Row errors listed in the report; further errors are only counted.
+     */
+    private int maxReportedErrors = 1000;
+}
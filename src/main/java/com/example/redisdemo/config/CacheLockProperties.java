@@ -0,0 +1,32 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cross-node miss coalescing. Within one JVM concurrent misses for a key are always
+ * collapsed into a single load; enabling the lock extends that to all nodes.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.lock")
+public class CacheLockProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * How long the lock is held at most, in case the loading node dies mid-load.
+     */
+    private Duration leaseTime = Duration.ofSeconds(10);
+
+    /**
+     * How long a node waits for another node's load before loading itself.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * How often a waiting node checks Redis for the value loaded elsewhere.
+     */
+    private Duration pollInterval = Duration.ofMillis(50);
+}
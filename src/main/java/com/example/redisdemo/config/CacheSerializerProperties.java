@@ -0,0 +1,24 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How {@code Product} values are encoded in the "products" cache.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.serializer")
+public class CacheSerializerProperties {
+
+    public enum Format { JSON, BINARY }
+
+    /**
+     * BINARY can read JSON entries written before the switch, so it can be rolled out without a flush.
+     */
+    private Format format = Format.BINARY;
+
+    /**
+     * Descriptions of at least this many UTF-8 bytes are deflated.
+     */
+    private int compressionThreshold = 256;
+}
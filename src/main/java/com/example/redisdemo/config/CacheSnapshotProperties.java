@@ -0,0 +1,33 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saving the L1 caches and the product ID filter to disk, so a restarted node starts warm.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.snapshot")
+public class CacheSnapshotProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * The snapshot file; written to a temporary file in the same directory and moved over it.
+     */
+    private String path = "data/local-cache.snapshot";
+
+    /**
+     * How often the snapshot is rewritten; a final one is written on shutdown.
+     */
+    private Duration interval = Duration.ofSeconds(30);
+
+    /**
+     * Caches whose L1 entries are saved.
+     */
+    private List<String> caches = new ArrayList<>(List.of("products", "productResponses"));
+}
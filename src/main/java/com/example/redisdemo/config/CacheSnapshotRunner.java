@@ -0,0 +1,24 @@
+package com.example.redisdemo.config;
+
+import com.example.redisdemo.service.ProductCacheSnapshots;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restores the cache snapshot at startup, after {@link DataLoader} has filled the database the
+ * snapshot is checked against.
+ */
+@Component
+@Order(DataLoader.ORDER + 1)
+@RequiredArgsConstructor
+public class CacheSnapshotRunner implements CommandLineRunner {
+
+    private final ProductCacheSnapshots productCacheSnapshots;
+
+    @Override
+    public void run(String... args) {
+        productCacheSnapshots.start();
+    }
+}
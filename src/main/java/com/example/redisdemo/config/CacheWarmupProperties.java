@@ -0,0 +1,39 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Pre-populating the "products" cache from the database.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.warmup")
+public class CacheWarmupProperties {
+
+    /**
+     * Warm the cache when the application starts.
+     */
+    private boolean onStartup = false;
+
+    /**
+     * Keep the readiness probe at REFUSING_TRAFFIC until the startup warm-up has finished.
+     */
+    private boolean blockReadiness = false;
+
+    /**
+     * Products read from the database per query and written to Redis per pipeline.
+     */
+    private int pageSize = 500;
+
+    /**
+     * Pipelines allowed to run against Redis at the same time.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Each TTL is shortened by a random amount up to this, so warmed entries do not all expire together.
+     */
+    private Duration ttlJitter = Duration.ofMinutes(2);
+}
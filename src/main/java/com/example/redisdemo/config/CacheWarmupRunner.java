@@ -0,0 +1,38 @@
+package com.example.redisdemo.config;
+
+import com.example.redisdemo.service.ProductCacheWarmer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the product cache at startup, after {@link DataLoader} has filled the database.
+ * <p>
+ * Spring Boot only reports the application as ready once all runners have returned, so with
+ * {@code app.cache.warmup.block-readiness=true} the warm-up runs inline and keeps the readiness
+ * probe at REFUSING_TRAFFIC until the cache is warm. Otherwise it runs in the background.
+ */
+@Component
+@Order(DataLoader.ORDER + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmupRunner implements CommandLineRunner {
+
+    private final ProductCacheWarmer productCacheWarmer;
+    private final CacheWarmupProperties properties;
+
+    @Override
+    public void run(String... args) {
+        if (!properties.isOnStartup()) {
+            return;
+        }
+        if (properties.isBlockReadiness()) {
+            log.info("⏳ Holding back readiness until the product cache is warm");
+            productCacheWarmer.warmUp();
+        } else {
+            productCacheWarmer.start();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Committed product changes, captured from Hibernate and replayed from a Redis stream against the
+ * caches and the structures derived from the products table.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.products.change-stream")
+public class ChangeStreamProperties {
+
+    private boolean enabled = true;
+
+    private String streamKey = "products:changes";
+
+    /**
+     * Consumer group shared by all nodes for what lives in Redis: each change is applied to the caches
+     * and category sets by one of them, and the group's offset survives restarts. Each node also reads
+     * every change without a group for its in-memory structures.
+     */
+    private String group = "product-caches";
+
+    /**
+     * The stream is trimmed to about this many records. A group that falls further behind (all
+     * nodes down for that long) misses the oldest changes; those entries expire by TTL.
+     */
+    private long maxLength = 100_000;
+
+    /**
+     * Product IDs per stream record, and records read per poll.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How often a node reads new records.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Records delivered to a node that has not acknowledged them for this long are taken over by
+     * another node, e.g. because the first one died.
+     */
+    private Duration claimIdle = Duration.ofSeconds(30);
+}
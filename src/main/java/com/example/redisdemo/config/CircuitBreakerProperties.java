@@ -0,0 +1,31 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker around the cache's Redis calls. After {@code failureThreshold} consecutive
+ * failures (errors or timeouts) Redis is bypassed for {@code openDuration}; then a single call is
+ * let through to probe whether it has recovered.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    /**
+     * When disabled, Redis errors propagate to the caller as before.
+     */
+    private boolean enabled = true;
+
+    private int failureThreshold = 5;
+
+    private Duration openDuration = Duration.ofSeconds(5);
+
+    /**
+     * Keys per cache whose Redis write was skipped while Redis was unavailable, remembered so they
+     * can be evicted once it is back. Beyond this, the whole cache is cleared on recovery instead.
+     */
+    private int maxSkippedWrites = 10_000;
+}
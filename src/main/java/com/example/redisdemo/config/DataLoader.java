@@ -5,6 +5,7 @@ import com.example.redisdemo.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -13,10 +14,13 @@ import java.util.List;
 import java.util.Random;
 
 @Component
+@Order(DataLoader.ORDER)
 @RequiredArgsConstructor
 @Slf4j
 public class DataLoader implements CommandLineRunner {
 
+    static final int ORDER = 0;
+
     private final ProductRepository productRepository;
 
     private static final String[] CATEGORIES = {
@@ -0,0 +1,61 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hot-key detection on single-key cache reads, and a small in-process replica of the hottest entries.
+ * <p>
+ * A sample of lookups is counted in a count-min sketch; keys whose estimated count within the
+ * current {@code window} reaches {@code threshold} become hot. Up to {@code topK} hot keys are
+ * tracked, and their values are pinned locally for {@code replicaTtl} so that a flash sale does
+ * not send every read for one product to the same Redis key.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.hot-keys")
+public class HotKeyProperties {
+
+    private boolean enabled = true;
+
+    private Set<String> cacheNames = new HashSet<>(Set.of("products", "productResponses"));
+
+    /**
+     * Count one in this many lookups; 1 counts every lookup.
+     */
+    private int sampleEvery = 8;
+
+    /**
+     * Estimated sampled lookups within one window for a key to count as hot
+     * (with the defaults, 20 samples ≈ 160 reads in 10s).
+     */
+    private int threshold = 20;
+
+    /**
+     * Counts are halved after every window, so a key stops being hot once its traffic drops.
+     */
+    private Duration window = Duration.ofSeconds(10);
+
+    /**
+     * How many hot keys are tracked and replicated at most.
+     */
+    private int topK = 16;
+
+    /**
+     * How long a replicated value may be served before it is read from the cache tiers again.
+     * Local writes drop it at once; this bounds staleness after writes on other nodes.
+     */
+    private Duration replicaTtl = Duration.ofSeconds(2);
+
+    /**
+     * Counters per sketch row; 4 rows are used.
+     */
+    private int sketchWidth = 2048;
+
+    public boolean appliesTo(String cacheName) {
+        return enabled && cacheNames.contains(cacheName);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the in-process (L1) cache that sits in front of Redis.
+ * Each cache can be sized individually, e.g. {@code app.cache.near.caches.products.maximum-size=20000}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.near")
+public class NearCacheProperties {
+
+    /**
+     * Master switch; when false every lookup goes straight to Redis.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Redis pub/sub channel used to tell other nodes to drop their L1 entries.
+     */
+    private String invalidationChannel = "cache:invalidation";
+
+    /**
+     * Used for caches that have no entry in {@link #caches}.
+     */
+    private Spec defaults = new Spec();
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * Maximum number of entries kept in heap; 0 disables L1 for the cache.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Upper bound on how long an L1 entry may lag behind Redis if an invalidation message is lost.
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+    }
+}
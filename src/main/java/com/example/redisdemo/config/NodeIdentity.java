@@ -0,0 +1,25 @@
+package com.example.redisdemo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+
+/**
+ * Identifies this JVM among the nodes sharing one Redis, so that a node can
+ * recognise (and ignore) the messages it published itself.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configuredId) {
+        this.id = StringUtils.hasText(configuredId) ? configuredId : UUID.randomUUID().toString();
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Product lookups: protection against IDs that do not exist, the per-category ID index and
+ * per-category statistics.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.products.lookup")
+public class ProductLookupProperties {
+
+    /**
+     * How long "this ID does not exist" is remembered in the products cache.
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * Artificial delay added to every database load, to make cache misses obvious in the demo.
+     */
+    private SimulatedLatency simulatedLatency = new SimulatedLatency();
+
+    private IdFilter idFilter = new IdFilter();
+
+    private CategoryIndex categoryIndex = new CategoryIndex();
+
+    private ResponseCache responseCache = new ResponseCache();
+
+    private CategoryStats categoryStats = new CategoryStats();
+
+    @Data
+    public static class SimulatedLatency {
+
+        public enum Model { NONE, FIXED, UNIFORM, LOG_NORMAL }
+
+        /**
+         * NONE: no delay. FIXED: always {@code base}. UNIFORM: between {@code base} and
+         * {@code base + spread}. LOG_NORMAL: median {@code base}, p99 {@code base + spread}.
+         */
+        private Model model = Model.FIXED;
+
+        private Duration base = Duration.ofSeconds(2);
+
+        private Duration spread = Duration.ZERO;
+
+        /**
+         * Added per row for multi-row loads, so a batch costs more than a single lookup.
+         */
+        private Duration perRow = Duration.ZERO;
+    }
+
+    @Data
+    public static class IdFilter {
+
+        private boolean enabled = true;
+
+        private long expectedInsertions = 100_000;
+
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * Pub/sub channel used to share ID additions and removals with other nodes.
+         */
+        private String channel = "products:ids";
+    }
+
+    @Data
+    public static class CategoryIndex {
+
+        private boolean enabled = true;
+
+        /**
+         * Each category's product IDs live in a Redis set named {@code key-prefix + category}.
+         */
+        private String keyPrefix = "products:category:";
+
+        /**
+         * Safety net only: the sets are kept up to date on every change, and rebuilt from
+         * the database once expired.
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class ResponseCache {
+
+        /**
+         * Cache the encoded JSON of {@code GET /api/products/{id}} in the "productResponses" cache.
+         * When disabled, the body is encoded on every request; ETags are sent either way.
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class CategoryStats {
+
+        /**
+         * Answer {@code GET /api/products/stats} from in-memory aggregates kept up to date on every
+         * change; when disabled every request runs a GROUP BY query.
+         */
+        private boolean enabled = true;
+    }
+}
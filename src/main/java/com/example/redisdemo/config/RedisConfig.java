@@ -1,30 +1,179 @@
 package com.example.redisdemo.config;
 
-import org.springframework.cache.CacheManager;
+import com.example.redisdemo.cache.CacheInvalidationBroadcaster;
+import com.example.redisdemo.cache.DistributedLoadLock;
+import com.example.redisdemo.cache.ProductBinarySerializer;
+import com.example.redisdemo.cache.ProductResponseSerializer;
+import com.example.redisdemo.cache.RedisCircuitBreaker;
+import com.example.redisdemo.cache.RedisShards;
+import com.example.redisdemo.cache.ShardedRedisCacheWriter;
+import com.example.redisdemo.cache.TwoTierCacheManager;
+import com.example.redisdemo.service.ProductIdFilter;
+import com.example.redisdemo.service.ProductResponseCache;
+import com.example.redisdemo.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NullValue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.Jedis;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    private static final Duration ENTRY_TTL = Duration.ofMinutes(10);
+
     @Bean
-    public JedisConnectionFactory redisConnectionFactory() {
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory();
-        jedisConnectionFactory.setHostName("localhost");
-        jedisConnectionFactory.setPort(6379);
-        return jedisConnectionFactory;
+    public JedisConnectionFactory redisConnectionFactory(RedisProperties redisProperties) {
+        return jedisConnectionFactory(redisProperties.getHost(), redisProperties.getPort(), redisProperties);
+    }
+
+    private static JedisConnectionFactory jedisConnectionFactory(String host, int port,
+            RedisProperties redisProperties) {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(host, port);
+        server.setDatabase(redisProperties.getDatabase());
+        server.setPassword(redisProperties.getPassword());
+
+        JedisClientConfiguration.JedisClientConfigurationBuilder client = JedisClientConfiguration.builder();
+        if (redisProperties.getTimeout() != null) {
+            client.readTimeout(redisProperties.getTimeout());
+        }
+        if (redisProperties.getConnectTimeout() != null) {
+            client.connectTimeout(redisProperties.getConnectTimeout());
+        }
+        return new JedisConnectionFactory(server, client.usePooling().poolConfig(poolConfig(redisProperties)).build());
+    }
+
+    /**
+     * Sized from {@code spring.data.redis.jedis.pool.*}. Jedis' own default of 8 connections becomes
+     * the bottleneck as soon as request threads are cheap (virtual threads); a bounded wait turns
+     * exhaustion into an error instead of a request that hangs forever.
+     */
+    private static GenericObjectPoolConfig<Jedis> poolConfig(RedisProperties redisProperties) {
+        RedisProperties.Pool pool = redisProperties.getJedis().getPool();
+        GenericObjectPoolConfig<Jedis> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(pool.getMaxActive());
+        config.setMaxIdle(pool.getMaxIdle());
+        config.setMinIdle(pool.getMinIdle());
+        if (pool.getMaxWait() != null) {
+            config.setMaxWait(pool.getMaxWait());
+        }
+        if (pool.getTimeBetweenEvictionRuns() != null) {
+            config.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+        }
+        return config;
+    }
+
+    /**
+     * Lettuce client for the non-blocking cache operations, pointed at the same server as Jedis.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.cache.async.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisClient asyncRedisClient(RedisProperties redisProperties) {
+        return RedisClient.create(redisUri(redisProperties.getHost(), redisProperties.getPort(), redisProperties));
+    }
+
+    private static RedisURI redisUri(String host, int port, RedisProperties redisProperties) {
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(host)
+                .withPort(port)
+                .withDatabase(redisProperties.getDatabase());
+        if (redisProperties.getPassword() != null) {
+            uri.withPassword(redisProperties.getPassword().toCharArray());
+        }
+        if (redisProperties.getTimeout() != null) {
+            uri.withTimeout(redisProperties.getTimeout());
+        }
+        return uri.build();
+    }
+
+    /**
+     * One connection shared by all async callers; Lettuce pipelines their commands on it.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cache.async.enabled", havingValue = "true", matchIfMissing = true)
+    public StatefulRedisConnection<byte[], byte[]> asyncRedisConnection(RedisClient asyncRedisClient) {
+        return asyncRedisClient.connect(ByteArrayCodec.INSTANCE);
+    }
+
+    /**
+     * The Redis nodes that the caches in {@code app.cache.sharding.cache-names} are spread over.
+     * Every node gets its own Jedis pool (sized like the default one) and, with the async API
+     * enabled, its own Lettuce connection from the shared client.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cache.sharding.enabled", havingValue = "true")
+    public RedisShards redisShards(ShardingProperties shardingProperties, RedisProperties redisProperties,
+            ObjectProvider<RedisClient> asyncRedisClient, BackgroundExecutors backgroundExecutors,
+            MeterRegistry meterRegistry) {
+        if (shardingProperties.getNodes().isEmpty()) {
+            throw new IllegalStateException("app.cache.sharding.nodes must list at least one host:port");
+        }
+        RedisClient lettuce = asyncRedisClient.getIfAvailable();
+        List<RedisShards.Node> nodes = new ArrayList<>();
+        for (String address : shardingProperties.getNodes()) {
+            int colon = address.lastIndexOf(':');
+            if (colon < 1) {
+                throw new IllegalStateException("Redis node '" + address + "' is not host:port");
+            }
+            String host = address.substring(0, colon);
+            int port = Integer.parseInt(address.substring(colon + 1));
+
+            JedisConnectionFactory connectionFactory = jedisConnectionFactory(host, port, redisProperties);
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            StatefulRedisConnection<byte[], byte[]> asyncConnection = lettuce != null
+                    ? lettuce.connect(ByteArrayCodec.INSTANCE, redisUri(host, port, redisProperties))
+                    : null;
+            nodes.add(new RedisShards.Node(address, connectionFactory,
+                    asyncConnection != null ? asyncConnection.async() : null, () -> {
+                        if (asyncConnection != null) {
+                            asyncConnection.close();
+                        }
+                        connectionFactory.destroy();
+                    }));
+        }
+
+        RedisShards shards = new RedisShards(nodes, shardingProperties.getCacheNames(),
+                shardingProperties.getVirtualNodes(), shardingProperties.getFailureThreshold(),
+                backgroundExecutors.newBoundedExecutor("redis-shards", shardingProperties.getFanOutPoolSize(),
+                        shardingProperties.getFanOutQueueCapacity()));
+        shards.bindTo(meterRegistry);
+        shards.startHealthChecks(backgroundExecutors.newBoundedExecutor("redis-shard-health", 1, 1),
+                shardingProperties.getHealthCheckInterval());
+        return shards;
     }
 
     @Bean
@@ -44,19 +193,118 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * The Redis (L2) tier. Not used directly by the application; {@link #cacheManager}
+     * wraps each of its caches with an in-process L1. With sharding enabled, the covered caches
+     * are stored on the {@link #redisShards} nodes.
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+            ObjectProvider<RedisShards> redisShards, RefreshAheadProperties refreshAheadProperties,
+            CacheSerializerProperties cacheSerializerProperties, ProductLookupProperties productLookupProperties) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(ENTRY_TTL)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(
                         RedisSerializationContext.SerializationPair
-                                .fromSerializer(new GenericJackson2JsonRedisSerializer()))
-                .disableCachingNullValues();
+                                .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+
+        // Refresh-ahead caches keep entries past their TTL so they can be served while reloading
+        if (refreshAheadProperties.isEnabled()) {
+            for (String cacheName : refreshAheadProperties.getCacheNames()) {
+                cacheConfigurations.put(cacheName, config.disableCachingNullValues()
+                        .entryTtl(entryTtlFor(cacheName, refreshAheadProperties)));
+            }
+        }
+
+        // Products additionally remember missing IDs for a short while
+        Duration productsTtl = entryTtlFor(ProductService.PRODUCTS_CACHE, refreshAheadProperties);
+        Duration negativeTtl = productLookupProperties.getNegativeTtl();
+        RedisCacheConfiguration productsConfig = config.entryTtl((key, value) ->
+                value == null || value instanceof NullValue ? negativeTtl : productsTtl);
+        if (cacheSerializerProperties.getFormat() == CacheSerializerProperties.Format.BINARY) {
+            productsConfig = productsConfig.serializeValuesWith(RedisSerializationContext.SerializationPair
+                    .fromSerializer(new ProductBinarySerializer(cacheSerializerProperties.getCompressionThreshold())));
+        }
+        cacheConfigurations.put(ProductService.PRODUCTS_CACHE, productsConfig);
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
+        // Response bodies are stored as the bytes that go on the wire
+        cacheConfigurations.put(ProductResponseCache.CACHE, config.disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new ProductResponseSerializer())));
+
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
+        RedisShards shards = redisShards.getIfAvailable();
+        if (shards != null) {
+            cacheWriter = new ShardedRedisCacheWriter(cacheWriter, shards);
+        }
+        return RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(config.disableCachingNullValues())
+                .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
     }
+
+    private static Duration entryTtlFor(String cacheName, RefreshAheadProperties refreshAheadProperties) {
+        return refreshAheadProperties.appliesTo(cacheName)
+                ? ENTRY_TTL.plus(refreshAheadProperties.getStaleGrace())
+                : ENTRY_TTL;
+    }
+
+    @Bean
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(StringRedisTemplate stringRedisTemplate,
+            ObjectMapper objectMapper, NearCacheProperties nearCacheProperties, NodeIdentity nodeIdentity) {
+        return new CacheInvalidationBroadcaster(stringRedisTemplate, objectMapper,
+                nearCacheProperties.getInvalidationChannel(), nodeIdentity.getId());
+    }
+
+    @Bean
+    public DistributedLoadLock distributedLoadLock(StringRedisTemplate stringRedisTemplate,
+            CacheLockProperties cacheLockProperties) {
+        return new DistributedLoadLock(stringRedisTemplate, cacheLockProperties);
+    }
+
+    /**
+     * Shared by every cache: there is one Redis server behind them, and once it stalls every cache
+     * should stop waiting for it.
+     */
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(CircuitBreakerProperties circuitBreakerProperties,
+            MeterRegistry meterRegistry) {
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(circuitBreakerProperties.isEnabled(),
+                circuitBreakerProperties.getFailureThreshold(), circuitBreakerProperties.getOpenDuration());
+        circuitBreaker.bindTo(meterRegistry);
+        return circuitBreaker;
+    }
+
+    @Bean
+    @Primary
+    public TwoTierCacheManager cacheManager(RedisCacheManager redisCacheManager,
+            RedisConnectionFactory connectionFactory, NearCacheProperties nearCacheProperties,
+            CacheInvalidationBroadcaster cacheInvalidationBroadcaster, DistributedLoadLock distributedLoadLock,
+            RefreshAheadProperties refreshAheadProperties, BackgroundExecutors backgroundExecutors,
+            ObjectProvider<StatefulRedisConnection<byte[], byte[]>> asyncRedisConnection,
+            ObjectProvider<RedisShards> redisShards, HotKeyProperties hotKeyProperties,
+            RedisCircuitBreaker redisCircuitBreaker, CircuitBreakerProperties circuitBreakerProperties,
+            MeterRegistry meterRegistry) {
+        ExecutorService refreshExecutor = backgroundExecutors.newBoundedExecutor("cache-refresh",
+                refreshAheadProperties.getPoolSize(), refreshAheadProperties.getQueueCapacity());
+        return new TwoTierCacheManager(redisCacheManager, connectionFactory, asyncRedisConnection.getIfAvailable(),
+                redisShards.getIfAvailable(), nearCacheProperties, cacheInvalidationBroadcaster, distributedLoadLock,
+                refreshAheadProperties, refreshExecutor, hotKeyProperties, redisCircuitBreaker, circuitBreakerProperties,
+                meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            TwoTierCacheManager cacheManager, CacheInvalidationBroadcaster cacheInvalidationBroadcaster,
+            ProductIdFilter productIdFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheInvalidationBroadcaster.getChannel()));
+        container.addMessageListener(productIdFilter, new ChannelTopic(productIdFilter.getChannel()));
+        return container;
+    }
 }
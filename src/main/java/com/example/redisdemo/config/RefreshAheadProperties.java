@@ -0,0 +1,43 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Refresh-ahead / stale-while-revalidate for read-through caches.
+ * <p>
+ * Entries are kept in Redis for {@code ttl + staleGrace}. A hit in the last
+ * {@code threshold} before the TTL, or inside the grace window after it, returns the
+ * cached value immediately and reloads it in the background.
+ * The threshold should exceed the near-cache time-to-live, since L1 hits never look at Redis.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.refresh")
+public class RefreshAheadProperties {
+
+    private boolean enabled = false;
+
+    private Set<String> cacheNames = new HashSet<>(Set.of("products"));
+
+    private Duration threshold = Duration.ofMinutes(2);
+
+    /**
+     * How long past its TTL an entry may still be served while it is being refreshed.
+     */
+    private Duration staleGrace = Duration.ofMinutes(1);
+
+    private int poolSize = 4;
+
+    /**
+     * Refreshes beyond this many queued ones are dropped; the entry is retried on a later hit.
+     */
+    private int queueCapacity = 200;
+
+    public boolean appliesTo(String cacheName) {
+        return enabled && cacheNames.contains(cacheName);
+    }
+}
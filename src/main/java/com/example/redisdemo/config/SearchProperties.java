@@ -0,0 +1,28 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Product name search.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    /**
+     * Answer searches from the in-memory trigram index; when disabled every search is a
+     * {@code LIKE '%name%'} query against the database.
+     */
+    private boolean indexEnabled = true;
+
+    /**
+     * Results returned when the request does not ask for a limit.
+     */
+    private int defaultLimit = 20;
+
+    /**
+     * Upper bound for the requested limit.
+     */
+    private int maxLimit = 100;
+}
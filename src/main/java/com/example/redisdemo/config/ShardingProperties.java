@@ -0,0 +1,56 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Client-side sharding of cache entries over several Redis nodes. Everything else (locks, pub/sub,
+ * category sets) stays on the server configured under {@code spring.data.redis.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * The nodes as {@code host:port}. Each gets its own connection pool, sized like
+     * {@code spring.data.redis.jedis.pool.*}.
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Caches whose entries are spread over {@link #nodes}.
+     */
+    private Set<String> cacheNames = Set.of("products", "productResponses");
+
+    /**
+     * Points per node on the hash ring; more points even out the key distribution.
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * Consecutive failed commands or health checks after which a node is taken off the ring.
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * How often every node is pinged; an ejected node is put back after its first successful ping.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * Threads that run the per-node parts of a multi-key read or write in parallel.
+     */
+    private int fanOutPoolSize = 16;
+
+    /**
+     * Per-node parts beyond this many waiting run on the calling thread instead.
+     */
+    private int fanOutQueueCapacity = 1000;
+}
@@ -0,0 +1,42 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Stock reservations: live per-product counters in Redis, written back to the database in batches.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.products.stock")
+public class StockProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Each product's counter lives under {@code key-prefix + id}.
+     */
+    private String keyPrefix = "products:stock:";
+
+    /**
+     * Set of product IDs whose counter changed since it was last written to the database.
+     */
+    private String dirtyKey = "products:stock:dirty";
+
+    /**
+     * Counters are dropped once idle this long and reloaded from the product on next use. Every
+     * change renews it, and a changed counter is written back long before it could expire.
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * How often changed counters are written to the database and the products cache.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * Products written per transaction.
+     */
+    private int batchSize = 500;
+}
@@ -0,0 +1,38 @@
+package com.example.redisdemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Write-behind for product updates: the cache takes the new value at once, the database gets it
+ * with the next batch.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.products.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * How often pending updates are written to the database.
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Products written per transaction; a full batch is flushed without waiting for the interval.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Distinct products that may be waiting for the database. Further updates to a product that is
+     * already waiting replace it and never wait.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * How long an update waits for room in a full queue before it is rejected (503).
+     */
+    private Duration offerTimeout = Duration.ofSeconds(2);
+}
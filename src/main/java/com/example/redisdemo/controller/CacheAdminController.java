@@ -0,0 +1,68 @@
+package com.example.redisdemo.controller;
+
+import com.example.redisdemo.cache.HotKeyTracker;
+import com.example.redisdemo.cache.RedisShards;
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.cache.TwoTierCacheManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import com.example.redisdemo.service.ProductCacheWarmer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache Administration", description = "Inspect and manage the two-tier product cache")
+public class CacheAdminController {
+
+    private final TwoTierCacheManager cacheManager;
+    private final ProductCacheWarmer productCacheWarmer;
+    private final ObjectProvider<RedisShards> redisShards;
+
+    @Operation(summary = "Cache hit statistics", description = "Returns L1 (in-process) and L2 (Redis) hit counts and hit rates for every cache used so far on this node.")
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, TwoTierCache.Stats>> getStats() {
+        return ResponseEntity.ok(cacheManager.getStats());
+    }
+
+    @Operation(summary = "Start a cache warm-up", description = "Loads all products from the database into the Redis products cache in the background, using pipelined writes with jittered TTLs. If a warm-up is already running, its progress is returned instead.")
+    @ApiResponse(responseCode = "202", description = "Warm-up started or already running")
+    @PostMapping("/warmup")
+    public ResponseEntity<ProductCacheWarmer.WarmupStatus> startWarmup() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(productCacheWarmer.start());
+    }
+
+    @Operation(summary = "Cache warm-up progress", description = "Progress and throughput (products/s) of the latest warm-up on this node.")
+    @ApiResponse(responseCode = "200", description = "Progress retrieved successfully")
+    @GetMapping("/warmup")
+    public ResponseEntity<ProductCacheWarmer.WarmupStatus> getWarmupStatus() {
+        return ResponseEntity.ok(productCacheWarmer.status());
+    }
+
+    @Operation(summary = "Current hot keys", description = "Per cache, the keys detected as hot from sampled single-key reads, hottest first, with their estimated recent lookups and whether their value is pinned in the local replica. Only caches that track hot keys are listed.")
+    @ApiResponse(responseCode = "200", description = "Hot keys retrieved successfully")
+    @GetMapping("/hot-keys")
+    public ResponseEntity<Map<String, List<HotKeyTracker.HotKey>>> getHotKeys() {
+        return ResponseEntity.ok(cacheManager.getHotKeys());
+    }
+
+    @Operation(summary = "Redis shard health", description = "Lists the Redis nodes the sharded caches are spread over: whether each is on the hash ring, its consecutive failures and the share of keys it owns. Empty when sharding is disabled.")
+    @ApiResponse(responseCode = "200", description = "Shard status retrieved successfully")
+    @GetMapping("/shards")
+    public ResponseEntity<List<RedisShards.NodeStatus>> getShards() {
+        RedisShards shards = redisShards.getIfAvailable();
+        return ResponseEntity.ok(shards != null ? shards.getStatus() : List.of());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.redisdemo.controller;
+
+import com.example.redisdemo.cache.CacheOutcome;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.model.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Human-readable per-request console output for demos ({@code app.debug.console-report=true}).
+ * <p>
+ * Off by default: real latency and hit/miss figures are the Micrometer meters on
+ * {@code /actuator/prometheus}. When on, each report is built as one string and printed by a
+ * single background thread, so request threads never contend on {@code System.out};
+ * reports that do not fit in the queue are dropped.
+ */
+@Component
+public class ConsoleReport {
+
+    private static final String RULE = "=".repeat(80);
+
+    private final boolean enabled;
+    private final ExecutorService printer;
+
+    public ConsoleReport(@Value("${app.debug.console-report:false}") boolean enabled,
+            BackgroundExecutors backgroundExecutors) {
+        this.enabled = enabled;
+        this.printer = enabled ? backgroundExecutors.newBoundedExecutor("console-report", 1, 1000) : null;
+    }
+
+    /**
+     * Runs a single product lookup and, if enabled, reports where it was answered from once it completes.
+     */
+    public CompletableFuture<Optional<ProductResponse>> productLookup(Long id,
+            Supplier<CompletableFuture<Optional<ProductResponse>>> lookup) {
+        if (!enabled) {
+            return lookup.get();
+        }
+        CacheOutcome.track();
+        long startTime = System.nanoTime();
+        CompletableFuture<Optional<ProductResponse>> response;
+        CacheOutcome.Tally tally;
+        try {
+            response = lookup.get();
+        } finally {
+            tally = CacheOutcome.finish();
+        }
+        return response.whenComplete((found, e) -> {
+            if (found != null) {
+                long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+                print(() -> productLookupReport(id, found.orElse(null), tally.last(), durationMs));
+            }
+        });
+    }
+
+    public void line(String message) {
+        if (enabled) {
+            print(() -> message);
+        }
+    }
+
+    private void print(Supplier<String> report) {
+        try {
+            printer.execute(() -> System.out.println(report.get()));
+        } catch (RejectedExecutionException e) {
+            // console is behind; skip this report rather than slow the request down
+        }
+    }
+
+    private static String productLookupReport(Long id, ProductResponse response, CacheOutcome outcome,
+            long durationMs) {
+        StringBuilder report = new StringBuilder()
+                .append('\n').append(RULE).append('\n')
+                .append("📊 REDIS CACHE PERFORMANCE TEST - Product ID: ").append(id).append('\n')
+                .append(RULE).append('\n');
+
+        if (response == null) {
+            report.append("\n❔ Product not found (").append(durationMs).append("ms)\n");
+        } else {
+            report.append("\n📈 PERFORMANCE RESULTS:\n")
+                    .append("   Body: ").append(response.body().length).append(" bytes of JSON\n")
+                    .append("   ETag: ").append(response.etag()).append('\n');
+        }
+
+        if (outcome == CacheOutcome.MISS) {
+            report.append("\n🐢 CACHE MISS - Data fetched from DATABASE\n")
+                    .append("   ⏱️  Response Time: ").append(durationMs).append("ms\n")
+                    .append("   📍 Source: PostgreSQL/H2 Database\n")
+                    .append("   💡 TIP: Call this endpoint again with the same ID to see Redis magic!\n");
+        } else if (outcome != null) {
+            report.append("\n⚡ CACHE HIT - Data served from ")
+                    .append(outcome == CacheOutcome.L1_HIT ? "the in-process L1 cache" : "REDIS").append("!\n")
+                    .append("   ⏱️  Response Time: ").append(durationMs).append("ms\n")
+                    .append("   📍 Source: ")
+                    .append(outcome == CacheOutcome.L1_HIT ? "Local (L1) Cache" : "Redis In-Memory Cache").append('\n');
+        } else {
+            report.append("\n⛔ Unknown ID - answered without touching the cache or the database\n");
+        }
+
+        return report.append(RULE).append('\n').toString();
+    }
+}
@@ -1,7 +1,21 @@
 package com.example.redisdemo.controller;
 
 import com.example.redisdemo.model.Product;
+import com.example.redisdemo.service.AsyncProductService;
+import com.example.redisdemo.service.BulkImportReport;
+import com.example.redisdemo.service.CategoryStats;
+import com.example.redisdemo.service.ProductBulkImporter;
+import com.example.redisdemo.service.ProductCsv;
+import com.example.redisdemo.service.ProductImportReader;
+import com.example.redisdemo.service.ProductPage;
+import com.example.redisdemo.service.ProductResponseCache;
 import com.example.redisdemo.service.ProductService;
+import com.example.redisdemo.service.ProductStock;
+import com.example.redisdemo.service.StockChange;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,11 +24,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,22 +55,123 @@ import java.util.List;
 @Tag(name = "Product Management", description = "APIs for managing products with Redis caching")
 public class ProductController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProductService productService;
+    private final AsyncProductService asyncProductService;
+    private final ProductBulkImporter productBulkImporter;
+    private final ProductResponseCache productResponseCache;
+    private final ProductStock productStock;
+    private final ObjectMapper objectMapper;
+    private final ConsoleReport consoleReport;
+
+    @Operation(summary = "Get all products, one page at a time", description = """
+            Retrieves products in ID order from the database. This endpoint is NOT cached to ensure fresh data.
 
-    @Operation(summary = "Get all products", description = "Retrieves all products from the database. This endpoint is NOT cached to ensure fresh data.")
+            **Paging:** pass the `X-Next-Cursor` response header as `afterId` to get the next page.
+            The header is absent on the last page.
+            """)
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved all products", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of products", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page size", content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(
+            @Parameter(description = "Return products with an ID greater than this (cursor from X-Next-Cursor)", example = "100") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Page size (default 100, at most 1000)", example = "100") @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
         long startTime = System.nanoTime();
-        List<Product> products = productService.getAllProducts();
+        ProductPage page = productService.getProductsPage(afterId, limit);
         long duration = (System.nanoTime() - startTime) / 1_000_000;
 
-        System.out.println(
-                "📋 GET ALL PRODUCTS - Retrieved " + products.size() + " products in " + duration + "ms (NOT CACHED)");
+        consoleReport.line("📋 GET ALL PRODUCTS - Retrieved " + page.products().size() + " products in " + duration
+                + "ms (NOT CACHED)");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.products());
+    }
+
+    @Operation(summary = "Stream all products", description = """
+            Streams every product in ID order straight from a database cursor, as newline-delimited JSON
+            (`Accept: application/x-ndjson`, the default), as one JSON array (`Accept: application/json`)
+            or as CSV with a header row (`Accept: text/csv`, the format `POST /api/products/bulk` reads back).
+            Memory use stays flat regardless of catalog size. This endpoint is NOT cached.
+            """)
+    @ApiResponse(responseCode = "200", description = "Products streamed successfully")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProductsAsNdjson() {
+        return streamAllProducts(objectMapper.writer().withRootValueSeparator("\n"), false);
+    }
+
+    @Operation(hidden = true)
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProductsAsJsonArray() {
+        return streamAllProducts(objectMapper.writer(), true);
+    }
 
-        return ResponseEntity.ok(products);
+    @Operation(hidden = true)
+    @GetMapping(value = "/stream", produces = ProductCsv.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllProductsAsCsv() {
+        StreamingResponseBody body = outputStream -> {
+            long startTime = System.nanoTime();
+            Writer csv = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            csv.write(ProductCsv.HEADER);
+            csv.write("\r\n");
+            try {
+                long count = productService.streamAllProducts(product -> {
+                    try {
+                        csv.write(ProductCsv.format(product));
+                        csv.write("\r\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                csv.flush();
+                long duration = (System.nanoTime() - startTime) / 1_000_000;
+                consoleReport.line("📋 STREAM ALL PRODUCTS - Streamed " + count + " products as CSV in " + duration
+                        + "ms (NOT CACHED)");
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamAllProducts(ObjectWriter writer, boolean asArray) {
+        ObjectWriter streamWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> {
+            long startTime = System.nanoTime();
+            try (SequenceWriter products = asArray
+                    ? streamWriter.writeValuesAsArray(outputStream)
+                    : streamWriter.writeValues(outputStream)) {
+                long count = productService.streamAllProducts(product -> {
+                    try {
+                        products.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!asArray && count > 0) {
+                    products.flush();
+                    outputStream.write('\n');
+                }
+                long duration = (System.nanoTime() - startTime) / 1_000_000;
+                consoleReport.line("📋 STREAM ALL PRODUCTS - Streamed " + count + " products in " + duration
+                        + "ms (NOT CACHED)");
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().body(body);
     }
 
     @Operation(summary = "Get product by ID (CACHED ⚡)", description = """
@@ -52,47 +186,55 @@ public class ProductController {
             2. Wait for response (~3 seconds)
             3. Call again with same ID
             4. Notice instant response!
+
+            The JSON body is cached ready to send, and carries an ETag: send it back in
+            `If-None-Match` and an unchanged product is answered with 304 and no body.
             """)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found and returned", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
-            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
+            @ApiResponse(responseCode = "304", description = "Product unchanged since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many cache misses waiting for the database", content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(
+    public CompletableFuture<ResponseEntity<byte[]>> getProductById(
             @Parameter(description = "Product ID", example = "1", required = true) @PathVariable Long id) {
-        System.out.println("\n" + "=".repeat(80));
-        System.out.println("📊 REDIS CACHE PERFORMANCE TEST - Product ID: " + id);
-        System.out.println("=".repeat(80));
-
-        long startTime = System.nanoTime();
+        // Spring answers a matching If-None-Match with 304 itself once the ETag header is set
+        return consoleReport.productLookup(id, () -> productResponseCache.getProductResponse(id))
+                .thenApply(found -> found
+                        .map(response -> ResponseEntity.ok()
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .eTag(response.etag())
+                                .body(response.body()))
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Product not found with id: " + id)));
+    }
 
-        Product product = productService.getProductById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-
-        long endTime = System.nanoTime();
-        long durationMs = (endTime - startTime) / 1_000_000; // Convert to milliseconds
-
-        System.out.println("\n📈 PERFORMANCE RESULTS:");
-        System.out.println("   Product: " + product.getName());
-        System.out.println("   Category: " + product.getCategory());
-        System.out.println("   Price: $" + product.getPrice());
-
-        if (durationMs > 1000) {
-            System.out.println("\n🐢 CACHE MISS - Data fetched from DATABASE");
-            System.out.println("   ⏱️  Response Time: " + durationMs + "ms (~" + (durationMs / 1000.0) + " seconds)");
-            System.out.println("   📍 Source: PostgreSQL/H2 Database");
-            System.out.println("   💡 TIP: Call this endpoint again with the same ID to see Redis magic!");
-        } else {
-            System.out.println("\n⚡ CACHE HIT - Data served from REDIS!");
-            System.out.println("   ⏱️  Response Time: " + durationMs + "ms");
-            System.out.println("   📍 Source: Redis In-Memory Cache");
-            System.out.println(
-                    "   🚀 Speed Improvement: ~" + (2000 / Math.max(durationMs, 1)) + "x FASTER than database!");
-        }
+    @Operation(summary = "Get many products by ID (CACHED ⚡)", description = """
+            Retrieves up to 1000 products in one call.
 
-        System.out.println("=".repeat(80) + "\n");
+            **Cache Behavior:**
+            - All IDs are looked up in Redis with a single MGET round trip
+            - All misses are loaded with one database query and cached in one pipeline
 
-        return ResponseEntity.ok(product);
+            Products are returned in the order of the requested IDs; unknown IDs are skipped.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products found and returned", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Too many IDs requested, or a null ID", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many cache misses waiting for the database", content = @Content)
+    })
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<Product>>> getProductsByIds(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Product IDs to fetch", required = true) @RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " IDs can be requested at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product IDs must not be null");
+        }
+        return asyncProductService.getProductsByIds(ids).thenApply(ResponseEntity::ok);
     }
 
     @Operation(summary = "Create a new product", description = "Creates a new product in the database. The product will be cached when first retrieved by ID.")
@@ -107,10 +249,56 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
-    @Operation(summary = "Update a product (Updates Cache 🔄)", description = "Updates a product in the database and automatically updates the Redis cache with new data.")
+    @Operation(summary = "Bulk import products (Refreshes Cache 🔄)", description = """
+            Creates and updates products from a streamed body, read row by row without buffering the payload.
+
+            **Formats:**
+            - `Content-Type: application/x-ndjson`: one product JSON object per line
+            - `Content-Type: text/csv`: a header row naming the columns (`id,name,description,price,category,stockQuantity`), then one product per row
+
+            Rows without an `id` are created, rows with one update that product. Rows are written in
+            transactions of `app.products.bulk.batch-size` as JDBC batches, and each batch refreshes its
+            cache entries in one Redis pipeline. Invalid rows are listed in the report and skipped; they
+            never abort the import.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished; see the report for created, updated and failed rows", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "CSV header is missing a required column", content = @Content)
+    })
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportReport> importProductsFromNdjson(InputStream body) {
+        return importProducts(ProductImportReader.ndjson(reader(body), objectMapper));
+    }
+
+    @Operation(hidden = true)
+    @PostMapping(value = "/bulk", consumes = ProductCsv.MEDIA_TYPE)
+    public ResponseEntity<BulkImportReport> importProductsFromCsv(InputStream body) {
+        return importProducts(ProductImportReader.csv(reader(body)));
+    }
+
+    private ResponseEntity<BulkImportReport> importProducts(ProductImportReader rows) {
+        BulkImportReport report;
+        try {
+            report = productBulkImporter.importProducts(rows);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        consoleReport.line("📦 BULK IMPORT - " + report.rowsRead() + " rows in " + report.durationMs() + "ms ("
+                + Math.round(report.rowsPerSecond()) + " rows/s): " + report.created() + " created, "
+                + report.updated() + " updated, " + report.failed() + " failed");
+        return ResponseEntity.ok(report);
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    @Operation(summary = "Update a product (Updates Cache 🔄)", description = "Updates a product in the database and automatically updates the Redis cache with new data. With write-behind enabled the cache is updated at once and the database shortly after, in a batch.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
-            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Product kept changing concurrently; retry", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Write-behind queue is full", content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
@@ -132,6 +320,66 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Reserve stock (Atomic in Redis 🔒)", description = """
+            Takes units of a product's stock without touching the database.
+
+            **How it works:**
+            - The stock is a counter in Redis; one script checks and decrements it, so concurrent
+              checkouts can never oversell
+            - Changed counters are written to the database and the product cache in batches shortly after
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock reserved", content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockChange.class))),
+            @ApiResponse(responseCode = "400", description = "Quantity below 1", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Not enough stock; nothing was reserved", content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockChange.class))),
+            @ApiResponse(responseCode = "503", description = "Redis is unavailable, or stock reservations are disabled", content = @Content)
+    })
+    @PostMapping("/{id}/stock/reserve")
+    public ResponseEntity<StockChange> reserveStock(
+            @Parameter(description = "Product ID", example = "1", required = true) @PathVariable Long id,
+            @Parameter(description = "Units to reserve", example = "1") @RequestParam(defaultValue = "1") int quantity) {
+        StockChange change = stockChange(id, quantity, productStock::reserve);
+        return ResponseEntity.status(change.applied() ? HttpStatus.OK : HttpStatus.CONFLICT).body(change);
+    }
+
+    @Operation(summary = "Release reserved stock (Atomic in Redis 🔒)", description = "Gives units back to a product's stock, e.g. from an abandoned checkout.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock released", content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockChange.class))),
+            @ApiResponse(responseCode = "400", description = "Quantity below 1", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Redis is unavailable, or stock reservations are disabled", content = @Content)
+    })
+    @PostMapping("/{id}/stock/release")
+    public ResponseEntity<StockChange> releaseStock(
+            @Parameter(description = "Product ID", example = "1", required = true) @PathVariable Long id,
+            @Parameter(description = "Units to release", example = "1") @RequestParam(defaultValue = "1") int quantity) {
+        return ResponseEntity.ok(stockChange(id, quantity, productStock::release));
+    }
+
+    @Operation(summary = "Get live stock", description = "The current stock counter, ahead of the cached product by up to one write-back interval.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Units in stock", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Long.class))),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
+    })
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<Long> getStock(
+            @Parameter(description = "Product ID", example = "1", required = true) @PathVariable Long id) {
+        return ResponseEntity.ok(productStock.getStock(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id: " + id)));
+    }
+
+    private StockChange stockChange(Long id, int quantity, BiFunction<Long, Integer, Optional<StockChange>> change) {
+        if (!productStock.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Stock reservations are disabled");
+        }
+        if (quantity < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be at least 1");
+        }
+        return change.apply(id, quantity)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id: " + id));
+    }
+
     @Operation(summary = "Clear all cache entries", description = "Removes all cached products from Redis. Useful for testing or when you need to force fresh data.")
     @ApiResponse(responseCode = "200", description = "Cache cleared successfully")
     @PostMapping("/cache/clear")
@@ -140,7 +388,25 @@ public class ProductController {
         return ResponseEntity.ok("Cache cleared successfully");
     }
 
-    @Operation(summary = "Get products by category", description = "Retrieves all products in a specific category. This endpoint is NOT cached.")
+    @Operation(summary = "Get per-category statistics", description = """
+            Product count, lowest, highest and average price, and total stock of every category.
+
+            Answered from in-memory aggregates that every create, update and delete keeps up to date,
+            so the cost does not grow with the catalog.
+            """)
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CategoryStats.class)))
+    @GetMapping("/stats")
+    public ResponseEntity<List<CategoryStats>> getCategoryStats() {
+        return ResponseEntity.ok(productService.getCategoryStats());
+    }
+
+    @Operation(summary = "Get products by category (CACHED ⚡)", description = """
+            Retrieves all products in a specific category.
+
+            **Cache Behavior:**
+            - The category's product IDs are kept in a Redis set, updated on every create, update and delete
+            - The products themselves are read from the per-ID product cache
+            """)
     @ApiResponse(responseCode = "200", description = "Products retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Product>> getProductsByCategory(
@@ -148,11 +414,37 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsByCategory(category));
     }
 
-    @Operation(summary = "Search products by name", description = "Searches for products containing the specified name (case-insensitive). This endpoint is NOT cached.")
+    @Operation(summary = "Search products by name", description = """
+            Searches for products whose name contains the specified text (case-insensitive).
+
+            Answered from an in-memory trigram index: exact name matches first, then name prefixes,
+            then matches at the start of a word, then anywhere in the name.
+            """)
     @ApiResponse(responseCode = "200", description = "Search results retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
     @GetMapping("/search")
     public ResponseEntity<List<Product>> searchProducts(
-            @Parameter(description = "Search term", example = "MacBook", required = true) @RequestParam String name) {
-        return ResponseEntity.ok(productService.searchProducts(name));
+            @Parameter(description = "Search term", example = "MacBook", required = true) @RequestParam String name,
+            @Parameter(description = "Maximum number of results (default 20, at most 100)", example = "20") @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return ResponseEntity.ok(productService.searchProducts(name, limit));
+    }
+
+    /**
+     * Work beyond what the database load pool or the write-behind queue can take is shed rather
+     * than left waiting.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    /**
+     * An update lost the race against other writers on every attempt.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Void> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
 }
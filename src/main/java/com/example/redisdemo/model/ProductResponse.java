@@ -0,0 +1,19 @@
+package com.example.redisdemo.model;
+
+import java.util.zip.CRC32C;
+
+/**
+ * The JSON body of {@code GET /api/products/{id}}, encoded once and served as it is, with its ETag.
+ * <p>
+ * The ETag combines the entity {@link Product#getVersion() version} with a checksum of the body:
+ * the version alone is not enough while write-behind coalesces several updates into one flush.
+ */
+public record ProductResponse(String etag, byte[] body) {
+
+    public static ProductResponse of(Product product, byte[] body) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(body);
+        long version = product.getVersion() != null ? product.getVersion() : 0;
+        return new ProductResponse("\"" + version + "-" + Long.toHexString(checksum.getValue()) + "\"", body);
+    }
+}
@@ -1,15 +1,69 @@
 package com.example.redisdemo.repository;
 
 import com.example.redisdemo.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    int STREAM_FETCH_SIZE = 500;
+
     List<Product> findByCategory(String category);
 
     List<Product> findByNameContainingIgnoreCase(String name);
+
+    @Query("select p.id from Product p")
+    List<Long> findAllIds();
+
+    /**
+     * {@code [id, name]} pairs of all products.
+     */
+    @Query("select p.id, p.name from Product p")
+    List<Object[]> findAllIdsAndNames();
+
+    /**
+     * {@code [id, category, price, stockQuantity]} of all products.
+     */
+    @Query("select p.id, p.category, p.price, p.stockQuantity from Product p")
+    List<Object[]> findAllCategoryPricesAndStock();
+
+    /**
+     * {@code [category, count, min price, max price, price sum, stock sum]} per category, ordered by category.
+     */
+    @Query("""
+            select p.category, count(p), min(p.price), max(p.price), sum(p.price), sum(p.stockQuantity)
+            from Product p group by p.category order by p.category""")
+    List<Object[]> aggregateByCategory();
+
+    /**
+     * {@code [count, max id, version sum]} of all products; changes with every insert, update and delete.
+     */
+    @Query("select count(p), coalesce(max(p.id), 0), coalesce(sum(p.version), 0) from Product p")
+    List<Object[]> fingerprint();
+
+    @Query("select p.id from Product p where p.category = :category order by p.id")
+    List<Long> findIdsByCategory(@Param("category") String category);
+
+    /**
+     * Keyset pagination: the next {@code limit} products after {@code id}, in ID order.
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * All products in ID order, fetched from the JDBC driver {@value #STREAM_FETCH_SIZE} rows at a time.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllByOrderById();
 }
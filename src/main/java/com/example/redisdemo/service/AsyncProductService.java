@@ -0,0 +1,106 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.AsyncCacheProperties;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterparts of the {@link ProductService} lookups, used by the REST endpoints.
+ * <p>
+ * A cache hit holds no thread while Redis answers: L1 is checked on the calling thread and Redis
+ * is read over the shared async connection. Only misses need the blocking database; they run on a
+ * bounded pool, and when its queue is full the future fails with {@link RejectedExecutionException}
+ * instead of more work piling up. Single-ID misses go through {@link ProductService#getProductById},
+ * so miss coalescing, negative caching and the distributed lock all still apply, and hits are
+ * refreshed ahead of expiry like synchronous ones.
+ */
+@Service
+@Slf4j
+public class AsyncProductService {
+
+    private final ProductService productService;
+    private final CacheManager cacheManager;
+    private final ProductIdFilter productIdFilter;
+    private final ExecutorService loadExecutor;
+
+    public AsyncProductService(ProductService productService, CacheManager cacheManager,
+            ProductIdFilter productIdFilter, AsyncCacheProperties properties, BackgroundExecutors backgroundExecutors) {
+        this.productService = productService;
+        this.cacheManager = cacheManager;
+        this.productIdFilter = productIdFilter;
+        this.loadExecutor = backgroundExecutors.newBoundedExecutor("product-load", properties.getLoadPoolSize(),
+                properties.getLoadQueueCapacity());
+    }
+
+    /**
+     * Same result as {@link ProductService#getProductById}.
+     */
+    public CompletableFuture<Optional<Product>> getProductById(Long id) {
+        if (!productIdFilter.mightContain(id)) {
+            log.debug("⛔ Product ID {} rejected by ID filter", id);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        // Entries due for refresh-ahead are reloaded from the database without going through the cache
+        Callable<Product> reload = () -> productService.loadProductById(id).orElse(null);
+        return productsCache().getAsync(id, reload).thenCompose(cached -> cached != null
+                ? CompletableFuture.completedFuture(Optional.ofNullable((Product) cached.get()))
+                : load(() -> productService.getProductById(id)));
+    }
+
+    /**
+     * Same result as {@link ProductService#getProductsByIds}: one async MGET, one database query for
+     * all misses, and the loaded products written back in one async pipeline.
+     *
+     * @throws IllegalArgumentException if an ID is null
+     */
+    public CompletableFuture<List<Product>> getProductsByIds(List<Long> ids) {
+        ProductService.requireNonNullIds(ids);
+        TwoTierCache cache = productsCache();
+        List<Long> candidateIds = new LinkedHashSet<>(ids).stream().filter(productIdFilter::mightContain).toList();
+
+        return cache.getAllAsync(candidateIds).thenCompose(cached -> {
+            // A null value means "known to be missing" (negative cache entry)
+            Map<Long, Product> found = new HashMap<>();
+            cached.forEach((id, value) -> found.put(id, (Product) value));
+
+            List<Long> missingIds = candidateIds.stream().filter(id -> !found.containsKey(id)).toList();
+            if (missingIds.isEmpty()) {
+                return CompletableFuture.completedFuture(found);
+            }
+            return load(() -> productService.loadMissingProducts(missingIds, candidateIds.size()))
+                    .thenCompose(loaded -> {
+                        found.putAll(loaded);
+                        return cache.putAllAsync(loaded).thenApply(written -> found);
+                    });
+        }).thenApply(found -> ids.stream().map(found::get).filter(Objects::nonNull).toList());
+    }
+
+    private <T> CompletableFuture<T> load(Supplier<T> loader) {
+        try {
+            return CompletableFuture.supplyAsync(loader, loadExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Database load queue is full - rejecting cache miss");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private TwoTierCache productsCache() {
+        return (TwoTierCache) cacheManager.getCache(ProductService.PRODUCTS_CACHE);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.redisdemo.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows in {@code errors} were skipped; all other rows were written.
+ *
+ * @param errorsTruncated {@code true} if more rows failed than are listed in {@code errors}
+ */
+public record BulkImportReport(long rowsRead, long created, long updated, long failed, long durationMs,
+        double rowsPerSecond, List<RowError> errors, boolean errorsTruncated) {
+
+    /**
+     * @param line 1-based line of the input where the row starts
+     */
+    public record RowError(long line, String message) {
+    }
+}
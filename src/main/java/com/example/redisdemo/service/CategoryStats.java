@@ -0,0 +1,12 @@
+package com.example.redisdemo.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregates over the products of one category.
+ *
+ * @param averagePrice rounded to cents; the sum behind it is exact
+ */
+public record CategoryStats(String category, long productCount, BigDecimal minPrice, BigDecimal maxPrice,
+        BigDecimal averagePrice, long totalStock) {
+}
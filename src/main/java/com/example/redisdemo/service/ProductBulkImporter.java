@@ -0,0 +1,225 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.BulkImportProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a stream of imported products to the database and the "products" and "productResponses" caches.
+ * <p>
+ * Rows without an {@code id} are created, rows with one update that product. Valid rows are
+ * collected into batches of {@code batchSize}; each batch is one transaction (sent as JDBC batch
+ * INSERTs and UPDATEs) followed by one pipelined cache write and the usual change events for the
+ * indexes. Invalid rows are reported and skipped. If a batch fails in the database it is retried
+ * row by row, so one bad row only costs itself.
+ */
+@Service
+@Slf4j
+public class ProductBulkImporter {
+
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductWriteBehind productWriteBehind;
+    private final ProductResponseCache productResponseCache;
+    private final BulkImportProperties properties;
+
+    public ProductBulkImporter(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            CacheManager cacheManager, ApplicationEventPublisher eventPublisher, ProductWriteBehind productWriteBehind,
+            ProductResponseCache productResponseCache, BulkImportProperties properties) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.productWriteBehind = productWriteBehind;
+        this.productResponseCache = productResponseCache;
+        this.properties = properties;
+    }
+
+    public BulkImportReport importProducts(Iterator<ProductImportReader.Row> rows) {
+        log.info("📦 BULK IMPORT started");
+        long startTime = System.nanoTime();
+        Progress progress = new Progress(properties.getMaxReportedErrors());
+        List<ProductImportReader.Row> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (rows.hasNext()) {
+            ProductImportReader.Row row = rows.next();
+            progress.rowsRead++;
+            String problem = row.error() != null ? row.error() : validate(row.product());
+            if (problem != null) {
+                progress.fail(row.line(), problem);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() >= properties.getBatchSize()) {
+                writeBatch(batch, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, progress);
+        }
+
+        long durationMs = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        double rowsPerSecond = progress.rowsRead * 1000.0 / durationMs;
+        log.info("✅ BULK IMPORT finished: {} rows in {}ms ({} rows/s) - {} created, {} updated, {} failed",
+                progress.rowsRead, durationMs, Math.round(rowsPerSecond), progress.created, progress.updated,
+                progress.failed);
+        return new BulkImportReport(progress.rowsRead, progress.created, progress.updated, progress.failed,
+                durationMs, rowsPerSecond, progress.errors, progress.failed > progress.errors.size());
+    }
+
+    private void writeBatch(List<ProductImportReader.Row> batch, Progress progress) {
+        // A queued write-behind update must not land on top of the imported state
+        batch.stream().map(row -> row.product().getId()).filter(Objects::nonNull)
+                .forEach(productWriteBehind::discard);
+
+        BatchResult result;
+        try {
+            result = transactionTemplate.execute(status -> applyBatch(batch));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Bulk import batch of {} rows failed - retrying row by row", batch.size(), e);
+            for (ProductImportReader.Row row : batch) {
+                try {
+                    publish(transactionTemplate.execute(status -> applyBatch(List.of(row))), progress);
+                } catch (RuntimeException single) {
+                    progress.fail(row.line(), NestedExceptionUtils.getMostSpecificCause(single).getMessage());
+                }
+            }
+            return;
+        }
+        publish(result, progress);
+    }
+
+    private BatchResult applyBatch(List<ProductImportReader.Row> rows) {
+        Set<Long> ids = rows.stream().map(row -> row.product().getId()).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> existing = new HashMap<>();
+        productRepository.findAllById(ids).forEach(product -> existing.put(product.getId(), product));
+
+        List<ProductChangedEvent> changes = new ArrayList<>(rows.size());
+        List<BulkImportReport.RowError> errors = new ArrayList<>();
+        List<Product> created = new ArrayList<>();
+        for (ProductImportReader.Row row : rows) {
+            Product incoming = row.product();
+            if (incoming.getId() == null) {
+                // A copy, so an ID assigned in a rolled-back attempt does not stick to the row;
+                // without a version, so that it is inserted
+                Product product = incoming.copy();
+                product.setVersion(null);
+                created.add(product);
+                continue;
+            }
+            Product product = existing.get(incoming.getId());
+            if (product == null) {
+                errors.add(new BulkImportReport.RowError(row.line(), "No product with id " + incoming.getId()));
+                continue;
+            }
+            Product before = product.copy();
+            product.copyDetailsFrom(incoming);
+            changes.add(ProductChangedEvent.updated(before, product));
+        }
+        productRepository.saveAll(created).forEach(product -> changes.add(ProductChangedEvent.created(product)));
+        return new BatchResult(changes, errors);
+    }
+
+    /**
+     * After the batch committed: refresh its cache entries in one pipeline and let the indexes follow.
+     */
+    private void publish(BatchResult result, Progress progress) {
+        result.errors().forEach(error -> progress.fail(error.line(), error.message()));
+        if (result.changes().isEmpty()) {
+            return;
+        }
+
+        Map<Long, Product> written = new LinkedHashMap<>();
+        for (ProductChangedEvent change : result.changes()) {
+            written.put(change.after().getId(), change.after());
+            if (change.type() == ProductChangedEvent.Type.CREATED) {
+                progress.created++;
+            } else {
+                progress.updated++;
+            }
+        }
+        try {
+            ((TwoTierCache) cacheManager.getCache(ProductService.PRODUCTS_CACHE)).putAll(written);
+            productResponseCache.putAll(written.values());
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not refresh {} imported products in the cache - they will be reloaded on expiry",
+                    written.size(), e);
+        }
+        result.changes().forEach(eventPublisher::publishEvent);
+        log.debug("📦 Imported batch of {} products", written.size());
+    }
+
+    private static String validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "name is required";
+        }
+        if (product.getPrice() == null) {
+            return "price is required";
+        }
+        if (product.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "price must not be negative";
+        }
+        if (product.getCategory() == null || product.getCategory().isBlank()) {
+            return "category is required";
+        }
+        if (product.getStockQuantity() == null) {
+            return "stockQuantity is required";
+        }
+        if (product.getStockQuantity() < 0) {
+            return "stockQuantity must not be negative";
+        }
+        if (product.getDescription() != null && product.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "description is longer than " + MAX_DESCRIPTION_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private record BatchResult(List<ProductChangedEvent> changes, List<BulkImportReport.RowError> errors) {
+    }
+
+    private static final class Progress {
+
+        private final int maxReportedErrors;
+        private final List<BulkImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long created;
+        private long updated;
+        private long failed;
+
+        Progress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BulkImportReport.RowError(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.LocalCacheSnapshot;
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.config.CacheSnapshotProperties;
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves the L1 entries of the configured caches and the product ID filter to a memory-mapped file,
+ * and seeds them from it when the node restarts.
+ * <p>
+ * Each snapshot is stamped with a fingerprint of the products table (count, highest ID, sum of
+ * versions), taken before the caches are read. It is only restored if the database still has the
+ * same fingerprint, so a snapshot never brings back products that were changed or deleted while
+ * the node was down. Restored cache entries are decoded on first lookup and served for at most one
+ * L1 time-to-live, like entries loaded from Redis; the ID filter is replaced by the usual rebuild
+ * from the database once the application is ready.
+ */
+@Service
+@Slf4j
+public class ProductCacheSnapshots {
+
+    private final CacheManager cacheManager;
+    private final ProductIdFilter productIdFilter;
+    private final ProductRepository productRepository;
+    private final ProductLookupProperties.IdFilter idFilterProperties;
+    private final CacheSnapshotProperties properties;
+    private final Path path;
+    private final ExecutorService writer;
+
+    /**
+     * Keeps the periodic and the shutdown snapshot from overtaking each other.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean running;
+
+    public ProductCacheSnapshots(CacheManager cacheManager, ProductIdFilter productIdFilter,
+            ProductRepository productRepository, ProductLookupProperties lookupProperties,
+            CacheSnapshotProperties properties, BackgroundExecutors backgroundExecutors) {
+        this.cacheManager = cacheManager;
+        this.productIdFilter = productIdFilter;
+        this.productRepository = productRepository;
+        this.idFilterProperties = lookupProperties.getIdFilter();
+        this.properties = properties;
+        this.path = Path.of(properties.getPath());
+        this.writer = properties.isEnabled()
+                ? backgroundExecutors.newBoundedExecutor("cache-snapshot", 1, 1)
+                : null;
+    }
+
+    /**
+     * Restores the previous run's snapshot if it matches the database, then starts saving new ones
+     * every {@code interval}. Called once the sample data has been loaded.
+     */
+    public void start() {
+        if (writer == null) {
+            return;
+        }
+        restore();
+        running = true;
+        writer.execute(this::writeLoop);
+        log.info("🧊 Cache snapshots enabled - {} saved to {} every {}", properties.getCaches(),
+                path.toAbsolutePath(), properties.getInterval());
+    }
+
+    /**
+     * Saves a snapshot now.
+     *
+     * @return the number of cache entries saved
+     */
+    public int write() throws IOException {
+        writeLock.lock();
+        try {
+            // Before reading the caches: a change racing with the export then makes the stamp outdated
+            // rather than the snapshot silently older than its stamp
+            long stamp = stamp();
+            Map<String, Map<String, byte[]>> caches = new LinkedHashMap<>();
+            int entries = 0;
+            for (String name : properties.getCaches()) {
+                TwoTierCache cache = cache(name);
+                if (cache != null) {
+                    Map<String, byte[]> exported = cache.exportLocal();
+                    caches.put(name, exported);
+                    entries += exported.size();
+                }
+            }
+            LocalCacheSnapshot.write(path, stamp, productIdFilter.getFilter(), caches);
+            return entries;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            int entries = write();
+            log.info("🧊 Saved {} cache entries to {} on shutdown", entries, path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Could not save the cache snapshot on shutdown - the next start is cold", e);
+        }
+    }
+
+    private void restore() {
+        if (!Files.exists(path)) {
+            log.info("🧊 No cache snapshot at {} - starting cold", path);
+            return;
+        }
+        long startTime = System.nanoTime();
+        LocalCacheSnapshot snapshot;
+        try {
+            snapshot = LocalCacheSnapshot.open(path);
+        } catch (IOException e) {
+            log.warn("⚠️ Ignoring unreadable cache snapshot {}", path, e);
+            return;
+        }
+        if (snapshot.getStamp() != stamp()) {
+            log.info("🧊 Discarding the cache snapshot of {} - products changed since it was taken",
+                    snapshot.getWrittenAt());
+            return;
+        }
+
+        productIdFilter.restore(snapshot.getIdFilter(idFilterProperties.getExpectedInsertions(),
+                idFilterProperties.getFalsePositiveRate()));
+        int entries = 0;
+        for (String name : properties.getCaches()) {
+            TwoTierCache cache = cache(name);
+            LocalCacheSnapshot.Entries saved = snapshot.getEntries(name);
+            if (cache != null && saved != null) {
+                cache.restoreLocal(saved);
+                entries += saved.size();
+            }
+        }
+        log.info("🧊 Restored {} L1 entries from the cache snapshot of {} in {}ms", entries,
+                snapshot.getWrittenAt(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                long startTime = System.nanoTime();
+                int entries = write();
+                log.debug("🧊 Saved {} cache entries to {} in {}ms", entries, path,
+                        (System.nanoTime() - startTime) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                log.warn("⚠️ Could not save the cache snapshot to {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Changes with every insert, update and delete of a product.
+     */
+    private long stamp() {
+        long stamp = 17;
+        for (Object value : productRepository.fingerprint().get(0)) {
+            stamp = stamp * 1_000_003 + ((Number) value).longValue();
+        }
+        return stamp;
+    }
+
+    private TwoTierCache cache(String name) {
+        return cacheManager.getCache(name) instanceof TwoTierCache cache ? cache : null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.config.CacheWarmupProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads every product into the "products" cache so a cold Redis does not turn into
+ * a wave of slow misses.
+ * <p>
+ * Products are read in ID order one page at a time (keyset pagination, so late pages cost
+ * the same as early ones) and each page is written with one pipelined SET NX per product, so a
+ * product cached by a write while the warm-up runs keeps its newer value.
+ * At most {@code parallelism} pipelines are in flight; reading the next page waits for a free slot,
+ * which keeps memory bounded to roughly {@code parallelism + 1} pages.
+ */
+@Service
+@Slf4j
+public class ProductCacheWarmer {
+
+    private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final CacheWarmupProperties properties;
+    private final ExecutorService coordinator;
+    private final ExecutorService pipelineWriters;
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public ProductCacheWarmer(ProductRepository productRepository, CacheManager cacheManager,
+            CacheWarmupProperties properties, BackgroundExecutors backgroundExecutors) {
+        this.productRepository = productRepository;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.coordinator = backgroundExecutors.newBoundedExecutor("cache-warmup", 1, 1);
+        this.pipelineWriters = backgroundExecutors.newBoundedExecutor("cache-warmup-writer",
+                properties.getParallelism(), properties.getParallelism());
+    }
+
+    /**
+     * Starts a warm-up in the background unless one is already running.
+     */
+    public WarmupStatus start() {
+        Run run = new Run(productRepository.count());
+        Run previous = current.get();
+        if (previous != null && previous.isRunning()) {
+            return previous.toStatus();
+        }
+        if (!current.compareAndSet(previous, run)) {
+            return current.get().toStatus();
+        }
+        try {
+            coordinator.execute(() -> execute(run));
+        } catch (RejectedExecutionException e) {
+            run.fail(e);
+        }
+        return run.toStatus();
+    }
+
+    /**
+     * Runs a warm-up on the calling thread and returns once it has finished.
+     */
+    public WarmupStatus warmUp() {
+        Run run = new Run(productRepository.count());
+        current.set(run);
+        execute(run);
+        return run.toStatus();
+    }
+
+    public WarmupStatus status() {
+        Run run = current.get();
+        return run != null ? run.toStatus() : WarmupStatus.NOT_STARTED;
+    }
+
+    private void execute(Run run) {
+        log.info("🔥 CACHE WARM-UP - Loading {} products into Redis (page size {}, {} parallel pipelines)",
+                run.total, properties.getPageSize(), properties.getParallelism());
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache(ProductService.PRODUCTS_CACHE);
+        Semaphore inFlight = new Semaphore(properties.getParallelism());
+        Duration ttlJitter = properties.getTtlJitter();
+
+        try {
+            long lastId = 0;
+            while (run.failure.get() == null) {
+                List<Product> page = productRepository.findByIdGreaterThanOrderByIdAsc(lastId,
+                        Limit.of(properties.getPageSize()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+
+                Map<Long, Product> entries = new LinkedHashMap<>();
+                page.forEach(product -> entries.put(product.getId(), product));
+
+                inFlight.acquire();
+                try {
+                    pipelineWriters.execute(() -> {
+                        try {
+                            cache.preload(entries, ttlJitter);
+                            run.written.addAndGet(entries.size());
+                            run.pages.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            run.fail(e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+            inFlight.acquire(properties.getParallelism());
+            inFlight.release(properties.getParallelism());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+        } catch (RuntimeException e) {
+            run.fail(e);
+        }
+        run.finish();
+
+        WarmupStatus status = run.toStatus();
+        if (status.state() == WarmupStatus.State.FAILED) {
+            log.warn("❌ CACHE WARM-UP failed after {} products: {}", status.written(), status.error());
+        } else {
+            log.info("✅ CACHE WARM-UP complete - {} products in {}ms ({} products/s)", status.written(),
+                    status.elapsedMs(), Math.round(status.productsPerSecond()));
+        }
+    }
+
+    /**
+     * Progress of the latest warm-up.
+     */
+    public record WarmupStatus(State state, long total, long written, long pages, long elapsedMs,
+            double productsPerSecond, String error) {
+
+        public enum State { NOT_STARTED, RUNNING, COMPLETED, FAILED }
+
+        static final WarmupStatus NOT_STARTED = new WarmupStatus(State.NOT_STARTED, 0, 0, 0, 0, 0, null);
+    }
+
+    private static final class Run {
+
+        private final long total;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile Instant finishedAt;
+
+        Run(long total) {
+            this.total = total;
+        }
+
+        boolean isRunning() {
+            return finishedAt == null;
+        }
+
+        void fail(Throwable error) {
+            failure.compareAndSet(null, error);
+        }
+
+        void finish() {
+            finishedAt = Instant.now();
+        }
+
+        WarmupStatus toStatus() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long elapsedMs = Math.max(1, Duration.between(startedAt, end).toMillis());
+            Throwable error = failure.get();
+            WarmupStatus.State state = finishedAt == null ? WarmupStatus.State.RUNNING
+                    : error != null ? WarmupStatus.State.FAILED : WarmupStatus.State.COMPLETED;
+            return new WarmupStatus(state, total, written.get(), pages.get(), elapsedMs,
+                    written.get() * 1000.0 / elapsedMs, error != null ? error.toString() : null);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.RedisCircuitBreaker;
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Product IDs per category, kept as Redis sets ({@code products:category:<category>}).
+ * <p>
+ * Creates, deletes and category moves add or remove a single ID; a set is never flushed as a whole.
+ * A set that does not exist yet (or has expired) is rebuilt from the database on the next read.
+ * Every change bumps a per-category version, and a rebuild only writes its result if the version
+ * has not moved since its query - so a change that lands while the query runs cannot be lost.
+ * Each set holds a placeholder member, so that an empty category still counts as indexed.
+ * <p>
+ * Writes through {@link ProductService} are applied from their {@link ProductChangedEvent}; every
+ * committed change, whatever wrote it, is applied again from {@link ProductChangeStream}. Adding
+ * and removing a member are idempotent, so the second application only bumps the versions.
+ */
+@Component
+@Slf4j
+public class ProductCategoryIndex {
+
+    private static final String PLACEHOLDER = "-";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    // KEYS: (set, version) per category; ARGV[1]: product ID, ARGV[2..]: '+' or '-' per category
+    public static final RedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>("""
+            for i = 2, #ARGV do
+              local set, version = KEYS[2 * i - 3], KEYS[2 * i - 2]
+              redis.call('incr', version)
+              if redis.call('exists', set) == 1 then
+                if ARGV[i] == '+' then redis.call('sadd', set, ARGV[1]) else redis.call('srem', set, ARGV[1]) end
+              end
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: set, version; ARGV[1]: expected version, ARGV[2]: TTL in ms, ARGV[3..]: members
+    public static final RedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            redis.call('del', KEYS[1])
+            for i = 3, #ARGV, %d do
+              redis.call('sadd', KEYS[1], unpack(ARGV, i, math.min(i + %d, #ARGV)))
+            end
+            redis.call('pexpire', KEYS[1], ARGV[2])
+            return 1
+            """.formatted(REBUILD_BATCH_SIZE, REBUILD_BATCH_SIZE - 1), Long.class);
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ProductLookupProperties.CategoryIndex properties;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public ProductCategoryIndex(ProductRepository productRepository, StringRedisTemplate redisTemplate,
+            ProductLookupProperties lookupProperties, RedisCircuitBreaker circuitBreaker) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.properties = lookupProperties.getCategoryIndex();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * IDs of the products in {@code category}, in ascending order.
+     * Falls back to the database if Redis cannot be reached, or right away while the cache's
+     * circuit breaker is open.
+     */
+    public List<Long> getProductIds(String category) {
+        if (circuitBreaker.isOpen()) {
+            return productRepository.findIdsByCategory(category);
+        }
+        String setKey = setKey(category);
+        try {
+            Set<String> members = redisTemplate.opsForSet().members(setKey);
+            if (members != null && !members.isEmpty()) {
+                return members.stream()
+                        .filter(member -> !PLACEHOLDER.equals(member))
+                        .map(Long::valueOf)
+                        .sorted()
+                        .toList();
+            }
+            return rebuild(category);
+        } catch (RuntimeException e) {
+            log.warn("Could not read category index for '{}' - querying the database", category, e);
+            return productRepository.findIdsByCategory(category);
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED -> apply(event.after().getId(), null, event.after().getCategory());
+            case DELETED -> apply(event.before().getId(), event.before().getCategory(), null);
+            case UPDATED -> {
+                String from = event.before().getCategory();
+                String to = event.after().getCategory();
+                if (!Objects.equals(from, to)) {
+                    apply(event.after().getId(), from, to);
+                }
+            }
+        }
+    }
+
+    /**
+     * Files a committed change: {@code id} leaves its {@code previous} categories and joins
+     * {@code category} ({@code null} once deleted). A product whose previous category is unknown and
+     * that was not created is only added; a set it may have left keeps it until the set expires.
+     */
+    public void applyCommitted(Long id, Collection<String> previous, String category, boolean created) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> from = previous.stream().filter(old -> !old.equals(category)).toList();
+        String to = category != null && (created || !from.isEmpty()) ? category : null;
+        move(id, from, to);
+    }
+
+    private List<Long> rebuild(String category) {
+        String setKey = setKey(category);
+        String versionKey = versionKey(category);
+        String version = Objects.requireNonNullElse(redisTemplate.opsForValue().get(versionKey), "0");
+
+        List<Long> ids = productRepository.findIdsByCategory(category);
+
+        List<String> args = new ArrayList<>(ids.size() + 3);
+        args.add(version);
+        args.add(String.valueOf(properties.getTtl().toMillis()));
+        args.add(PLACEHOLDER);
+        ids.forEach(id -> args.add(id.toString()));
+        Long written = redisTemplate.execute(REBUILD_SCRIPT, List.of(setKey, versionKey), args.toArray());
+
+        if (Long.valueOf(1).equals(written)) {
+            log.info("🗂️ Category index for '{}' rebuilt with {} products", category, ids.size());
+        } else {
+            log.debug("Category '{}' changed during rebuild - not storing the index this time", category);
+        }
+        return ids.stream().sorted().toList();
+    }
+
+    /**
+     * Moves {@code id} from one category set to another; either side may be {@code null}.
+     */
+    private void apply(Long id, String from, String to) {
+        move(id, from != null ? List.of(from) : List.of(), to);
+    }
+
+    private void move(Long id, List<String> from, String to) {
+        List<String> keys = new ArrayList<>(2 * from.size() + 2);
+        List<String> args = new ArrayList<>(from.size() + 2);
+        args.add(id.toString());
+        for (String category : from) {
+            keys.add(setKey(category));
+            keys.add(versionKey(category));
+            args.add("-");
+        }
+        if (to != null) {
+            keys.add(setKey(to));
+            keys.add(versionKey(to));
+            args.add("+");
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.execute(APPLY_SCRIPT, keys, args.toArray());
+        } catch (RuntimeException e) {
+            log.warn("Could not update category index for product {} ({} -> {}) - dropping the affected sets",
+                    id, from, to, e);
+            from.forEach(this::drop);
+            drop(to);
+        }
+    }
+
+    private void drop(String category) {
+        if (category == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(setKey(category));
+        } catch (RuntimeException e) {
+            log.warn("Could not drop category index for '{}' - it is rebuilt once its TTL expires", category, e);
+        }
+    }
+
+    private String setKey(String category) {
+        return properties.getKeyPrefix() + category;
+    }
+
+    private String versionKey(String category) {
+        return properties.getKeyPrefix() + category + ":version";
+    }
+}
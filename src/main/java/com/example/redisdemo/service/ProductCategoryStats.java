@@ -0,0 +1,247 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-category product count, price range, average price and total stock, kept in memory.
+ * <p>
+ * Built from one projection query once the sample data has been loaded, then updated on every
+ * create, update and delete. Each product's category, price and stock are remembered, so a change
+ * takes the old values out of their category's aggregate and adds the new ones, whatever the event
+ * says the product looked like before. Price sums are exact {@link BigDecimal}s; the prices of
+ * each category are also kept as a sorted multiset, so minimum and maximum survive the removal of
+ * the current extreme. A read costs O(categories), however many products there are.
+ * <p>
+ * Like the search index, the aggregates follow {@link ProductChangedEvent}s on this node and, through
+ * {@link ProductChangeStream}, every committed change on any node.
+ */
+@Component
+@Slf4j
+public class ProductCategoryStats {
+
+    private final ProductRepository productRepository;
+    private final ProductLookupProperties.CategoryStats properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; null until the first build has finished
+    private Stats stats;
+    private volatile Queue<Change> changesDuringRebuild;
+
+    public ProductCategoryStats(ProductRepository productRepository, ProductLookupProperties lookupProperties) {
+        this.productRepository = productRepository;
+        this.properties = lookupProperties.getCategoryStats();
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return stats != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the aggregates from the database once the sample data has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        Queue<Change> pending = new ConcurrentLinkedQueue<>();
+        changesDuringRebuild = pending;
+
+        Stats rebuilt = new Stats();
+        for (Object[] row : productRepository.findAllCategoryPricesAndStock()) {
+            rebuilt.put((Long) row[0], new Row((String) row[1], (BigDecimal) row[2], (Integer) row[3]));
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = null;
+            // Changes that raced with the query; replaying them in order leaves each product at its latest state
+            pending.forEach(change -> change.applyTo(rebuilt));
+            stats = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("📊 Category stats built for {} products in {} categories in {}ms", rebuilt.rows.size(),
+                rebuilt.categories.size(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * The aggregates of every category that has products, ordered by category.
+     */
+    public List<CategoryStats> getStats() {
+        lock.readLock().lock();
+        try {
+            if (stats == null) {
+                throw new IllegalStateException("Category stats have not been built yet");
+            }
+            List<CategoryStats> result = new ArrayList<>(stats.categories.size());
+            stats.categories.forEach((category, aggregate) -> result.add(aggregate.toStats(category)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> update(List.of(event.after()));
+            case DELETED -> apply(List.of(new Change(event.before().getId(), null)));
+        }
+    }
+
+    /**
+     * Takes over the state of products written without a {@link ProductChangedEvent}, such as a
+     * stock write-back.
+     */
+    public void update(Collection<Product> products) {
+        apply(changesOf(products));
+    }
+
+    /**
+     * Takes over the committed state of {@code products} and drops the {@code deleted} IDs.
+     */
+    public void update(Collection<Product> products, Collection<Long> deleted) {
+        List<Change> changes = new ArrayList<>(products.size() + deleted.size());
+        changes.addAll(changesOf(products));
+        deleted.forEach(id -> changes.add(new Change(id, null)));
+        apply(changes);
+    }
+
+    /**
+     * The new state of each product; one that lacks a category, price or stock - which the database
+     * rejects anyway - is skipped and keeps its last valid state in the aggregates.
+     */
+    private static List<Change> changesOf(Collection<Product> products) {
+        List<Change> changes = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getCategory() == null || product.getPrice() == null || product.getStockQuantity() == null) {
+                log.warn("Ignoring incomplete product {} in the category stats", product.getId());
+            } else {
+                changes.add(Change.of(product));
+            }
+        }
+        return changes;
+    }
+
+    private void apply(List<Change> changes) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Queue<Change> pending = changesDuringRebuild;
+            if (pending != null) {
+                pending.addAll(changes);
+            }
+            if (stats != null) {
+                changes.forEach(change -> change.applyTo(stats));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The fields of a product that the aggregates are made of.
+     */
+    private record Row(String category, BigDecimal price, int stock) {
+    }
+
+    /**
+     * A product's new state, or its removal ({@code row == null}).
+     */
+    private record Change(Long id, Row row) {
+
+        static Change of(Product product) {
+            return new Change(product.getId(),
+                    new Row(product.getCategory(), product.getPrice(), product.getStockQuantity()));
+        }
+
+        void applyTo(Stats stats) {
+            if (row == null) {
+                stats.remove(id);
+            } else {
+                stats.put(id, row);
+            }
+        }
+    }
+
+    private static final class Stats {
+
+        private final Map<Long, Row> rows = new HashMap<>();
+        private final Map<String, Aggregate> categories = new TreeMap<>();
+
+        void put(Long id, Row row) {
+            remove(id);
+            rows.put(id, row);
+            categories.computeIfAbsent(row.category(), category -> new Aggregate()).add(row);
+        }
+
+        void remove(Long id) {
+            Row row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            Aggregate aggregate = categories.get(row.category());
+            aggregate.remove(row);
+            if (aggregate.count == 0) {
+                categories.remove(row.category());
+            }
+        }
+    }
+
+    private static final class Aggregate {
+
+        private long count;
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private long stockTotal;
+        // Price -> number of products at that price
+        private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+
+        void add(Row row) {
+            count++;
+            priceSum = priceSum.add(row.price());
+            stockTotal += row.stock();
+            prices.merge(row.price(), 1, Integer::sum);
+        }
+
+        void remove(Row row) {
+            count--;
+            priceSum = priceSum.subtract(row.price());
+            stockTotal -= row.stock();
+            prices.computeIfPresent(row.price(), (price, products) -> products > 1 ? products - 1 : null);
+        }
+
+        CategoryStats toStats(String category) {
+            return new CategoryStats(category, count, prices.firstKey(), prices.lastKey(),
+                    priceSum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP), stockTotal);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.ChangeStreamProperties;
+import com.example.redisdemo.model.Product;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * JPA entity listener of {@link Product}: collects every insert, update and delete that Hibernate
+ * writes, whichever code path wrote it, and hands them to {@link ProductChangeStream} in one batch
+ * once the transaction has committed. Rolled-back changes are never published. The categories of
+ * products loaded by a read-write transaction are noted too, so that a category move can be
+ * replayed against the category index.
+ * <p>
+ * Hibernate creates it through Spring, so it can have dependencies; the stream is looked up lazily
+ * because it needs the repositories, which need the entity manager factory that creates this listener.
+ * JPQL bulk updates bypass entity callbacks and are not captured.
+ */
+public class ProductChangeListener {
+
+    private final ObjectProvider<ProductChangeStream> changeStream;
+    private final ChangeStreamProperties properties;
+
+    public ProductChangeListener(ObjectProvider<ProductChangeStream> changeStream,
+            ChangeStreamProperties properties) {
+        this.changeStream = changeStream;
+        this.properties = properties;
+    }
+
+    @PostLoad
+    void onLoad(Product product) {
+        if (properties.isEnabled() && TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            record(changes -> changes.loaded(product.getId(), product.getCategory()));
+        }
+    }
+
+    @PostPersist
+    void onCreate(Product product) {
+        record(changes -> changes.created(product.getId(), product.getVersion()));
+    }
+
+    @PostUpdate
+    void onUpdate(Product product) {
+        record(changes -> changes.upserted(product.getId(), product.getVersion()));
+    }
+
+    @PostRemove
+    void onRemove(Product product) {
+        record(changes -> {
+            if (changes.isCreated(product.getId())) {
+                changes.discard(product.getId());
+            } else {
+                changes.loaded(product.getId(), product.getCategory());
+                changes.deleted(product.getId());
+            }
+        });
+    }
+
+    /**
+     * Adds the change to those of the current transaction, published after it commits; without a
+     * transaction (never the case for repository calls) it is published right away.
+     */
+    private void record(Consumer<ProductChanges> change) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ProductChanges changes = new ProductChanges();
+            change.accept(changes);
+            changeStream.getObject().publish(changes);
+            return;
+        }
+        ProductChanges changes = (ProductChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            ProductChanges bound = new ProductChanges();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeStream.getObject().publish(bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductChangeListener.this);
+                }
+            });
+            changes = bound;
+        }
+        change.accept(changes);
+    }
+}
@@ -0,0 +1,571 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.RedisCircuitBreaker;
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.config.ChangeStreamProperties;
+import com.example.redisdemo.config.NodeIdentity;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Replays committed product changes against the caches and every structure derived from the
+ * products table, on every write path, including those that bypass {@link ProductService} (the
+ * data loader, write-behind and stock flushes, future repository-level writes).
+ * <p>
+ * {@link ProductChangeListener} hands over each transaction's changes after commit, and they are
+ * appended to a Redis stream ({@code products:changes}) as records of up to {@code batchSize} IDs,
+ * together with the node they come from, which IDs were created, and the categories the changed
+ * products had before. The stream is read twice on every node:
+ * <ul>
+ * <li>In one consumer group shared by all nodes, for what lives in Redis, so each record is applied
+ * once. A product whose cached version is older than the committed one (or that is cached as
+ * missing) is reloaded and put in both caches, a deleted product is evicted, and category moves,
+ * creates and deletes are replayed against the {@link ProductCategoryIndex}; the caches tell the
+ * other nodes to drop their L1 copies as usual. Changes that the cache already reflects - the usual
+ * case for writes through {@link ProductService} - cost one MGET and nothing else.</li>
+ * <li>Without a group, from where the stream ended when this node started, for what each node keeps
+ * in memory. The changed rows are reloaded and handed to the {@link ProductSearchIndex} and
+ * {@link ProductCategoryStats}, which take over whatever state they find. Inserts and deletes of
+ * other nodes go to the {@link ProductIdFilter}; a node applies its own right after commit, so a
+ * product it has just created is found at once.</li>
+ * </ul>
+ * <p>
+ * A record is acknowledged only once applied. A restarting node first re-reads the records it had
+ * been given but not acknowledged, and records left behind by a node that never came back are
+ * claimed by another one after {@code claimIdle}. The group's offset lives in Redis, so changes
+ * committed while every node was down are applied on the next start instead of flushing the caches.
+ * If a change cannot be published, its products are evicted right away; while Redis is
+ * unavailable the caches remember those evictions until it is back. The in-memory structures of
+ * other nodes miss such a change until they are rebuilt.
+ */
+@Service
+@Slf4j
+public class ProductChangeStream {
+
+    private static final String ORIGIN = "origin";
+    private static final String UPSERTED = "upserted";
+    private static final String CREATED = "created";
+    private static final String DELETED = "deleted";
+    private static final String CATEGORIES = "categories";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final ProductResponseCache productResponseCache;
+    private final ProductIdFilter productIdFilter;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCategoryStats productCategoryStats;
+    private final ProductCategoryIndex productCategoryIndex;
+    private final ProductWriteBehind productWriteBehind;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ChangeStreamProperties properties;
+    private final Consumer consumer;
+    private final ExecutorService poller;
+
+    /**
+     * Serializes polls and guards the polling state below.
+     */
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private volatile boolean running;
+    private boolean groupReady;
+    private boolean catchingUp = true;
+    private long lastClaimCheck = System.nanoTime();
+
+    /**
+     * The last record applied to this node's in-memory structures; only touched by the poller.
+     */
+    private RecordId nodeOffset;
+
+    private final Counter published;
+    private final Counter publishFailed;
+    private final Counter refreshed;
+    private final Counter evicted;
+    private final Counter synced;
+
+    public ProductChangeStream(StringRedisTemplate redisTemplate, ProductRepository productRepository,
+            CacheManager cacheManager, ProductResponseCache productResponseCache, ProductIdFilter productIdFilter,
+            ProductSearchIndex productSearchIndex, ProductCategoryStats productCategoryStats,
+            ProductCategoryIndex productCategoryIndex, ProductWriteBehind productWriteBehind,
+            RedisCircuitBreaker circuitBreaker, ChangeStreamProperties properties, NodeIdentity nodeIdentity, BackgroundExecutors backgroundExecutors,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+        this.cacheManager = cacheManager;
+        this.productResponseCache = productResponseCache;
+        this.productIdFilter = productIdFilter;
+        this.productSearchIndex = productSearchIndex;
+        this.productCategoryStats = productCategoryStats;
+        this.productCategoryIndex = productCategoryIndex;
+        this.productWriteBehind = productWriteBehind;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+        this.consumer = Consumer.from(properties.getGroup(), nodeIdentity.getId());
+        this.poller = properties.isEnabled()
+                ? backgroundExecutors.newBoundedExecutor("product-change-stream", 1, 1)
+                : null;
+
+        this.published = publishCounter(meterRegistry, "published");
+        this.publishFailed = publishCounter(meterRegistry, "failed");
+        this.refreshed = appliedCounter(meterRegistry, "refreshed");
+        this.evicted = appliedCounter(meterRegistry, "evicted");
+        this.synced = appliedCounter(meterRegistry, "synced");
+    }
+
+    @PostConstruct
+    void start() {
+        if (poller != null) {
+            // Before the in-memory structures are built at startup, so no change falls in between
+            try {
+                nodeOffset = streamEnd(redisTemplate.opsForStream());
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not read the end of the product change stream - taking it on the first poll", e);
+            }
+            running = true;
+            poller.execute(this::pollLoop);
+            log.info("📜 Product change stream enabled - node {} applies committed changes from '{}' every {}",
+                    consumer.getName(), properties.getStreamKey(), properties.getPollInterval());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+    }
+
+    /**
+     * Applies committed inserts and deletes to this node's ID filter, then appends the changes to the
+     * stream; if that fails, evicts the changed products instead.
+     */
+    public void publish(ProductChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        productIdFilter.applyCommitted(changes.getCreated(), changes.getDeleted());
+        List<Map<String, String>> records = encode(changes);
+        try {
+            boolean added = circuitBreaker.execute(() -> {
+                StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+                for (Map<String, String> record : records) {
+                    stream.add(StreamRecords.string(record).withStreamKey(properties.getStreamKey()));
+                }
+                stream.trim(properties.getStreamKey(), properties.getMaxLength(), true);
+                return true;
+            }, () -> false);
+            if (added) {
+                published.increment(records.size());
+                return;
+            }
+            log.warn("⚠️ Redis is unavailable - evicting {} changed products instead of publishing them",
+                    changes.size());
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not publish {} product changes - evicting them instead", changes.size(), e);
+        }
+        publishFailed.increment(records.size());
+        evictAll(changes);
+    }
+
+    /**
+     * Reads and applies the next records for this node on the calling thread: its own unacknowledged
+     * ones first, then new ones, then any abandoned by other nodes.
+     *
+     * @return the number of records applied
+     */
+    public int poll() {
+        pollLock.lock();
+        try {
+            return pollRecords();
+        } catch (RuntimeException e) {
+            // Whatever was read stays unacknowledged and is read again; the group may be gone with the stream
+            catchingUp = true;
+            groupReady = false;
+            throw e;
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private int pollRecords() {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        if (!groupReady) {
+            createGroup(stream);
+        }
+        List<MapRecord<String, Object, Object>> records = List.of();
+        if (catchingUp) {
+            records = read(stream, ReadOffset.from("0"));
+            catchingUp = !records.isEmpty();
+        }
+        if (records.isEmpty()) {
+            records = read(stream, ReadOffset.lastConsumed());
+        }
+        if (records.isEmpty()) {
+            records = claimAbandoned(stream);
+        }
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        ProductChanges changes = new ProductChanges();
+        records.forEach(record -> changes.addAll(decode(record.getValue())));
+        apply(changes);
+        stream.acknowledge(properties.getStreamKey(), properties.getGroup(),
+                records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+        return records.size();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                int applied;
+                do {
+                    applied = poll();
+                } while (running && applied == properties.getBatchSize());
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not apply product changes from the stream - retrying", e);
+            }
+            try {
+                int read;
+                do {
+                    read = pollNode();
+                } while (running && read == properties.getBatchSize());
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not apply product changes from the stream to this node - retrying", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the records after the last one this node has seen, reloads the rows they changed, and
+     * hands them to this node's in-memory structures. Everything that can fail happens before the
+     * first structure is touched, so a record is never applied twice.
+     *
+     * @return the number of records read
+     */
+    private int pollNode() {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        if (nodeOffset == null) {
+            nodeOffset = streamEnd(stream);
+            return 0;
+        }
+        List<MapRecord<String, Object, Object>> records = stream.read(
+                StreamReadOptions.empty().count(properties.getBatchSize()),
+                StreamOffset.create(properties.getStreamKey(), ReadOffset.from(nodeOffset)));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        ProductChanges changes = new ProductChanges();
+        List<ProductChanges> fromOtherNodes = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            ProductChanges recordChanges = decode(record.getValue());
+            changes.addAll(recordChanges);
+            if (!consumer.getName().equals(record.getValue().get(ORIGIN))) {
+                fromOtherNodes.add(recordChanges);
+            }
+        }
+        Set<Long> gone = new HashSet<>(changes.getUpserted().keySet());
+        gone.addAll(changes.getDeleted());
+        List<Product> current = productRepository.findAllById(gone);
+        current.forEach(product -> gone.remove(product.getId())); // leaves the IDs whose rows no longer exist
+
+        nodeOffset = records.get(records.size() - 1).getId();
+        // One record at a time: an insert and a delete of the same product must both reach the filter
+        fromOtherNodes.forEach(recordChanges ->
+                productIdFilter.applyCommitted(recordChanges.getCreated(), recordChanges.getDeleted()));
+        productSearchIndex.update(current, gone);
+        productCategoryStats.update(current, gone);
+        synced.increment(current.size() + gone.size());
+        return records.size();
+    }
+
+    /**
+     * The ID of the stream's last record, or {@code 0-0} while there is none.
+     */
+    private RecordId streamEnd(StreamOperations<String, Object, Object> stream) {
+        List<MapRecord<String, Object, Object>> last = stream.reverseRange(properties.getStreamKey(),
+                Range.unbounded(), Limit.limit().count(1));
+        return last == null || last.isEmpty() ? RecordId.of("0-0") : last.get(0).getId();
+    }
+
+    /**
+     * Creates the shared group (and the stream) unless another node already did. A new group starts
+     * at the end of the stream: older changes were made before any node kept caches in sync.
+     */
+    private void createGroup(StreamOperations<String, Object, Object> stream) {
+        try {
+            stream.createGroup(properties.getStreamKey(), ReadOffset.latest(), properties.getGroup());
+            log.info("📜 Created consumer group '{}' on '{}'", properties.getGroup(), properties.getStreamKey());
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private List<MapRecord<String, Object, Object>> read(StreamOperations<String, Object, Object> stream,
+            ReadOffset offset) {
+        List<MapRecord<String, Object, Object>> records = stream.read(consumer,
+                StreamReadOptions.empty().count(properties.getBatchSize()),
+                StreamOffset.create(properties.getStreamKey(), offset));
+        return records != null ? records : List.of();
+    }
+
+    /**
+     * Takes over records another node was given but has not acknowledged for {@code claimIdle};
+     * checked at most once per {@code claimIdle}.
+     */
+    private List<MapRecord<String, Object, Object>> claimAbandoned(StreamOperations<String, Object, Object> stream) {
+        long now = System.nanoTime();
+        if (now - lastClaimCheck < properties.getClaimIdle().toNanos()) {
+            return List.of();
+        }
+        lastClaimCheck = now;
+        RecordId[] abandoned = stream.pending(properties.getStreamKey(), properties.getGroup(), Range.unbounded(),
+                        properties.getBatchSize())
+                .stream()
+                .filter(message -> !message.getConsumerName().equals(consumer.getName()))
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimIdle()) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (abandoned.length == 0) {
+            return List.of();
+        }
+        List<MapRecord<String, Object, Object>> claimed = stream.claim(properties.getStreamKey(),
+                properties.getGroup(), consumer.getName(), properties.getClaimIdle(), abandoned);
+        log.info("📜 Claimed {} product change records abandoned by other nodes", claimed.size());
+        return claimed;
+    }
+
+    /**
+     * Reloads the products whose cached copy is older than the committed change and evicts the
+     * deleted ones. Response bodies of products that are not in the products cache cannot be
+     * checked and are evicted. Then files the changes in the category index.
+     */
+    private void apply(ProductChanges changes) {
+        TwoTierCache products = cache(ProductService.PRODUCTS_CACHE);
+        TwoTierCache responses = productResponseCache.isEnabled() ? cache(ProductResponseCache.CACHE) : null;
+
+        for (Long id : changes.getDeleted()) {
+            evict(products, responses, id);
+        }
+
+        Map<Long, Long> upserted = changes.getUpserted();
+        Map<Long, Product> current = new HashMap<>();
+        if (!upserted.isEmpty()) {
+            refresh(products, responses, upserted, current);
+        }
+        indexCategories(changes, current);
+    }
+
+    /**
+     * Collects the committed state of the upserted products in {@code current} where the cache had
+     * or needed it. Products with a write-behind update still queued on this node are left alone:
+     * their cached copy is newer than any committed row, and the flush publishes its own change.
+     */
+    private void refresh(TwoTierCache products, TwoTierCache responses, Map<Long, Long> upserted,
+            Map<Long, Product> current) {
+        Map<Long, Object> cached = products.getAll(upserted.keySet());
+        List<Long> stale = new ArrayList<>();
+        cached.forEach((id, value) -> {
+            if (productWriteBehind.isPending(id)) {
+                return;
+            }
+            if (!(value instanceof Product product) || product.getVersion() == null
+                    || product.getVersion() < upserted.get(id)) {
+                stale.add(id);
+            } else {
+                current.put(id, product);
+            }
+        });
+        if (!stale.isEmpty()) {
+            Map<Long, Product> reloaded = new HashMap<>();
+            productRepository.findAllById(stale).forEach(product -> reloaded.put(product.getId(), product));
+            current.putAll(reloaded);
+            products.putAll(reloaded);
+            productResponseCache.putAll(reloaded.values());
+            refreshed.increment(reloaded.size());
+            stale.stream().filter(id -> !reloaded.containsKey(id)).forEach(id -> evict(products, responses, id));
+            log.debug("📜 Refreshed {} cached products changed outside the cache", reloaded.size());
+        }
+        if (responses != null) {
+            List<Long> uncached = upserted.keySet().stream().filter(id -> !cached.containsKey(id)).toList();
+            responses.getAll(uncached).keySet().forEach(id -> {
+                responses.evict(id);
+                evicted.increment();
+            });
+        }
+    }
+
+    /**
+     * Moves products between category sets, using the categories the writing transaction loaded them
+     * with and the committed one; creates and deletes only need one side.
+     */
+    private void indexCategories(ProductChanges changes, Map<Long, Product> current) {
+        if (!productCategoryIndex.isEnabled()) {
+            return;
+        }
+        List<Long> unknown = changes.getUpserted().keySet().stream()
+                .filter(id -> !current.containsKey(id))
+                .filter(id -> changes.isCreated(id) || !changes.getPreviousCategories(id).isEmpty())
+                .toList();
+        if (!unknown.isEmpty()) {
+            productRepository.findAllById(unknown).forEach(product -> current.put(product.getId(), product));
+        }
+        for (Long id : changes.getUpserted().keySet()) {
+            Product product = current.get(id);
+            productCategoryIndex.applyCommitted(id, changes.getPreviousCategories(id),
+                    product != null ? product.getCategory() : null, changes.isCreated(id));
+        }
+        for (Long id : changes.getDeleted()) {
+            productCategoryIndex.applyCommitted(id, changes.getPreviousCategories(id), null, false);
+        }
+    }
+
+    private void evictAll(ProductChanges changes) {
+        TwoTierCache products = cache(ProductService.PRODUCTS_CACHE);
+        TwoTierCache responses = productResponseCache.isEnabled() ? cache(ProductResponseCache.CACHE) : null;
+        changes.getUpserted().keySet().stream()
+                .filter(id -> !productWriteBehind.isPending(id))
+                .forEach(id -> evict(products, responses, id));
+        changes.getDeleted().forEach(id -> evict(products, responses, id));
+    }
+
+    private void evict(TwoTierCache products, TwoTierCache responses, Long id) {
+        products.evict(id);
+        if (responses != null) {
+            responses.evict(id);
+        }
+        evicted.increment();
+    }
+
+    /**
+     * One record per {@code batchSize} IDs: {@code upserted} as {@code id:version,...}, {@code created}
+     * and {@code deleted} as {@code id,...}, and {@code categories} as {@code id:category,...} with
+     * URL-encoded categories, plus the {@code origin} node.
+     */
+    private List<Map<String, String>> encode(ProductChanges changes) {
+        List<Map<String, String>> records = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> upserted = changes.getUpserted().entrySet().iterator();
+        Iterator<Long> deleted = changes.getDeleted().iterator();
+        while (upserted.hasNext() || deleted.hasNext()) {
+            StringBuilder upsertedIds = new StringBuilder();
+            StringBuilder createdIds = new StringBuilder();
+            StringBuilder deletedIds = new StringBuilder();
+            StringBuilder categories = new StringBuilder();
+            for (int i = 0; i < properties.getBatchSize() && (upserted.hasNext() || deleted.hasNext()); i++) {
+                Long id;
+                if (upserted.hasNext()) {
+                    Map.Entry<Long, Long> change = upserted.next();
+                    id = change.getKey();
+                    append(upsertedIds, id + ":" + change.getValue());
+                    if (changes.isCreated(id)) {
+                        append(createdIds, id.toString());
+                    }
+                } else {
+                    id = deleted.next();
+                    append(deletedIds, id.toString());
+                }
+                for (String category : changes.getPreviousCategories(id)) {
+                    append(categories, id + ":" + URLEncoder.encode(category, StandardCharsets.UTF_8));
+                }
+            }
+            records.add(Map.of(ORIGIN, consumer.getName(), UPSERTED, upsertedIds.toString(),
+                    CREATED, createdIds.toString(), DELETED, deletedIds.toString(), CATEGORIES, categories.toString()));
+        }
+        return records;
+    }
+
+    private static void append(StringBuilder ids, String id) {
+        if (!ids.isEmpty()) {
+            ids.append(',');
+        }
+        ids.append(id);
+    }
+
+    private static ProductChanges decode(Map<Object, Object> record) {
+        ProductChanges changes = new ProductChanges();
+        Set<String> created = StringUtils.commaDelimitedListToSet((String) record.get(CREATED));
+        for (String change : StringUtils.commaDelimitedListToStringArray((String) record.get(UPSERTED))) {
+            int colon = change.indexOf(':');
+            Long id = Long.valueOf(change.substring(0, colon));
+            Long version = Long.valueOf(change.substring(colon + 1));
+            if (created.contains(id.toString())) {
+                changes.created(id, version);
+            } else {
+                changes.upserted(id, version);
+            }
+        }
+        for (String id : StringUtils.commaDelimitedListToStringArray((String) record.get(DELETED))) {
+            changes.deleted(Long.valueOf(id));
+        }
+        for (String category : StringUtils.commaDelimitedListToStringArray((String) record.get(CATEGORIES))) {
+            int colon = category.indexOf(':');
+            changes.loaded(Long.valueOf(category.substring(0, colon)),
+                    URLDecoder.decode(category.substring(colon + 1), StandardCharsets.UTF_8));
+        }
+        return changes;
+    }
+
+    private TwoTierCache cache(String name) {
+        return (TwoTierCache) cacheManager.getCache(name);
+    }
+
+    private static Counter publishCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("products.changes.published")
+                .description("Product change records appended to the change stream")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter appliedCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("products.changes.applied")
+                .description("Products refreshed, evicted or synced to in-memory structures for committed changes")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
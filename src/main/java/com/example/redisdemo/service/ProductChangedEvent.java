@@ -0,0 +1,27 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.model.Product;
+
+/**
+ * Published by {@link ProductService} after a product was created, updated or deleted,
+ * so that derived in-memory structures can follow along.
+ *
+ * @param before the product as it was before the change; {@code null} for CREATED
+ * @param after  the product as it is now; {@code null} for DELETED
+ */
+public record ProductChangedEvent(Type type, Product before, Product after) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, null, product);
+    }
+
+    public static ProductChangedEvent updated(Product before, Product after) {
+        return new ProductChangedEvent(Type.UPDATED, before, after);
+    }
+
+    public static ProductChangedEvent deleted(Product product) {
+        return new ProductChangedEvent(Type.DELETED, product, null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.redisdemo.service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Products changed by one or more transactions: the IDs inserted or updated with the version they
+ * were committed at, which of them were inserted, the IDs deleted, and the categories the changed
+ * products had before (as far as they were loaded by the transaction).
+ */
+public class ProductChanges {
+
+    private final Map<Long, Long> upserted = new LinkedHashMap<>();
+    private final Set<Long> created = new LinkedHashSet<>();
+    private final Set<Long> deleted = new LinkedHashSet<>();
+    private final Map<Long, Set<String>> previousCategories = new LinkedHashMap<>();
+
+    public void created(Long id, Long version) {
+        upserted(id, version);
+        created.add(id);
+    }
+
+    public void upserted(Long id, Long version) {
+        upserted.merge(id, version != null ? version : 0L, Math::max);
+        deleted.remove(id);
+    }
+
+    public void deleted(Long id) {
+        upserted.remove(id);
+        created.remove(id);
+        deleted.add(id);
+    }
+
+    /**
+     * Forgets a product inserted and deleted by the same transaction, which no one else has seen.
+     */
+    public void discard(Long id) {
+        upserted.remove(id);
+        created.remove(id);
+        previousCategories.remove(id);
+    }
+
+    /**
+     * Remembers a category the product had when it was loaded, before these changes.
+     */
+    public void loaded(Long id, String category) {
+        if (category != null) {
+            previousCategories.computeIfAbsent(id, key -> new LinkedHashSet<>()).add(category);
+        }
+    }
+
+    public void addAll(ProductChanges other) {
+        other.upserted.forEach(this::upserted);
+        created.addAll(other.created);
+        other.deleted.forEach(this::deleted);
+        other.previousCategories.forEach((id, categories) ->
+                previousCategories.computeIfAbsent(id, key -> new LinkedHashSet<>()).addAll(categories));
+    }
+
+    public Map<Long, Long> getUpserted() {
+        return upserted;
+    }
+
+    public Set<Long> getCreated() {
+        return created;
+    }
+
+    public Set<Long> getDeleted() {
+        return deleted;
+    }
+
+    public boolean isCreated(Long id) {
+        return created.contains(id);
+    }
+
+    /**
+     * The categories {@code id} had before these changes, oldest first; empty for new products and
+     * for products the transaction changed without loading.
+     */
+    public Set<String> getPreviousCategories(Long id) {
+        return previousCategories.getOrDefault(id, Set.of());
+    }
+
+    public boolean isEmpty() {
+        return upserted.isEmpty() && deleted.isEmpty();
+    }
+
+    public int size() {
+        return upserted.size() + deleted.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CSV form of a product used by the bulk import and the export: a header row
+ * {@value #HEADER} and RFC 4180 quoting (fields with commas, quotes or line breaks are quoted,
+ * quotes inside are doubled).
+ */
+public final class ProductCsv {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    public static final String HEADER = "id,name,description,price,category,stockQuantity";
+
+    private ProductCsv() {
+    }
+
+    public static String format(Product product) {
+        return String.join(",",
+                product.getId() != null ? product.getId().toString() : "",
+                quote(product.getName()),
+                quote(product.getDescription()),
+                product.getPrice() != null ? product.getPrice().toPlainString() : "",
+                quote(product.getCategory()),
+                product.getStockQuantity() != null ? product.getStockQuantity().toString() : "");
+    }
+
+    /**
+     * Splits one record into its fields. Returns {@code null} if the record ends inside a quoted
+     * field, i.e. the field continues on the next line.
+     */
+    static List<String> parse(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
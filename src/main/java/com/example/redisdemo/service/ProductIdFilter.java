@@ -0,0 +1,182 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.CountingBloomFilter;
+import com.example.redisdemo.config.ChangeStreamProperties;
+import com.example.redisdemo.config.NodeIdentity;
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Membership filter over all existing product IDs.
+ * <p>
+ * A "no" is definite, so unknown IDs can be answered without touching Redis or the database;
+ * a "yes" may be a false positive, which the short-lived negative cache entry then absorbs.
+ * Until the first build has finished every ID is reported as possibly present.
+ * <p>
+ * With the change stream enabled, every committed insert and delete is applied exactly once per
+ * node, whatever wrote it: on this node right after commit, on the others when they read the
+ * stream. Otherwise the filter follows {@link ProductChangedEvent}s, and shares them with other
+ * nodes over pub/sub as {@code origin|+id} / {@code origin|-id}.
+ */
+@Component
+@Slf4j
+public class ProductIdFilter implements MessageListener {
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ProductLookupProperties.IdFilter properties;
+    private final boolean changeStreamEnabled;
+    private final String nodeId;
+
+    private volatile CountingBloomFilter filter;
+    private volatile Queue<Long> addsDuringRebuild;
+
+    public ProductIdFilter(ProductRepository productRepository, StringRedisTemplate redisTemplate,
+            ProductLookupProperties lookupProperties, ChangeStreamProperties changeStreamProperties,
+            NodeIdentity nodeIdentity) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.properties = lookupProperties.getIdFilter();
+        this.changeStreamEnabled = changeStreamProperties.isEnabled();
+        this.nodeId = nodeIdentity.getId();
+    }
+
+    public boolean mightContain(Long id) {
+        CountingBloomFilter current = filter;
+        return current == null || id == null || current.mightContain(id);
+    }
+
+    /**
+     * The filter as it is now, or {@code null} before the first build.
+     */
+    public CountingBloomFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Answers from a filter saved by a previous run until the first build has finished; ignored
+     * once there is a filter.
+     */
+    public void restore(CountingBloomFilter saved) {
+        if (properties.isEnabled() && saved != null && filter == null) {
+            filter = saved;
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the database. Runs once the application is ready, i.e. after
+     * {@code DataLoader} has inserted the sample data.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        Queue<Long> pending = new ConcurrentLinkedQueue<>();
+        addsDuringRebuild = pending;
+
+        CountingBloomFilter rebuilt = new CountingBloomFilter(properties.getExpectedInsertions(),
+                properties.getFalsePositiveRate());
+        List<Long> ids = productRepository.findAllIds();
+        ids.forEach(rebuilt::add);
+
+        filter = rebuilt;
+        addsDuringRebuild = null;
+        // Additions that raced with the query. Re-adding an ID the query already saw only leaves
+        // an extra count behind; racing removals are not replayed, since removing an ID the query
+        // never saw could clear slots of other IDs. Both err on the side of "might contain".
+        pending.forEach(rebuilt::add);
+
+        log.info("🧮 Product ID filter built with {} IDs ({} KB, {} hash functions) in {}ms", ids.size(),
+                rebuilt.sizeInBytes() / 1024, rebuilt.getHashFunctions(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Applies the inserts and deletes of a committed transaction, made on this node or - read from
+     * the change stream - on another one.
+     */
+    public void applyCommitted(Collection<Long> created, Collection<Long> deleted) {
+        created.forEach(id -> applyLocally(id, true));
+        deleted.forEach(id -> applyLocally(id, false));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (changeStreamEnabled) {
+            return; // applied once committed, see applyCommitted
+        }
+        switch (event.type()) {
+            case CREATED -> {
+                applyLocally(event.after().getId(), true);
+                publish('+', event.after().getId());
+            }
+            case DELETED -> {
+                applyLocally(event.before().getId(), false);
+                publish('-', event.before().getId());
+            }
+            default -> {
+                // the ID set does not change on update
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf('|');
+        if (separator < 0 || separator + 2 > body.length() || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            long id = Long.parseLong(body.substring(separator + 2));
+            applyLocally(id, body.charAt(separator + 1) == '+');
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed product ID filter message: {}", body);
+        }
+    }
+
+    public String getChannel() {
+        return properties.getChannel();
+    }
+
+    private void applyLocally(long id, boolean added) {
+        Queue<Long> pending = addsDuringRebuild;
+        if (pending != null && added) {
+            pending.add(id);
+        }
+        CountingBloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        if (added) {
+            current.add(id);
+        } else {
+            current.remove(id);
+        }
+    }
+
+    private void publish(char operation, long id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), nodeId + "|" + operation + id);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish product ID filter change {}{} - peers rebuild it on restart", operation, id, e);
+        }
+    }
+}
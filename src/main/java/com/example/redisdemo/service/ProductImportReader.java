@@ -0,0 +1,210 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Reads a bulk import body one row at a time, so the payload is never held in memory as a whole.
+ * A row that cannot be parsed comes back with an error instead of ending the import.
+ */
+public abstract class ProductImportReader implements Iterator<ProductImportReader.Row> {
+
+    /**
+     * One input row: a product, or the reason it could not be read. {@code line} is 1-based.
+     */
+    public record Row(long line, Product product, String error) {
+
+        static Row failed(long line, String error) {
+            return new Row(line, null, error);
+        }
+    }
+
+    protected final BufferedReader input;
+    protected long line;
+    private Row next;
+
+    protected ProductImportReader(BufferedReader input) {
+        this.input = input;
+    }
+
+    /**
+     * One JSON product per line; blank lines are skipped.
+     */
+    public static ProductImportReader ndjson(BufferedReader input, ObjectMapper objectMapper) {
+        return new Ndjson(input, objectMapper.readerFor(Product.class));
+    }
+
+    /**
+     * A header row naming the columns ({@value ProductCsv#HEADER}, any order; {@code id} and
+     * {@code description} may be left out), then one product per record.
+     */
+    public static ProductImportReader csv(BufferedReader input) {
+        return new Csv(input);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * The next row, or {@code null} at the end of the input.
+     */
+    protected abstract Row readRow() throws IOException;
+
+    protected String readLine() throws IOException {
+        String text = input.readLine();
+        if (text != null) {
+            line++;
+        }
+        return text;
+    }
+
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectReader reader;
+
+        Ndjson(BufferedReader input, ObjectReader reader) {
+            super(input);
+            this.reader = reader;
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            String text;
+            do {
+                text = readLine();
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new Row(line, reader.readValue(text), null);
+            } catch (IOException e) {
+                return Row.failed(line, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class Csv extends ProductImportReader {
+
+        private static final List<String> REQUIRED = List.of("name", "price", "category", "stockquantity");
+
+        private Map<String, Integer> columns;
+
+        Csv(BufferedReader input) {
+            super(input);
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            if (columns == null && !readHeader()) {
+                return null;
+            }
+            String text;
+            do {
+                text = readLine();
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+
+            long firstLine = line;
+            List<String> fields = ProductCsv.parse(text);
+            while (fields == null) {
+                String continuation = readLine();
+                if (continuation == null) {
+                    return Row.failed(firstLine, "Unterminated quoted field");
+                }
+                text = text + "\n" + continuation;
+                fields = ProductCsv.parse(text);
+            }
+            try {
+                return new Row(firstLine, toProduct(fields), null);
+            } catch (IllegalArgumentException e) {
+                return Row.failed(firstLine, e.getMessage());
+            }
+        }
+
+        private boolean readHeader() throws IOException {
+            String header = readLine();
+            if (header == null) {
+                return false;
+            }
+            List<String> names = ProductCsv.parse(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            columns = new HashMap<>();
+            for (int i = 0; names != null && i < names.size(); i++) {
+                columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+            }
+            List<String> missing = REQUIRED.stream().filter(name -> !columns.containsKey(name)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("CSV header is missing column(s) " + missing
+                        + "; expected " + ProductCsv.HEADER);
+            }
+            return true;
+        }
+
+        private Product toProduct(List<String> fields) {
+            Product product = new Product();
+            String id = field(fields, "id");
+            if (id != null) {
+                product.setId(parseNumber("id", id, Long::valueOf));
+            }
+            product.setName(field(fields, "name"));
+            product.setDescription(field(fields, "description"));
+            String price = field(fields, "price");
+            product.setPrice(price != null ? parseNumber("price", price, BigDecimal::new) : null);
+            product.setCategory(field(fields, "category"));
+            String stock = field(fields, "stockquantity");
+            product.setStockQuantity(stock != null ? parseNumber("stockQuantity", stock, Integer::valueOf) : null);
+            return product;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static <T> T parseNumber(String column, String value, Function<String, T> parser) {
+            try {
+                return parser.apply(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + " '" + value + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.model.Product;
+
+import java.util.List;
+
+/**
+ * One page of products in ID order. {@code nextCursor} is the {@code afterId} for the
+ * following page, or {@code null} on the last page.
+ */
+public record ProductPage(List<Product> products, Long nextCursor) {
+}
@@ -0,0 +1,125 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.model.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ready-to-send JSON bodies of {@code GET /api/products/{id}}, kept in the "productResponses" cache.
+ * <p>
+ * A hit is written to the HTTP response as it is, so a hot product is neither decoded from Redis
+ * nor encoded by Jackson again. Misses go through {@link AsyncProductService#getProductById}, so
+ * the products cache and miss coalescing still apply, and the encoded body is written back on the
+ * shared async connection, if absent and only while it is still current. IDs rejected by the
+ * {@link ProductIdFilter} skip this cache, and unknown IDs are never stored in it: the products cache
+ * already remembers those. {@link ProductService} evicts the entry on every change.
+ */
+@Service
+public class ProductResponseCache {
+
+    public static final String CACHE = "productResponses";
+
+    private final AsyncProductService asyncProductService;
+    private final ProductIdFilter productIdFilter;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public ProductResponseCache(AsyncProductService asyncProductService, ProductIdFilter productIdFilter,
+            CacheManager cacheManager, ObjectMapper objectMapper, ProductLookupProperties properties) {
+        this.asyncProductService = asyncProductService;
+        this.productIdFilter = productIdFilter;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.getResponseCache().isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The encoded product, or empty if it does not exist.
+     */
+    public CompletableFuture<Optional<ProductResponse>> getProductResponse(Long id) {
+        if (!enabled || !productIdFilter.mightContain(id)) {
+            return asyncProductService.getProductById(id).thenApply(product -> product.map(this::encode));
+        }
+        TwoTierCache cache = responsesCache();
+        long epoch = cache.getInvalidationEpoch();
+        return cache.getAsync(id).thenCompose(cached -> {
+            if (cached != null && cached.get() instanceof ProductResponse response) {
+                return CompletableFuture.completedFuture(Optional.of(response));
+            }
+            return asyncProductService.getProductById(id).thenCompose(product -> {
+                if (product.isEmpty()) {
+                    return CompletableFuture.completedFuture(Optional.<ProductResponse>empty());
+                }
+                ProductResponse response = encode(product.get());
+                return writeBack(cache, product.get(), response, epoch).thenApply(written -> Optional.of(response));
+            });
+        });
+    }
+
+    /**
+     * Stores a body encoded after a miss unless it may already be stale: the products cache must still
+     * hold the version that was encoded, no eviction may have reached this node since the miss, and a
+     * body written meanwhile is kept.
+     */
+    private CompletableFuture<Void> writeBack(TwoTierCache cache, Product product, ProductResponse response,
+            long epoch) {
+        return productsCache().getAsync(product.getId()).thenCompose(current -> {
+            if (current == null || !(current.get() instanceof Product cached)
+                    || !Objects.equals(cached.getVersion(), product.getVersion())) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return cache.putIfAbsentAsync(product.getId(), response, epoch);
+        });
+    }
+
+    /**
+     * Replaces the cached bodies of products that were just written, in one pipeline.
+     */
+    public void putAll(Collection<Product> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductResponse> responses = new LinkedHashMap<>();
+        for (Product product : products) {
+            responses.put(product.getId(), encode(product));
+        }
+        responsesCache().putAll(responses);
+    }
+
+    /**
+     * Encodes with the application's {@link ObjectMapper}, so the bytes are exactly what Spring MVC
+     * would have written for the {@link Product}.
+     */
+    public ProductResponse encode(Product product) {
+        try {
+            return ProductResponse.of(product, objectMapper.writeValueAsBytes(product));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode product " + product.getId(), e);
+        }
+    }
+
+    private TwoTierCache responsesCache() {
+        return (TwoTierCache) cacheManager.getCache(CACHE);
+    }
+
+    private TwoTierCache productsCache() {
+        return (TwoTierCache) cacheManager.getCache(ProductService.PRODUCTS_CACHE);
+    }
+}
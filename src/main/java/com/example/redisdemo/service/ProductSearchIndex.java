@@ -0,0 +1,334 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.SearchProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over product names, answering case-insensitive substring searches.
+ * <p>
+ * Every three-character window of a lower-cased name maps to a sorted {@code int[]} of product IDs.
+ * A query intersects the lists of its own trigrams (smallest first) and checks the few remaining
+ * candidates against the name itself, so the result is exact - the same products
+ * {@code LIKE '%query%'} would find. Queries shorter than three characters scan the names.
+ * <p>
+ * Results are ranked: whole-name match, then prefix match, then match at a word start, then
+ * anywhere; shorter names first within each group.
+ * <p>
+ * The index follows {@link ProductChangedEvent}s on this node and, through {@link ProductChangeStream},
+ * every committed change on any node.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ProductRepository productRepository;
+    private final SearchProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; null until the first build has finished
+    private Index index;
+    private volatile Queue<Change> changesDuringRebuild;
+
+    public ProductSearchIndex(ProductRepository productRepository, SearchProperties properties) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database once the sample data has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        Queue<Change> pending = new ConcurrentLinkedQueue<>();
+        changesDuringRebuild = pending;
+
+        Index rebuilt = new Index();
+        for (Object[] row : productRepository.findAllIdsAndNames()) {
+            rebuilt.put(toDocId((Long) row[0]), (String) row[1]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = null;
+            // Changes that raced with the query; replaying them in order leaves each product at its latest name
+            pending.forEach(change -> change.applyTo(rebuilt));
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("🔎 Search index built with {} products and {} trigrams in {}ms", rebuilt.names.size(),
+                rebuilt.postings.size(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * IDs of the products whose name contains {@code query} (ignoring case), best matches first.
+     */
+    public List<Long> search(String query, int limit) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                throw new IllegalStateException("Search index has not been built yet");
+            }
+            return index.search(needle, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        apply(List.of(switch (event.type()) {
+            case CREATED, UPDATED -> new Change(toDocId(event.after().getId()), event.after().getName());
+            case DELETED -> new Change(toDocId(event.before().getId()), null);
+        }));
+    }
+
+    /**
+     * Takes over the committed names of {@code products} and drops the {@code deleted} IDs.
+     */
+    public void update(Collection<Product> products, Collection<Long> deleted) {
+        List<Change> changes = new ArrayList<>(products.size() + deleted.size());
+        products.forEach(product -> changes.add(new Change(toDocId(product.getId()), product.getName())));
+        deleted.forEach(id -> changes.add(new Change(toDocId(id), null)));
+        apply(changes);
+    }
+
+    private void apply(List<Change> changes) {
+        if (!properties.isIndexEnabled() || changes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Queue<Change> pending = changesDuringRebuild;
+            if (pending != null) {
+                pending.addAll(changes);
+            }
+            if (index != null) {
+                changes.forEach(change -> change.applyTo(index));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int toDocId(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * A product rename or removal ({@code name == null}).
+     */
+    private record Change(int docId, String name) {
+
+        void applyTo(Index index) {
+            if (name == null) {
+                index.remove(docId);
+            } else {
+                index.put(docId, name);
+            }
+        }
+    }
+
+    private record Match(int docId, int rank, int length) {
+
+        static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::rank)
+                .thenComparingInt(Match::length)
+                .thenComparingInt(Match::docId);
+    }
+
+    private static final class Index {
+
+        private final Map<Long, PostingList> postings = new HashMap<>();
+        private final Map<Integer, String> names = new HashMap<>();
+
+        void put(int docId, String name) {
+            String normalized = normalize(name);
+            String previous = names.put(docId, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                removePostings(docId, previous);
+            }
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                postings.computeIfAbsent(trigram(normalized, i), gram -> new PostingList()).add(docId);
+            }
+        }
+
+        void remove(int docId) {
+            String previous = names.remove(docId);
+            if (previous != null) {
+                removePostings(docId, previous);
+            }
+        }
+
+        private void removePostings(int docId, String name) {
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                long gram = trigram(name, i);
+                PostingList list = postings.get(gram);
+                if (list != null && list.remove(docId) && list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        List<Long> search(String needle, int limit) {
+            if (limit <= 0) {
+                return List.of();
+            }
+            // Keep the best `limit` matches; the head of the queue is the worst of them
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.BEST_FIRST.reversed());
+            if (needle.length() < GRAM) {
+                names.forEach((docId, name) -> offer(best, limit, docId, name, needle));
+            } else {
+                for (int docId : candidates(needle)) {
+                    offer(best, limit, docId, names.get(docId), needle);
+                }
+            }
+
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(Match.BEST_FIRST);
+            return ranked.stream().map(match -> (long) match.docId()).toList();
+        }
+
+        /**
+         * Products containing every trigram of {@code needle}, in ascending ID order.
+         */
+        private int[] candidates(String needle) {
+            List<PostingList> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= needle.length(); i++) {
+                PostingList list = postings.get(trigram(needle, i));
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            int[] result = lists.get(0).toArray();
+            int size = result.length;
+            for (int l = 1; l < lists.size() && size > 0; l++) {
+                PostingList other = lists.get(l);
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(result[i])) {
+                        result[kept++] = result[i];
+                    }
+                }
+                size = kept;
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        private static void offer(PriorityQueue<Match> best, int limit, int docId, String name, String needle) {
+            int position = name.indexOf(needle);
+            if (position < 0) {
+                return;
+            }
+            int rank = name.length() == needle.length() ? 0
+                    : position == 0 ? 1
+                    : !Character.isLetterOrDigit(name.charAt(position - 1)) ? 2
+                    : 3;
+            best.add(new Match(docId, rank, name.length()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * Sorted, duplicate-free list of product IDs.
+     */
+    private static final class PostingList {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            if (size > 4 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+            }
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -1,48 +1,124 @@
 package com.example.redisdemo.service;
 
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.SearchProperties;
 import com.example.redisdemo.model.Product;
 import com.example.redisdemo.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
 
+    public static final String PRODUCTS_CACHE = "products";
+
+    /**
+     * Updates carry no version from the client, so a conflicting concurrent update is simply
+     * retried on the fresh row: the last writer wins, as before versioning.
+     */
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final ProductIdFilter productIdFilter;
+    private final ProductCategoryIndex productCategoryIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCategoryStats productCategoryStats;
+    private final SearchProperties searchProperties;
+    private final SimulatedDatabaseLatency simulatedDatabaseLatency;
+    private final ProductWriteBehind productWriteBehind;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+
+    /**
+     * Get one page of products (not cached to show fresh data)
+     * Keyset pagination on the ID: each page is an index range scan, however deep the cursor is.
+     */
+    public ProductPage getProductsPage(Long afterId, int limit) {
+        log.info("Fetching up to {} products after ID {} from database", limit, afterId);
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(limit + 1));
+        if (products.size() <= limit) {
+            return new ProductPage(products, null);
+        }
+        List<Product> page = products.subList(0, limit);
+        return new ProductPage(page, page.get(limit - 1).getId());
+    }
 
     /**
-     * Get all products (not cached to show fresh data)
+     * Hands every product to {@code consumer} in ID order while reading them from a database cursor
+     * (not cached to show fresh data). Each product is detached once consumed, so the persistence
+     * context - and the heap - stays flat however large the catalog is.
+     *
+     * @return the number of products streamed
      */
-    public List<Product> getAllProducts() {
-        log.info("Fetching all products from database");
-        return productRepository.findAll();
+    @Transactional(readOnly = true)
+    public long streamAllProducts(Consumer<Product> consumer) {
+        log.info("Streaming all products from database");
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAllByOrderById()) {
+            for (Iterator<Product> it = products.iterator(); it.hasNext(); count++) {
+                Product product = it.next();
+                consumer.accept(product);
+                entityManager.detach(product);
+            }
+        }
+        return count;
     }
 
     /**
      * Get product by ID with caching
      * First call: fetches from database and stores in Redis
      * Subsequent calls: fetches from Redis (much faster!)
+     * sync = true: concurrent misses for the same ID share one database load
+     * IDs the ID filter has never seen are rejected without touching Redis or the database;
+     * IDs that turn out not to exist are cached as "missing" for a short time.
      */
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = "products", key = "#id", sync = true, condition = "@productIdFilter.mightContain(#id)")
     public Optional<Product> getProductById(Long id) {
+        if (!productIdFilter.mightContain(id)) {
+            log.debug("⛔ Product ID {} rejected by ID filter", id);
+            return Optional.empty();
+        }
+        return loadProductById(id);
+    }
+
+    /**
+     * The database read behind {@link #getProductById}, without the cache; also what refresh-ahead
+     * reloads an entry with on the async path.
+     */
+    Optional<Product> loadProductById(Long id) {
         long startTime = System.nanoTime();
         log.info("🔍 CACHE MISS - Fetching product ID {} from DATABASE (This will be slow...)", id);
 
-        // Simulate slow database query
-        try {
-            Thread.sleep(2000); // 2 second delay to simulate slow DB
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        simulatedDatabaseLatency.pause(1);
 
         Optional<Product> product = productRepository.findById(id);
         long duration = (System.nanoTime() - startTime) / 1_000_000;
@@ -50,77 +126,230 @@ public class ProductService {
         if (product.isPresent()) {
             log.info("✅ Product '{}' fetched from database in {}ms - NOW CACHING IN REDIS",
                     product.get().getName(), duration);
+        } else {
+            log.info("❔ Product ID {} does not exist - caching the miss briefly", id);
         }
 
         return product;
     }
 
+    /**
+     * Get many products by ID in one go
+     * Cached products come back from a single Redis MGET (after checking the local L1),
+     * all misses are loaded with one findAllById query and written back in one pipeline.
+     * The result follows the order of the requested IDs; unknown IDs are left out.
+     *
+     * @throws IllegalArgumentException if an ID is null
+     */
+    public List<Product> getProductsByIds(List<Long> ids) {
+        requireNonNullIds(ids);
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache(PRODUCTS_CACHE);
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+
+        List<Long> candidateIds = distinctIds.stream().filter(productIdFilter::mightContain).toList();
+
+        // A null value means "known to be missing" (negative cache entry)
+        Map<Long, Product> found = new HashMap<>();
+        cache.getAll(candidateIds).forEach((id, value) -> found.put(id, (Product) value));
+
+        List<Long> missingIds = candidateIds.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            Map<Long, Product> loaded = loadMissingProducts(missingIds, distinctIds.size());
+            cache.putAll(loaded);
+            found.putAll(loaded);
+        }
+
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    static void requireNonNullIds(List<Long> ids) {
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Product IDs must not be null");
+        }
+    }
+
+    /**
+     * Loads the products a batch lookup did not find in the cache with one findAllById query.
+     * Every requested ID is in the result; IDs that do not exist map to null so they can be
+     * cached as missing.
+     */
+    Map<Long, Product> loadMissingProducts(List<Long> missingIds, int requested) {
+        log.info("🔍 BATCH CACHE MISS - Fetching {} of {} products from DATABASE", missingIds.size(), requested);
+        simulatedDatabaseLatency.pause(missingIds.size());
+
+        Map<Long, Product> loaded = new HashMap<>();
+        missingIds.forEach(id -> loaded.put(id, null));
+        productRepository.findAllById(missingIds).forEach(product -> loaded.put(product.getId(), product));
+        return loaded;
+    }
+
     /**
      * Create a new product
+     * Evicts any "missing" marker that may have been cached for the new ID
      */
+    @CacheEvict(value = "products", key = "#result.id")
     public Product createProduct(Product product) {
         log.info("➕ Creating new product: {}", product.getName());
-        return productRepository.save(product);
+        // Versioned entities count as new only without a version
+        product.setVersion(null);
+        Product created = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(created));
+        return created;
     }
 
     /**
      * Update product and update the cache
-     * The cache will be updated with the new product data
+     * The cache will be updated with the new product data; the cached response body is evicted
+     * afterwards and re-encoded on the next read.
+     * With write-behind enabled the database write is queued (coalesced with other updates of the
+     * same product) and flushed in batches; the cache and the indexes change right away.
      */
-    @CachePut(value = "products", key = "#id")
+    @Caching(put = @CachePut(value = "products", key = "#id"),
+            evict = @CacheEvict(value = "productResponses", key = "#id", condition = "@productResponseCache.enabled"))
     public Product updateProduct(Long id, Product productDetails) {
+        if (productWriteBehind.isEnabled()) {
+            Product before = currentState(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            Product updated = before.copy();
+            updated.copyDetailsFrom(productDetails);
+            // Keeps the committed version: the flush decides the next one, and the change stream then
+            // replaces the cached copy with the row as written
+            productWriteBehind.enqueue(updated);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(before, updated));
+            log.info("🔄 UPDATE OPERATION - Product ID {} - Cache updated, database write queued", id);
+            return updated;
+        }
+
         log.info("🔄 UPDATE OPERATION - Product ID {} - Database AND Cache will be updated", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        for (int attempt = 1; ; attempt++) {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+
+            Product before = product.copy();
+            product.copyDetailsFrom(productDetails);
 
-        String oldName = product.getName();
-        product.setName(productDetails.getName());
-        product.setDescription(productDetails.getDescription());
-        product.setPrice(productDetails.getPrice());
-        product.setCategory(productDetails.getCategory());
-        product.setStockQuantity(productDetails.getStockQuantity());
+            Product updated;
+            try {
+                updated = productRepository.save(product);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Product {} was changed concurrently - retrying update (attempt {})", id, attempt + 1);
+                entityManager.detach(product);
+                continue;
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.updated(before, updated));
+            log.info("✅ Product updated: '{}' -> '{}' | Cache synchronized with database", before.getName(),
+                    updated.getName());
 
-        Product updated = productRepository.save(product);
-        log.info("✅ Product updated: '{}' -> '{}' | Cache synchronized with database", oldName, updated.getName());
+            return updated;
+        }
+    }
 
-        return updated;
+    /**
+     * The latest state of a product under write-behind: a queued update, else the cached value,
+     * else the database row.
+     */
+    private Optional<Product> currentState(Long id) {
+        Optional<Product> queued = productWriteBehind.pending(id);
+        if (queued.isPresent()) {
+            return queued;
+        }
+        Cache.ValueWrapper cached = cacheManager.getCache(PRODUCTS_CACHE).get(id);
+        if (cached != null) {
+            return Optional.ofNullable((Product) cached.get()).map(Product::copy);
+        }
+        return productRepository.findById(id);
     }
 
     /**
      * Delete product and remove from cache
      * The cache entry will be evicted
      */
-    @CacheEvict(value = "products", key = "#id")
+    @Caching(evict = {
+            @CacheEvict(value = "products", key = "#id"),
+            @CacheEvict(value = "productResponses", key = "#id", condition = "@productResponseCache.enabled")
+    })
     public void deleteProduct(Long id) {
-        Optional<Product> product = productRepository.findById(id);
+        // Under write-behind the database row may lag behind; the indexes follow the latest state
+        Optional<Product> product = productWriteBehind.isEnabled() ? currentState(id) : productRepository.findById(id);
+        productWriteBehind.discard(id);
         String productName = product.map(Product::getName).orElse("Unknown");
 
         log.info("🗑️ DELETE OPERATION - Product ID {} ('{}') - Removing from database AND cache", id, productName);
         productRepository.deleteById(id);
+        product.ifPresent(deleted -> eventPublisher.publishEvent(ProductChangedEvent.deleted(deleted)));
         log.info("✅ Product deleted and cache entry evicted for ID {}", id);
     }
 
     /**
      * Clear all cache entries
      */
-    @CacheEvict(value = "products", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "products", allEntries = true),
+            @CacheEvict(value = "productResponses", allEntries = true)
+    })
     public void clearCache() {
         log.info("🧹 CLEARING ALL PRODUCT CACHE ENTRIES");
     }
 
     /**
-     * Get products by category (not cached)
+     * Get products by category
+     * The category's product IDs come from a Redis set index, the products themselves from
+     * the per-ID "products" cache (one MGET, misses loaded in one query).
+     * Products whose cached category no longer matches are left out.
      */
     public List<Product> getProductsByCategory(String category) {
-        log.info("Fetching products by category: {}", category);
-        return productRepository.findByCategory(category);
+        if (!productCategoryIndex.isEnabled()) {
+            log.info("Fetching products by category: {}", category);
+            return productRepository.findByCategory(category);
+        }
+        List<Long> ids = productCategoryIndex.getProductIds(category);
+        log.info("🗂️ Category '{}' - resolving {} product IDs through the cache", category, ids.size());
+        return getProductsByIds(ids).stream()
+                .filter(product -> category.equals(product.getCategory()))
+                .toList();
     }
 
     /**
-     * Search products by name (not cached)
+     * Count, price range, average price and total stock per category
+     * Answered from the in-memory aggregates, which every change keeps up to date. Falls back to a
+     * GROUP BY query while they are disabled or still building.
      */
-    public List<Product> searchProducts(String name) {
-        log.info("Searching products with name containing: {}", name);
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public List<CategoryStats> getCategoryStats() {
+        if (productCategoryStats.isReady()) {
+            return productCategoryStats.getStats();
+        }
+        log.info("Aggregating products per category in the database");
+        return productRepository.aggregateByCategory().stream()
+                .map(row -> {
+                    long count = (Long) row[1];
+                    BigDecimal priceSum = (BigDecimal) row[4];
+                    return new CategoryStats((String) row[0], count, (BigDecimal) row[2], (BigDecimal) row[3],
+                            priceSum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP), (Long) row[5]);
+                })
+                .toList();
+    }
+
+    /**
+     * Search products by name
+     * Matching IDs come from the in-memory trigram index (best matches first), the products from
+     * the per-ID cache. Falls back to a LIKE query while the index is disabled or still building.
+     */
+    public List<Product> searchProducts(String name, Integer limit) {
+        int maxResults = Math.min(limit != null ? limit : searchProperties.getDefaultLimit(),
+                searchProperties.getMaxLimit());
+
+        if (!searchProperties.isIndexEnabled() || !productSearchIndex.isReady()) {
+            log.info("Searching products with name containing: {}", name);
+            return productRepository.findByNameContainingIgnoreCase(name).stream().limit(maxResults).toList();
+        }
+
+        long startTime = System.nanoTime();
+        List<Long> ids = productSearchIndex.search(name, maxResults);
+        log.info("🔎 Search '{}' matched {} products in the index in {}µs", name, ids.size(),
+                (System.nanoTime() - startTime) / 1_000);
+        return getProductsByIds(ids);
     }
 }
@@ -0,0 +1,423 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.RedisCircuitBreaker;
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.config.StockProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Live stock per product, reserved and released atomically in Redis and written back to the
+ * database in batches.
+ * <p>
+ * Each product's stock is a Redis counter ({@code products:stock:<id>}), loaded from the product on
+ * first use. A reservation is one script run: it checks and decrements the counter and marks the
+ * product dirty, so two checkouts can never both take the last unit and none of them touches the
+ * database. A background flusher reads the dirty IDs every {@code flushInterval} and writes their
+ * counters to the products table, one transaction per batch. A mark is only cleared once its
+ * counter has been committed, and only if the counter has not moved since it was read, so a crash
+ * or a failed batch leaves it for the next flush; products with a queued write-behind update wait
+ * for it. After each batch the products and response caches and the category stats get the rows
+ * as written, so the cached
+ * {@link Product} trails the live counter by at most one flush interval. {@link #getStock} always reads the counter itself.
+ * <p>
+ * A {@code PUT} sets the stock outright: the new quantity replaces a loaded counter. Deleting a
+ * product drops its counter. Stock cannot be changed while Redis is unavailable, since there is
+ * no safe fallback that could not oversell.
+ */
+@Service
+@Slf4j
+public class ProductStock {
+
+    private static final long NOT_LOADED = -1;
+    private static final long APPLIED = 1;
+
+    // KEYS: counter, dirty set; ARGV: delta, product ID, TTL in ms.
+    // Returns {1, new stock}, {0, current stock} if it would go negative, or {-1, 0} if not loaded.
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            local stock = redis.call('get', KEYS[1])
+            if not stock then return {-1, 0} end
+            local updated = tonumber(stock) + tonumber(ARGV[1])
+            if updated < 0 then return {0, tonumber(stock)} end
+            redis.call('set', KEYS[1], updated, 'px', ARGV[3])
+            redis.call('sadd', KEYS[2], ARGV[2])
+            return {1, updated}
+            """, List.class);
+
+    // KEYS: dirty set, then the counter of each ID; ARGV: the IDs, then the counter value written for each.
+    // Clears the mark of every ID whose counter still holds the written value, or is gone.
+    public static final RedisScript<Long> CLEAR_DIRTY_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS - 1
+            local cleared = 0
+            for i = 1, n do
+              local counter = redis.call('get', KEYS[i + 1])
+              if not counter or counter == ARGV[n + i] then
+                cleared = cleared + redis.call('srem', KEYS[1], ARGV[i])
+              end
+            end
+            return cleared
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final ProductService productService;
+    private final ProductWriteBehind productWriteBehind;
+    private final ProductResponseCache productResponseCache;
+    private final ProductCategoryStats productCategoryStats;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final StockProperties properties;
+    private final ExecutorService flusher;
+
+    /**
+     * Serializes flushes, so the periodic flush and the one on shutdown do not overlap.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+
+    private final Counter reservedApplied;
+    private final Counter reservedInsufficient;
+    private final Counter released;
+    private final Counter written;
+
+    public ProductStock(StringRedisTemplate redisTemplate, ProductRepository productRepository,
+            PlatformTransactionManager transactionManager, CacheManager cacheManager, ProductService productService,
+            ProductWriteBehind productWriteBehind, ProductResponseCache productResponseCache,
+            ProductCategoryStats productCategoryStats, RedisCircuitBreaker circuitBreaker, StockProperties properties,
+            BackgroundExecutors backgroundExecutors, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.productService = productService;
+        this.productWriteBehind = productWriteBehind;
+        this.productResponseCache = productResponseCache;
+        this.productCategoryStats = productCategoryStats;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+        this.flusher = properties.isEnabled()
+                ? backgroundExecutors.newBoundedExecutor("product-stock-flush", 1, 1)
+                : null;
+
+        this.reservedApplied = changeCounter(meterRegistry, "reserve", "applied");
+        this.reservedInsufficient = changeCounter(meterRegistry, "reserve", "insufficient");
+        this.released = changeCounter(meterRegistry, "release", "applied");
+        this.written = Counter.builder("products.stock.writes")
+                .description("Product stock counters written back to the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (flusher != null) {
+            running = true;
+            flusher.execute(this::flushLoop);
+            log.info("📦 Stock reservations enabled - counters are written back every {} in batches of up to {}",
+                    properties.getFlushInterval(), properties.getBatchSize());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Takes {@code quantity} units if that many are left; empty if the product does not exist.
+     *
+     * @throws RejectedExecutionException if Redis is unavailable
+     */
+    public Optional<StockChange> reserve(Long id, int quantity) {
+        Optional<StockChange> change = adjust(id, quantity, -quantity);
+        change.ifPresent(result -> (result.applied() ? reservedApplied : reservedInsufficient).increment());
+        return change;
+    }
+
+    /**
+     * Gives back {@code quantity} units, e.g. from an abandoned checkout; empty if the product does not exist.
+     *
+     * @throws RejectedExecutionException if Redis is unavailable
+     */
+    public Optional<StockChange> release(Long id, int quantity) {
+        Optional<StockChange> change = adjust(id, quantity, quantity);
+        change.ifPresent(result -> released.increment());
+        return change;
+    }
+
+    /**
+     * The live stock: the counter if it is loaded, otherwise (or while Redis is unavailable) the
+     * product's stock quantity.
+     */
+    public Optional<Long> getStock(Long id) {
+        String counter = circuitBreaker.execute(() -> redisTemplate.opsForValue().get(counterKey(id)), () -> null);
+        if (counter != null) {
+            return Optional.of(Long.valueOf(counter));
+        }
+        return currentStock(id).map(Integer::longValue);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        switch (event.type()) {
+            case UPDATED -> overwrite(event.after());
+            case DELETED -> drop(event.before().getId());
+            case CREATED -> {
+                // loaded on first use
+            }
+        }
+    }
+
+    /**
+     * Writes every changed counter to the database now, on the calling thread.
+     *
+     * @return the number of products written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Set<String> dirty = redisTemplate.opsForSet().members(properties.getDirtyKey());
+            if (dirty == null || dirty.isEmpty()) {
+                return 0;
+            }
+            List<Long> ids = dirty.stream().map(Long::valueOf).toList();
+            int total = 0;
+            for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                total += write(ids.subList(from, Math.min(ids.size(), from + properties.getBatchSize())));
+            }
+            return total;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            int flushed = flush();
+            log.info("📦 Stock write-back stopped - flushed {} changed counters", flushed);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not write back stock counters on shutdown - they stay marked in Redis", e);
+        }
+    }
+
+    private Optional<StockChange> adjust(Long id, int quantity, long delta) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be at least 1");
+        }
+        List<String> keys = List.of(counterKey(id), properties.getDirtyKey());
+        String ttl = String.valueOf(properties.getTtl().toMillis());
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            List<?> result = redis(() -> redisTemplate.execute(ADJUST_SCRIPT, keys, String.valueOf(delta),
+                    id.toString(), ttl));
+            long status = ((Number) result.get(0)).longValue();
+            if (status != NOT_LOADED) {
+                long stock = ((Number) result.get(1)).longValue();
+                return Optional.of(new StockChange(id, quantity, status == APPLIED, stock));
+            }
+            if (!load(id)) {
+                return Optional.empty();
+            }
+        }
+        throw new IllegalStateException("Stock counter of product " + id + " disappeared right after loading");
+    }
+
+    /**
+     * Creates the counter from the product, unless another caller got there first.
+     *
+     * @return {@code false} if the product does not exist
+     */
+    private boolean load(Long id) {
+        Optional<Integer> stock = currentStock(id);
+        if (stock.isEmpty()) {
+            return false;
+        }
+        redis(() -> redisTemplate.opsForValue().setIfAbsent(counterKey(id), stock.get().toString(),
+                properties.getTtl()));
+        return true;
+    }
+
+    /**
+     * The product's stock quantity, including a write-behind update that is still queued.
+     */
+    private Optional<Integer> currentStock(Long id) {
+        Optional<Product> product = productWriteBehind.pending(id).or(() -> productService.getProductById(id));
+        return product.map(Product::getStockQuantity);
+    }
+
+    private void overwrite(Product product) {
+        if (product.getStockQuantity() == null) {
+            return;
+        }
+        String id = product.getId().toString();
+        try {
+            Boolean replaced = redisTemplate.opsForValue().setIfPresent(counterKey(product.getId()),
+                    product.getStockQuantity().toString(), properties.getTtl());
+            // Marked dirty so that a flush that read the old counter is corrected by the next one
+            if (Boolean.TRUE.equals(replaced)) {
+                redisTemplate.opsForSet().add(properties.getDirtyKey(), id);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not set the stock counter of product {} - dropping it", id, e);
+            drop(product.getId());
+        }
+    }
+
+    private void drop(Long id) {
+        try {
+            redisTemplate.delete(counterKey(id));
+            redisTemplate.opsForSet().remove(properties.getDirtyKey(), id.toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not drop the stock counter of product {} - it expires after {}", id,
+                    properties.getTtl(), e);
+        }
+    }
+
+    /**
+     * Writes one batch of counters and clears the marks of those committed; IDs that cannot be
+     * written yet stay marked.
+     */
+    private int write(List<Long> ids) {
+        List<String> counters = redisTemplate.opsForValue().multiGet(ids.stream().map(this::counterKey).toList());
+        Map<Long, String> stock = new HashMap<>();
+        // ID -> counter value whose mark can be cleared; "" for a counter that is gone
+        Map<Long, String> done = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String counter = counters != null ? counters.get(i) : null;
+            if (counter == null) {
+                // dropped: the product was deleted, or its stock set outright
+                done.put(ids.get(i), "");
+            } else if (productWriteBehind.pending(ids.get(i)).isEmpty()) {
+                stock.put(ids.get(i), counter);
+            }
+        }
+
+        int count = 0;
+        if (!stock.isEmpty()) {
+            try {
+                List<Product> products = transactionTemplate.execute(status -> {
+                    List<Product> managed = productRepository.findAllById(stock.keySet());
+                    managed.forEach(product ->
+                            product.setStockQuantity(Integer.valueOf(stock.get(product.getId()))));
+                    return managed;
+                });
+                refreshCaches(products);
+                productCategoryStats.update(products);
+                written.increment(products.size());
+                count = products.size();
+                done.putAll(stock);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not write back {} stock counters - retrying with the next flush", stock.size(), e);
+            }
+        }
+        if (!done.isEmpty()) {
+            clearDirty(done);
+        }
+        return count;
+    }
+
+    /**
+     * Clears the marks of counters that still hold the value written; one that moved in the
+     * meantime stays marked for the next flush.
+     */
+    private void clearDirty(Map<Long, String> written) {
+        List<String> keys = new ArrayList<>(written.size() + 1);
+        List<String> args = new ArrayList<>(written.size() * 2);
+        keys.add(properties.getDirtyKey());
+        written.keySet().forEach(id -> {
+            keys.add(counterKey(id));
+            args.add(id.toString());
+        });
+        args.addAll(written.values());
+        redisTemplate.execute(CLEAR_DIRTY_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * Puts the rows as committed, including those whose stock did not change: a {@code PUT} that
+     * committed just before may otherwise have its cache write overtaken by an older one.
+     */
+    private void refreshCaches(List<Product> products) {
+        Map<Long, Product> byId = new LinkedHashMap<>();
+        products.forEach(product -> byId.put(product.getId(), product));
+        try {
+            ((TwoTierCache) cacheManager.getCache(ProductService.PRODUCTS_CACHE)).putAll(byId);
+            productResponseCache.putAll(products);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not refresh {} products after a stock write-back - they will be reloaded on expiry",
+                    products.size(), e);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getFlushInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("❌ Stock write-back failed", e);
+            }
+        }
+    }
+
+    /**
+     * Runs a Redis command through the circuit breaker; there is no fallback for stock.
+     */
+    private <T> T redis(Supplier<T> command) {
+        return circuitBreaker.execute(command, () -> {
+            throw new RejectedExecutionException("Redis is unavailable - stock cannot be changed safely");
+        });
+    }
+
+    private String counterKey(Long id) {
+        return properties.getKeyPrefix() + id;
+    }
+
+    private static Counter changeCounter(MeterRegistry meterRegistry, String operation, String result) {
+        return Counter.builder("products.stock.changes")
+                .description("Stock reservations and releases")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.BackgroundExecutors;
+import com.example.redisdemo.config.WriteBehindProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces product updates and writes them to the database in batches.
+ * <p>
+ * Pending updates are keyed by product ID, so a product updated many times between two flushes is
+ * written once, with its latest state. A background flusher wakes every {@code flushInterval}, or as
+ * soon as a batch is full, and writes each batch in one transaction, which Hibernate sends as JDBC
+ * batch UPDATEs. When {@code queueCapacity} distinct products are waiting, {@link #enqueue} blocks
+ * for up to {@code offerTimeout} and then throws {@link RejectedExecutionException}. On shutdown
+ * everything still pending is written before the database goes away.
+ * <p>
+ * A failed batch is retried one product at a time; a product that still cannot be written is
+ * evicted from the cache so readers fall back to what the database has.
+ */
+@Service
+@Slf4j
+public class ProductWriteBehind {
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final WriteBehindProperties properties;
+    private final ExecutorService flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+    private final Map<Long, Product> pending = new LinkedHashMap<>();
+
+    /**
+     * Serializes flushes, so two versions of one product are never written out of order.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+
+    private final Counter written;
+    private final Counter failed;
+    private final Counter coalesced;
+    private final Counter rejected;
+
+    public ProductWriteBehind(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            CacheManager cacheManager, WriteBehindProperties properties, BackgroundExecutors backgroundExecutors,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.flusher = properties.isEnabled()
+                ? backgroundExecutors.newBoundedExecutor("product-write-behind", 1, 1)
+                : null;
+
+        Gauge.builder("products.write_behind.pending", this, ProductWriteBehind::pendingCount)
+                .description("Product updates waiting to be written to the database")
+                .register(meterRegistry);
+        this.written = writeCounter(meterRegistry, "written");
+        this.failed = writeCounter(meterRegistry, "failed");
+        this.coalesced = Counter.builder("products.write_behind.coalesced")
+                .description("Updates that replaced a pending update of the same product")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("products.write_behind.rejected")
+                .description("Updates rejected because the queue stayed full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (flusher != null) {
+            running = true;
+            flusher.execute(this::flushLoop);
+            log.info("💾 Write-behind enabled - product updates are flushed every {} in batches of up to {}",
+                    properties.getFlushInterval(), properties.getBatchSize());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues {@code product} to be written; replaces an update of the same product that is still waiting.
+     *
+     * @throws RejectedExecutionException if the queue stays full for {@code offerTimeout}
+     */
+    public void enqueue(Product product) {
+        long remainingNanos = properties.getOfferTimeout().toNanos();
+        lock.lock();
+        try {
+            while (!pending.containsKey(product.getId()) && pending.size() >= properties.getQueueCapacity()) {
+                if (remainingNanos <= 0) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Write-behind queue is full ("
+                            + properties.getQueueCapacity() + " products waiting for the database)");
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            if (pending.put(product.getId(), product.copy()) != null) {
+                coalesced.increment();
+            }
+            if (pending.size() >= properties.getBatchSize()) {
+                batchReady.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the write-behind queue", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The update still waiting for this product, if any.
+     */
+    public Optional<Product> pending(Long id) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(pending.get(id)).map(Product::copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether an update of this product is still waiting; its cached state is then ahead of the database.
+     */
+    public boolean isPending(Long id) {
+        lock.lock();
+        try {
+            return pending.containsKey(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the update waiting for this product, e.g. because it is being deleted.
+     */
+    public void discard(Long id) {
+        lock.lock();
+        try {
+            if (pending.remove(id) != null) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything pending right now on the calling thread.
+     *
+     * @return the number of products written or dropped
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            int total = 0;
+            for (List<Product> batch = drain(); !batch.isEmpty(); batch = drain()) {
+                write(batch);
+                total += batch.size();
+            }
+            return total;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        lock.lock();
+        try {
+            batchReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        int flushed = flush();
+        log.info("💾 Write-behind stopped - flushed {} pending product updates", flushed);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            lock.lock();
+            try {
+                if (pending.size() < properties.getBatchSize()) {
+                    batchReady.awaitNanos(properties.getFlushInterval().toNanos());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("❌ Write-behind flush failed", e);
+            }
+        }
+    }
+
+    private List<Product> drain() {
+        lock.lock();
+        try {
+            List<Product> batch = new ArrayList<>(Math.min(pending.size(), properties.getBatchSize()));
+            Iterator<Product> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < properties.getBatchSize()) {
+                batch.add(it.next());
+                it.remove();
+            }
+            if (!batch.isEmpty()) {
+                notFull.signalAll();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(List<Product> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            written.increment(batch.size());
+            log.debug("💾 Wrote {} product updates to the database", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Write-behind batch of {} products failed - retrying one by one", batch.size(), e);
+            for (Product product : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(List.of(product)));
+                    written.increment();
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    log.error("❌ Could not write product {} - dropping its cached update", product.getId(), single);
+                    if (pending(product.getId()).isEmpty()) {
+                        cacheManager.getCache(ProductService.PRODUCTS_CACHE).evict(product.getId());
+                        cacheManager.getCache(ProductResponseCache.CACHE).evict(product.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the pending state onto the managed entities; the UPDATEs go out when the transaction commits.
+     * Products deleted in the meantime are skipped.
+     */
+    private void apply(List<Product> batch) {
+        Map<Long, Product> updates = batch.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> managed = productRepository.findAllById(updates.keySet());
+        managed.forEach(entity -> entity.copyDetailsFrom(updates.get(entity.getId())));
+        if (managed.size() < updates.size()) {
+            log.debug("Skipped {} pending updates of products that no longer exist", updates.size() - managed.size());
+        }
+    }
+
+    private int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter writeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("products.write_behind.writes")
+                .description("Product updates written to the database by the write-behind flusher")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
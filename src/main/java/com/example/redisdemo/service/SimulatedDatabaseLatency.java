@@ -0,0 +1,60 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.ProductLookupProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes database loads slow on purpose, so the effect of caching is visible in the demo and
+ * load tests see a realistic spread of miss latencies rather than one fixed value.
+ */
+@Component
+public class SimulatedDatabaseLatency {
+
+    /**
+     * z-score of the 99th percentile of the standard normal distribution.
+     */
+    private static final double Z_99 = 2.3263;
+
+    private final ProductLookupProperties.SimulatedLatency properties;
+
+    public SimulatedDatabaseLatency(ProductLookupProperties lookupProperties) {
+        this.properties = lookupProperties.getSimulatedLatency();
+    }
+
+    /**
+     * Blocks for one sampled delay for a load of {@code rows} rows.
+     */
+    public void pause(int rows) {
+        long nanos = sampleNanos(rows);
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long sampleNanos(int rows) {
+        long base = properties.getBase().toNanos();
+        long spread = properties.getSpread().toNanos();
+        long perRow = properties.getPerRow().toNanos() * Math.max(0, rows);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (properties.getModel()) {
+            case NONE -> 0;
+            case FIXED -> base + perRow;
+            case UNIFORM -> base + (spread > 0 ? random.nextLong(spread + 1) : 0) + perRow;
+            case LOG_NORMAL -> {
+                if (base <= 0 || spread <= 0) {
+                    yield base + perRow;
+                }
+                double sigma = Math.log((double) (base + spread) / base) / Z_99;
+                yield (long) (base * Math.exp(sigma * random.nextGaussian())) + perRow;
+            }
+        };
+    }
+}
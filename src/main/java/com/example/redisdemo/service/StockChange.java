@@ -0,0 +1,10 @@
+package com.example.redisdemo.service;
+
+/**
+ * Outcome of a stock reservation or release.
+ *
+ * @param applied whether the stock changed; a reservation larger than the stock is not applied
+ * @param stock   the stock after the change, or the unchanged stock if it was not applied
+ */
+public record StockChange(Long productId, int quantity, boolean applied, long stock) {
+}
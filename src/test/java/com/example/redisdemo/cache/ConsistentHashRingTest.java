@@ -0,0 +1,80 @@
+package com.example.redisdemo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConsistentHashRingTest {
+
+    private static final int NODES = 5;
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 100_000;
+
+    private final List<byte[]> keys = IntStream.range(0, KEYS)
+            .mapToObj(i -> ("products::" + i).getBytes(StandardCharsets.UTF_8))
+            .toList();
+
+    @Test
+    void removingOneOfNNodesOnlyMovesItsKeys() {
+        List<String> nodes = nodes(NODES);
+        ConsistentHashRing<String> before = ring(nodes);
+        List<String> remaining = new ArrayList<>(nodes);
+        String removed = remaining.remove(2);
+        ConsistentHashRing<String> after = ring(remaining);
+
+        int moved = 0;
+        for (byte[] key : keys) {
+            String owner = before.nodeFor(key);
+            if (!owner.equals(after.nodeFor(key))) {
+                assertThat(owner).isEqualTo(removed);
+                moved++;
+            }
+        }
+        assertThat((double) moved / KEYS).isCloseTo(1.0 / NODES, within(0.05));
+    }
+
+    @Test
+    void addingANodeOnlyTakesKeysForItself() {
+        List<String> nodes = nodes(NODES);
+        ConsistentHashRing<String> before = ring(nodes);
+        List<String> grown = nodes(NODES + 1);
+        String added = grown.get(NODES);
+        ConsistentHashRing<String> after = ring(grown);
+
+        int moved = 0;
+        for (byte[] key : keys) {
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertThat(owner).isEqualTo(added);
+                moved++;
+            }
+        }
+        assertThat((double) moved / KEYS).isCloseTo(1.0 / (NODES + 1), within(0.05));
+    }
+
+    @Test
+    void sharesAddUpToTheWholeRing() {
+        List<String> nodes = nodes(NODES);
+        ConsistentHashRing<String> ring = ring(nodes);
+
+        double total = nodes.stream().mapToDouble(ring::share).sum();
+
+        assertThat(total).isCloseTo(1.0, within(1e-9));
+        nodes.forEach(node -> assertThat(ring.share(node)).isCloseTo(1.0 / NODES, within(0.05)));
+    }
+
+    private static List<String> nodes(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "redis-" + i + ":6379").toList();
+    }
+
+    private static ConsistentHashRing<String> ring(List<String> nodes) {
+        return new ConsistentHashRing<>(nodes, Function.identity(), VIRTUAL_NODES);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.support.RespStandIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Multi-key operations of a cache sharded over three {@link RespStandIn}s.
+ */
+class RedisCacheBulkOperationsTest {
+
+    private static final int NODES = 3;
+
+    private final List<String> keys = IntStream.range(0, 300).mapToObj(String::valueOf).toList();
+
+    private StandInShards shards;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        shards = StandInShards.start(NODES, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        shards.close();
+    }
+
+    @Test
+    void putAllWritesEachKeyToItsOwnerOnly() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        keys.forEach(key -> entries.put(key, "value-" + key));
+
+        shards.bulkOperations().putAll(entries);
+
+        for (RedisShards.Node node : shards.shards().getNodes()) {
+            RespStandIn standIn = shards.standIn(node);
+            long owned = keys.stream().filter(key -> shards.ownerOf(key) == node).count();
+            assertThat(owned).isPositive();
+            assertThat((long) standIn.size()).isEqualTo(owned);
+            keys.forEach(key -> assertThat(standIn.exists(StandInShards.redisKey(key)))
+                    .as("%s on %s", key, node)
+                    .isEqualTo(shards.ownerOf(key) == node));
+        }
+        keys.forEach(key -> assertThat(shards.standIn(shards.ownerOf(key)).get(StandInShards.redisKey(key)))
+                .isEqualTo("value-" + key));
+    }
+
+    @Test
+    void getAllReadsEachKeyFromItsOwner() {
+        // Every node holds every key, under its own name; only the owner's copy may be returned
+        for (RedisShards.Node node : shards.shards().getNodes()) {
+            keys.forEach(key -> shards.standIn(node).set(StandInShards.redisKey(key), node.getName(), 0));
+        }
+
+        Map<String, Object> found = shards.bulkOperations().getAll(keys);
+
+        assertThat(found).hasSize(keys.size());
+        keys.forEach(key -> assertThat(found.get(key)).as(key).isEqualTo(shards.ownerOf(key).getName()));
+    }
+
+    @Test
+    void getAllLeavesOutMissingKeys() {
+        shards.bulkOperations().putAll(Map.of("1", "one", "2", "two"));
+
+        assertThat(shards.bulkOperations().getAll(List.of("1", "2", "3"))).containsOnlyKeys("1", "2");
+    }
+}
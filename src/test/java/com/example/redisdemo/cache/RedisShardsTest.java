@@ -0,0 +1,107 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.support.RespStandIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ejecting a {@link RespStandIn} that hangs from the hash ring, and putting it back once it answers.
+ */
+class RedisShardsTest {
+
+    private static final int NODES = 3;
+    private static final int FAILURE_THRESHOLD = 3;
+
+    private final List<String> keys = IntStream.range(0, 300).mapToObj(String::valueOf).toList();
+
+    private StandInShards shards;
+    private RedisShards.Node node;
+    private RespStandIn standIn;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        shards = StandInShards.start(NODES, FAILURE_THRESHOLD);
+        // Registered the way TwoTierCacheManager registers it for every sharded cache
+        shards.shards().onReadmit(shards.bulkOperations()::clean);
+        node = shards.shards().getNodes().get(1);
+        standIn = shards.standIn(node);
+
+        Map<String, Object> entries = new LinkedHashMap<>();
+        keys.forEach(key -> entries.put(key, "value-" + key));
+        shards.bulkOperations().putAll(entries);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        shards.close();
+    }
+
+    @Test
+    void hangingNodeIsEjectedAfterFailureThreshold() {
+        assertThat(standIn.size()).isPositive();
+        standIn.pause();
+
+        for (int failure = 1; failure < FAILURE_THRESHOLD; failure++) {
+            shards.shards().checkHealth();
+            assertThat(node.isEjected()).isFalse();
+        }
+        shards.shards().checkHealth();
+
+        assertThat(node.isEjected()).isTrue();
+        keys.forEach(key -> assertThat(shards.ownerOf(key)).isNotSameAs(node));
+        assertThat(shards.shards().getStatus())
+                .filteredOn(status -> status.name().equals(node.getName()))
+                .singleElement()
+                .satisfies(status -> {
+                    assertThat(status.healthy()).isFalse();
+                    assertThat(status.share()).isZero();
+                });
+    }
+
+    @Test
+    void resumedNodeIsCleanedAndReadmitted() {
+        standIn.pause();
+        for (int failure = 1; failure <= FAILURE_THRESHOLD; failure++) {
+            shards.shards().checkHealth();
+        }
+        assertThat(node.isEjected()).isTrue();
+
+        standIn.resume();
+        shards.shards().checkHealth();
+
+        assertThat(node.isEjected()).isFalse();
+        // Its entries may have changed on the other nodes while it was away
+        assertThat(standIn.size()).isZero();
+        assertThat(keys.stream().filter(key -> shards.ownerOf(key) == node)).isNotEmpty();
+        assertThat(shards.shards().getStatus())
+                .filteredOn(status -> status.name().equals(node.getName()))
+                .singleElement()
+                .satisfies(status -> assertThat(status.share()).isPositive());
+    }
+
+    @Test
+    void commandFailuresCountTowardsEjection() {
+        String key = keys.stream().filter(candidate -> shards.ownerOf(candidate) == node).findFirst().orElseThrow();
+        standIn.pause();
+
+        for (int failure = 1; failure <= FAILURE_THRESHOLD; failure++) {
+            try {
+                shards.bulkOperations().getAll(List.of(key));
+            } catch (RuntimeException expected) {
+                // Timed out against the hanging node
+            }
+        }
+
+        assertThat(node.isEjected()).isTrue();
+        assertThat(shards.bulkOperations().getAll(List.of(key))).isEmpty();
+    }
+}
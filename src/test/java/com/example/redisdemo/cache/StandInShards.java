@@ -0,0 +1,97 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.support.RespStandIn;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A "products" cache sharded over several {@link RespStandIn}s, wired like the application wires its
+ * shard nodes, with plain string values so tests can read the stand-ins directly.
+ */
+final class StandInShards implements Closeable {
+
+    static final String CACHE = "products";
+    static final Duration TIMEOUT = Duration.ofMillis(250);
+
+    private final List<RespStandIn> standIns;
+    private final RedisShards shards;
+    private final RedisCacheBulkOperations bulkOperations;
+
+    private StandInShards(List<RespStandIn> standIns, RedisShards shards) {
+        this.standIns = standIns;
+        this.shards = shards;
+        RedisSerializationContext.SerializationPair<String> strings =
+                RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.string());
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeKeysWith(strings)
+                .serializeValuesWith(strings);
+        this.bulkOperations = new RedisCacheBulkOperations(CACHE, configuration, shards);
+    }
+
+    /**
+     * @param failureThreshold consecutive failures before a node is ejected; 0 never ejects
+     */
+    static StandInShards start(int nodes, int failureThreshold) throws IOException {
+        List<RespStandIn> standIns = new ArrayList<>();
+        List<RedisShards.Node> shardNodes = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            RespStandIn standIn = RespStandIn.start();
+            standIns.add(standIn);
+            JedisConnectionFactory connectionFactory = new JedisConnectionFactory(
+                    new RedisStandaloneConfiguration("127.0.0.1", standIn.getPort()),
+                    JedisClientConfiguration.builder().readTimeout(TIMEOUT).connectTimeout(TIMEOUT)
+                            .usePooling().build());
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            shardNodes.add(new RedisShards.Node("127.0.0.1:" + standIn.getPort(), connectionFactory, null,
+                    connectionFactory::destroy));
+        }
+        return new StandInShards(standIns, new RedisShards(shardNodes, Set.of(CACHE), 160, failureThreshold, null));
+    }
+
+    RedisShards shards() {
+        return shards;
+    }
+
+    RedisCacheBulkOperations bulkOperations() {
+        return bulkOperations;
+    }
+
+    /**
+     * The stand-in behind {@code node}.
+     */
+    RespStandIn standIn(RedisShards.Node node) {
+        return standIns.get(shards.getNodes().indexOf(node));
+    }
+
+    /**
+     * The node that currently owns the cache entry for {@code key}.
+     */
+    RedisShards.Node ownerOf(String key) {
+        return shards.nodeFor(bulkOperations.serializeKey(key));
+    }
+
+    static String redisKey(String key) {
+        return CACHE + "::" + key;
+    }
+
+    @Override
+    public void close() throws IOException {
+        standIns.forEach(RespStandIn::resume);
+        shards.close();
+        for (RespStandIn standIn : standIns) {
+            standIn.close();
+        }
+    }
+}
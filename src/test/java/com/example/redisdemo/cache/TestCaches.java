@@ -0,0 +1,57 @@
+package com.example.redisdemo.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link TwoTierCache}s whose Redis tier is a map, for tests that do not need a Redis server.
+ */
+public final class TestCaches {
+
+    private TestCaches() {
+    }
+
+    /**
+     * A cache with an L1 and without a distributed lock, refresh-ahead or hot-key tracking; its
+     * invalidation messages go nowhere.
+     */
+    public static TwoTierCache twoTierCache(String name) {
+        Map<Object, Object> redis = new ConcurrentHashMap<>();
+        RedisCache redisCache = mock(RedisCache.class);
+        when(redisCache.getName()).thenReturn(name);
+        when(redisCache.isAllowNullValues()).thenReturn(true);
+        when(redisCache.get(any())).thenAnswer(invocation -> {
+            Object key = invocation.getArgument(0);
+            return redis.containsKey(key) ? new SimpleValueWrapper(unwrap(redis.get(key))) : null;
+        });
+        doAnswer(invocation -> {
+            Object value = invocation.getArgument(1);
+            // A ConcurrentHashMap cannot hold null, so a cached null is stored as a marker
+            redis.put(invocation.getArgument(0), value != null ? value : Missing.INSTANCE);
+            return null;
+        }).when(redisCache).put(any(), any());
+        doAnswer(invocation -> redis.remove(invocation.getArgument(0))).when(redisCache).evict(any());
+
+        return new TwoTierCache(redisCache, mock(RedisCacheBulkOperations.class), null, 1_000, Duration.ofMinutes(1),
+                mock(CacheInvalidationBroadcaster.class), null, null, null,
+                new RedisCircuitBreaker(false, 5, Duration.ofSeconds(1)), 1_000, new SimpleMeterRegistry());
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored == Missing.INSTANCE ? null : stored;
+    }
+
+    private enum Missing {
+        INSTANCE
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.redisdemo.cache;
+
+import com.example.redisdemo.support.Concurrently;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoTierCacheCoalescingTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void concurrentMissesOnOneKeyShareOneLoad() throws Exception {
+        TwoTierCache cache = TestCaches.twoTierCache("products");
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Object> loader = () -> {
+            loads.incrementAndGet();
+            // Long enough for every other thread to miss while the load is in flight
+            Thread.sleep(200);
+            return new Object();
+        };
+
+        List<Object> results = Concurrently.run(THREADS, () -> cache.get(42L, loader));
+
+        assertThat(loads).hasValue(1);
+        assertThat(results).hasSize(THREADS).allSatisfy(value -> assertThat(value).isSameAs(results.get(0)));
+        assertThat(cache.getStats().loads()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesOnOneKeyShareACachedNull() throws Exception {
+        TwoTierCache cache = TestCaches.twoTierCache("products");
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Object> loader = () -> {
+            loads.incrementAndGet();
+            Thread.sleep(200);
+            return null;
+        };
+
+        List<Object> results = Concurrently.run(THREADS, () -> cache.get(42L, loader));
+
+        assertThat(loads).hasValue(1);
+        assertThat(results).hasSize(THREADS).containsOnlyNulls();
+    }
+}
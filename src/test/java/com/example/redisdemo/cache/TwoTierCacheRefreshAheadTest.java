@@ -0,0 +1,78 @@
+package com.example.redisdemo.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheRefreshAheadTest {
+
+    private static final Duration THRESHOLD = Duration.ofSeconds(30);
+    private static final Duration STALE_GRACE = Duration.ofSeconds(60);
+
+    private RedisCache redisCache;
+    private AsyncRedisCacheOperations asyncOperations;
+    private TwoTierCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Callable<Object> loader = () -> {
+        loads.incrementAndGet();
+        return "reloaded";
+    };
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(RedisCache.class);
+        when(redisCache.getName()).thenReturn("products");
+        when(redisCache.isAllowNullValues()).thenReturn(true);
+        asyncOperations = mock(AsyncRedisCacheOperations.class);
+        // Refreshes run on the calling thread, so they are done when getAsync completes
+        RefreshAheadPolicy policy = new RefreshAheadPolicy(THRESHOLD, STALE_GRACE, Runnable::run);
+        cache = new TwoTierCache(redisCache, mock(RedisCacheBulkOperations.class), asyncOperations, 0,
+                Duration.ofMinutes(1), mock(CacheInvalidationBroadcaster.class), null, policy, null,
+                new RedisCircuitBreaker(false, 5, Duration.ofSeconds(1)), 1_000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void entryInTheGraceWindowIsServedAndReloaded() {
+        redisHolds("cached", Duration.ofSeconds(5));
+
+        Cache.ValueWrapper wrapper = cache.getAsync(42L, loader).join();
+
+        assertThat(wrapper).isNotNull();
+        assertThat(wrapper.get()).isEqualTo("cached");
+        assertThat(loads).hasValue(1);
+        verify(redisCache).put(42L, "reloaded");
+        assertThat(cache.getStats().staleHits()).isEqualTo(1);
+        assertThat(cache.getStats().refreshes()).isEqualTo(1);
+    }
+
+    @Test
+    void freshEntryIsNotReloaded() {
+        redisHolds("cached", STALE_GRACE.plus(THRESHOLD).plusMinutes(5));
+
+        Cache.ValueWrapper wrapper = cache.getAsync(42L, loader).join();
+
+        assertThat(wrapper.get()).isEqualTo("cached");
+        assertThat(loads).hasValue(0);
+        verify(redisCache, never()).put(any(), any());
+    }
+
+    private void redisHolds(Object value, Duration remaining) {
+        when(asyncOperations.getWithTtl("42")).thenReturn(
+                CompletableFuture.completedFuture(new RedisCacheBulkOperations.TimedValue(value, remaining)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.config.ProductLookupProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductCategoryStatsTest {
+
+    private ProductCategoryStats stats;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllCategoryPricesAndStock()).thenReturn(List.of(
+                new Object[] { 1L, "Books", new BigDecimal("10.00"), 5 },
+                new Object[] { 2L, "Books", new BigDecimal("30.00"), 7 }));
+        stats = new ProductCategoryStats(productRepository, new ProductLookupProperties());
+        stats.rebuild();
+    }
+
+    @Test
+    void incompleteProductLeavesTheAggregatesAlone() {
+        List<CategoryStats> before = stats.getStats();
+
+        stats.onProductChanged(ProductChangedEvent.updated(
+                product(1L, "Books", new BigDecimal("10.00"), 5), product(1L, "Books", null, 5)));
+        stats.onProductChanged(ProductChangedEvent.created(product(3L, "Books", new BigDecimal("20.00"), null)));
+
+        assertThat(stats.getStats()).isEqualTo(before);
+    }
+
+    @Test
+    void laterCompleteUpdateIsStillApplied() {
+        stats.onProductChanged(ProductChangedEvent.updated(
+                product(1L, "Books", new BigDecimal("10.00"), 5), product(1L, "Books", null, 5)));
+        stats.onProductChanged(ProductChangedEvent.updated(
+                product(1L, "Books", new BigDecimal("10.00"), 5), product(1L, "Books", new BigDecimal("50.00"), 1)));
+
+        assertThat(stats.getStats()).containsExactly(new CategoryStats("Books", 2, new BigDecimal("30.00"),
+                new BigDecimal("50.00"), new BigDecimal("40.00"), 8));
+    }
+
+    private static Product product(Long id, String category, BigDecimal price, Integer stock) {
+        return new Product(id, "Product " + id, null, price, category, stock, 1L);
+    }
+}
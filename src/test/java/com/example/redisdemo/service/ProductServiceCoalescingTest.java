@@ -0,0 +1,92 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.TestCaches;
+import com.example.redisdemo.config.SearchProperties;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.repository.ProductRepository;
+import com.example.redisdemo.support.Concurrently;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ProductService#getProductById} behind the real caching proxy and a {@link
+ * com.example.redisdemo.cache.TwoTierCache}, with the database mocked.
+ */
+@SpringJUnitConfig
+class ProductServiceCoalescingTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void concurrentMissesOnOneProductQueryTheDatabaseOnce() throws Exception {
+        Product product = new Product("Clean Code", "A Handbook of Agile Software Craftsmanship",
+                new BigDecimal("39.99"), "Books", 10);
+        when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return Optional.of(product);
+        });
+
+        List<Optional<Product>> results = Concurrently.run(THREADS, () -> productService.getProductById(1L));
+
+        verify(productRepository, times(1)).findById(1L);
+        assertThat(results).hasSize(THREADS).allSatisfy(result -> assertThat(result).containsSame(product));
+    }
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        ProductRepository productRepository() {
+            return mock(ProductRepository.class);
+        }
+
+        @Bean
+        ProductIdFilter productIdFilter() {
+            ProductIdFilter productIdFilter = mock(ProductIdFilter.class);
+            when(productIdFilter.mightContain(any())).thenReturn(true);
+            return productIdFilter;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(List.of(TestCaches.twoTierCache(ProductService.PRODUCTS_CACHE)));
+            return cacheManager;
+        }
+
+        @Bean
+        ProductService productService(ProductRepository productRepository, CacheManager cacheManager,
+                ProductIdFilter productIdFilter) {
+            return new ProductService(productRepository, cacheManager, productIdFilter,
+                    mock(ProductCategoryIndex.class), mock(ProductSearchIndex.class), mock(ProductCategoryStats.class),
+                    new SearchProperties(), mock(SimulatedDatabaseLatency.class), mock(ProductWriteBehind.class),
+                    mock(ApplicationEventPublisher.class), mock(EntityManager.class));
+        }
+    }
+}
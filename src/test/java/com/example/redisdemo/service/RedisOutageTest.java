@@ -0,0 +1,132 @@
+package com.example.redisdemo.service;
+
+import com.example.redisdemo.cache.RedisCircuitBreaker;
+import com.example.redisdemo.cache.TwoTierCache;
+import com.example.redisdemo.model.Product;
+import com.example.redisdemo.support.EmbeddedApplication;
+import com.example.redisdemo.support.RespStandIn;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The application against a {@link RespStandIn} that hangs: the circuit breaker has to trip, reads
+ * have to keep being answered from L1 and the database, and the writes made meanwhile have to be
+ * evicted from Redis once it is back.
+ */
+class RedisOutageTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Duration REDIS_TIMEOUT = Duration.ofMillis(250);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(500);
+    /**
+     * A read that waits for Redis ends with its timeout; the rest is slack for slow build machines.
+     */
+    private static final Duration FAILED_READ_BOUND = REDIS_TIMEOUT.plusMillis(500);
+
+    private EmbeddedApplication application;
+    private RespStandIn redis;
+    private ProductService productService;
+    private TwoTierCache products;
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        application = EmbeddedApplication.start(Map.<String, Object>of(
+                "spring.data.redis.timeout", REDIS_TIMEOUT.toMillis() + "ms",
+                "app.cache.circuit-breaker.failure-threshold", String.valueOf(FAILURE_THRESHOLD),
+                "app.cache.circuit-breaker.open-duration", OPEN_DURATION.toMillis() + "ms",
+                // Only the products cache talks to Redis in these tests
+                "app.cache.async.enabled", "false",
+                "app.cache.hot-keys.enabled", "false",
+                "app.products.lookup.category-index.enabled", "false",
+                "app.products.stock.enabled", "false"));
+        redis = application.getRedis();
+        productService = application.getBean(ProductService.class);
+        products = (TwoTierCache) application.getBean(CacheManager.class).getCache(ProductService.PRODUCTS_CACHE);
+        circuitBreaker = application.getBean(RedisCircuitBreaker.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redis.resume();
+        application.close();
+    }
+
+    @Test
+    void circuitOpensAfterFailureThresholdAndReadsFallBack() {
+        Product cached = productService.getProductById(1L).orElseThrow();
+        redis.pause();
+
+        for (int failure = 1; failure <= FAILURE_THRESHOLD; failure++) {
+            assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+            long id = 100L + failure;
+            assertThat(timed(() -> products.get(id), FAILED_READ_BOUND)).isNull();
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        // L1 never needed Redis; the database answers without waiting for it now
+        assertThat(timed(() -> productService.getProductById(1L), REDIS_TIMEOUT)).contains(cached);
+        assertThat(timed(() -> productService.getProductById(2L), REDIS_TIMEOUT))
+                .hasValueSatisfying(product -> assertThat(product.getId()).isEqualTo(2L));
+    }
+
+    @Test
+    void writesSkippedDuringOutageAreEvictedOnRecovery() throws InterruptedException {
+        Product before = productService.getProductById(1L).orElseThrow();
+        assertThat(redis.exists("products::1")).isTrue();
+        tripCircuit();
+
+        Product details = before.copy();
+        details.setName("Renamed while Redis was down");
+        productService.updateProduct(1L, details);
+
+        assertThat(skippedWrites()).isEqualTo(1);
+        assertThat(productService.getProductById(1L)).hasValueSatisfying(product ->
+                assertThat(product.getName()).isEqualTo("Renamed while Redis was down"));
+        // Redis still holds the value from before the update
+        assertThat(redis.exists("products::1")).isTrue();
+
+        redis.resume();
+        Thread.sleep(OPEN_DURATION.toMillis() + 100);
+        // The first call after the open duration is the probe; its success closes the circuit
+        productService.getProductById(3L);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(redis.exists("products::1")).isFalse();
+        assertThat(skippedWrites()).isZero();
+        assertThat(productService.getProductById(1L)).hasValueSatisfying(product ->
+                assertThat(product.getName()).isEqualTo("Renamed while Redis was down"));
+    }
+
+    private void tripCircuit() {
+        redis.pause();
+        for (int failure = 1; failure <= FAILURE_THRESHOLD; failure++) {
+            products.get(100L + failure);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    private double skippedWrites() {
+        return application.getBean(MeterRegistry.class).get("cache.redis.skipped_writes")
+                .tag("cache", ProductService.PRODUCTS_CACHE)
+                .gauge()
+                .value();
+    }
+
+    private static <T> T timed(Supplier<T> read, Duration bound) {
+        long start = System.nanoTime();
+        T result = read.get();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(bound);
+        return result;
+    }
+}
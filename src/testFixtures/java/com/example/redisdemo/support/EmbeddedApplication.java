@@ -0,0 +1,142 @@
+package com.example.redisdemo.support;
+
+import com.example.redisdemo.RedisDemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The full application (H2 with the 500 sample products, caches, indexes) wired to a {@link RespStandIn}
+ * instead of a real Redis, with SQL and application logging turned down.
+ * <p>
+ * {@link #start(Map)} runs without a web server and without the simulated database delay, for
+ * benchmarks. {@link #startWebServer(Map, Class[])} serves HTTP on a random port and keeps the
+ * configured latency model, for load tests. System properties override both. Both can spread the
+ * sharded caches over extra stand-ins, one per shard, to exercise client-side sharding.
+ */
+public final class EmbeddedApplication implements Closeable {
+
+    private final RespStandIn redis;
+    private final List<RespStandIn> shards;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedApplication(RespStandIn redis, List<RespStandIn> shards, ConfigurableApplicationContext context) {
+        this.redis = redis;
+        this.shards = shards;
+        this.context = context;
+    }
+
+    public static EmbeddedApplication start(Map<String, Object> overrides) throws IOException {
+        return start(overrides, 0);
+    }
+
+    /**
+     * @param redisShards stand-ins to shard the cached products over; 0 keeps them on the main stand-in
+     */
+    public static EmbeddedApplication start(Map<String, Object> overrides, int redisShards) throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("app.products.lookup.simulated-latency.model", "NONE");
+        properties.putAll(overrides);
+        return start(WebApplicationType.NONE, properties, redisShards);
+    }
+
+    public static EmbeddedApplication startWebServer(Map<String, Object> overrides, Class<?>... extraSources)
+            throws IOException {
+        return startWebServer(overrides, 0, extraSources);
+    }
+
+    public static EmbeddedApplication startWebServer(Map<String, Object> overrides, int redisShards,
+            Class<?>... extraSources) throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.putAll(overrides);
+        return start(WebApplicationType.SERVLET, properties, redisShards, extraSources);
+    }
+
+    private static EmbeddedApplication start(WebApplicationType type, Map<String, Object> overrides,
+            int redisShards, Class<?>... extraSources) throws IOException {
+        RespStandIn redis = RespStandIn.start();
+        List<RespStandIn> shards = new ArrayList<>();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", redis.getPort());
+        properties.put("spring.datasource.url", "jdbc:h2:mem:embedded-" + redis.getPort());
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.h2.console.enabled", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.example.redisdemo", "WARN");
+        properties.put("logging.level.org.springframework.cache", "WARN");
+        // The stand-in has no stream commands
+        properties.put("app.products.change-stream.enabled", "false");
+        properties.putAll(overrides);
+        for (int i = 0; i < redisShards; i++) {
+            shards.add(RespStandIn.start());
+        }
+        if (!shards.isEmpty()) {
+            properties.put("app.cache.sharding.enabled", "true");
+            properties.put("app.cache.sharding.nodes", shards.stream()
+                    .map(shard -> "127.0.0.1:" + shard.getPort())
+                    .collect(Collectors.joining(",")));
+        }
+
+        // Passed as command-line arguments so they win over application.properties; a system property
+        // with the same name still takes precedence over the value chosen here
+        String[] args = properties.entrySet().stream()
+                .filter(property -> System.getProperty(property.getKey()) == null)
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        try {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(RedisDemoApplication.class)
+                    .sources(extraSources)
+                    .web(type)
+                    .run(args);
+            return new EmbeddedApplication(redis, shards, context);
+        } catch (RuntimeException e) {
+            redis.close();
+            for (RespStandIn shard : shards) {
+                shard.close();
+            }
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * The HTTP port chosen by {@link #startWebServer}.
+     */
+    public int getLocalPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public RespStandIn getRedis() {
+        return redis;
+    }
+
+    /**
+     * The shard stand-ins in node order; empty when the application runs unsharded.
+     */
+    public List<RespStandIn> getShards() {
+        return shards;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        redis.close();
+        for (RespStandIn shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package com.example.redisdemo.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal in-process Redis server speaking RESP2, so benchmarks measure the client, serializer and
+ * cache code paths without depending on an external Redis or on network noise.
+ * <p>
+ * It implements the string, key, set and pub/sub commands the application issues, with TTLs checked
+ * lazily on access. It is single-database and is not meant to model Redis' own performance - only to
+ * give the client a real socket and protocol to talk to. There is no Lua: {@code EVAL} and
+ * {@code EVALSHA} run a Java {@link Script} registered for the script's source, if there is one.
+ * <p>
+ * {@link #pause()} stalls it like a Redis that hangs: connections stay open and commands are read,
+ * but no reply is sent until {@link #resume()}.
+ */
+public final class RespStandIn implements Closeable {
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Script> scripts = new ConcurrentHashMap<>();
+    private final ReentrantLock scriptLock = new ReentrantLock();
+    private volatile boolean running = true;
+    private volatile CountDownLatch resumed = new CountDownLatch(0);
+
+    private RespStandIn(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Starts a server on a free loopback port.
+     */
+    public static RespStandIn start() throws IOException {
+        RespStandIn server = new RespStandIn(new ServerSocket(0, 128, InetAddress.getLoopbackAddress()));
+        Thread acceptor = new Thread(server::acceptLoop, "resp-stand-in-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Stops answering commands until {@link #resume()}.
+     */
+    public void pause() {
+        if (resumed.getCount() == 0) {
+            resumed = new CountDownLatch(1);
+        }
+    }
+
+    public void resume() {
+        resumed.countDown();
+    }
+
+    public boolean isPaused() {
+        return resumed.getCount() > 0;
+    }
+
+    /**
+     * Java implementation of a Lua script. Scripts run one at a time, as in Redis, but plain
+     * commands are not held back while one runs.
+     */
+    @FunctionalInterface
+    public interface Script {
+
+        /**
+         * @return a {@link Long}, a {@link String}, a {@link List} of those, or {@code null}
+         */
+        Object run(RespStandIn redis, List<String> keys, List<String> args);
+    }
+
+    /**
+     * Answers {@code EVAL} and {@code EVALSHA} of {@code source} with {@code script}.
+     */
+    public void registerScript(String source, Script script) {
+        scripts.put(sha1(source), script);
+    }
+
+    /**
+     * The string value of {@code key}, for use by {@link Script scripts}.
+     */
+    public String get(String key) {
+        Entry entry = live(key);
+        return entry != null && entry.value() != null ? text(entry.value()) : null;
+    }
+
+    /**
+     * Sets {@code key}, expiring after {@code ttlMillis} (0 for never), for use by {@link Script scripts}.
+     */
+    public void set(String key, String value, long ttlMillis) {
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        data.put(key, Entry.string(value.getBytes(StandardCharsets.ISO_8859_1), expiresAt));
+    }
+
+    /**
+     * Whether {@code key} holds a live value, for use by {@link Script scripts}.
+     */
+    public boolean exists(String key) {
+        return live(key) != null;
+    }
+
+    /**
+     * Increments the counter at {@code key}, keeping its expiry, for use by {@link Script scripts}.
+     */
+    public long increment(String key) {
+        long now = System.currentTimeMillis();
+        Entry updated = data.compute(key, (k, entry) -> {
+            long current = entry == null || entry.isExpired(now) ? 0 : Long.parseLong(text(entry.value()));
+            return Entry.string(String.valueOf(current + 1).getBytes(StandardCharsets.US_ASCII),
+                    entry == null || entry.isExpired(now) ? 0 : entry.expiresAt());
+        });
+        return Long.parseLong(text(updated.value()));
+    }
+
+    /**
+     * Deletes {@code key}, for use by {@link Script scripts}.
+     */
+    public boolean delete(String key) {
+        return data.remove(key) != null;
+    }
+
+    /**
+     * Lets {@code key} expire after {@code ttlMillis}, for use by {@link Script scripts}.
+     */
+    public boolean expire(String key, long ttlMillis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return false;
+        }
+        data.put(key, new Entry(entry.value(), entry.members(), System.currentTimeMillis() + ttlMillis));
+        return true;
+    }
+
+    /**
+     * Adds {@code member} to the set at {@code key}, for use by {@link Script scripts}.
+     */
+    public boolean addMember(String key, String member) {
+        long now = System.currentTimeMillis();
+        boolean[] added = new boolean[1];
+        data.compute(key, (k, entry) -> {
+            Set<String> members = entry != null && !entry.isExpired(now) && entry.members() != null
+                    ? entry.members() : ConcurrentHashMap.newKeySet();
+            added[0] = members.add(member);
+            return entry != null && entry.members() == members ? entry : Entry.set(members);
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes {@code member} from the set at {@code key}, for use by {@link Script scripts}.
+     */
+    public boolean removeMember(String key, String member) {
+        long now = System.currentTimeMillis();
+        boolean[] removed = new boolean[1];
+        data.computeIfPresent(key, (k, entry) -> {
+            if (entry.isExpired(now) || entry.members() == null) {
+                return entry;
+            }
+            removed[0] = entry.members().remove(member);
+            return entry.members().isEmpty() ? null : entry;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        resume();
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread worker = new Thread(connection::serve, "resp-stand-in-" + socket.getPort());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                if (running) {
+                    throw new IllegalStateException("RESP stand-in stopped accepting connections", e);
+                }
+            }
+        }
+    }
+
+    private record Entry(byte[] value, Set<String> members, long expiresAt) {
+
+        static Entry string(byte[] value, long expiresAt) {
+            return new Entry(value, null, expiresAt);
+        }
+
+        static Entry set(Set<String> members) {
+            return new Entry(null, members, 0);
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt > 0 && expiresAt <= now;
+        }
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private final class Connection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> channels = new CopyOnWriteArraySet<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void serve() {
+            try {
+                while (running) {
+                    List<byte[]> command = readCommand();
+                    if (command == null) {
+                        break;
+                    }
+                    resumed.await();
+                    synchronized (out) {
+                        execute(command);
+                        // Pipelined commands are already buffered; only flush once the client is waiting
+                        if (in.available() == 0) {
+                            out.flush();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // client went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                channels.forEach(channel -> subscribers.getOrDefault(channel, Set.of()).remove(this));
+                connections.remove(this);
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+
+        private List<byte[]> readCommand() throws IOException {
+            int marker = in.read();
+            if (marker == -1) {
+                return null;
+            }
+            if (marker != '*') {
+                throw new IOException("Expected a RESP array, got '" + (char) marker + "'");
+            }
+            int count = (int) readNumber();
+            List<byte[]> arguments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Expected a bulk string");
+                }
+                int length = (int) readNumber();
+                byte[] argument = in.readNBytes(length);
+                if (argument.length != length) {
+                    throw new EOFException();
+                }
+                in.skipNBytes(2);
+                arguments.add(argument);
+            }
+            return arguments;
+        }
+
+        private long readNumber() throws IOException {
+            long value = 0;
+            boolean negative = false;
+            int b;
+            while ((b = in.read()) != '\r') {
+                if (b == -1) {
+                    throw new EOFException();
+                }
+                if (b == '-') {
+                    negative = true;
+                } else {
+                    value = value * 10 + (b - '0');
+                }
+            }
+            in.read();
+            return negative ? -value : value;
+        }
+
+        private void execute(List<byte[]> command) throws IOException {
+            String name = text(command.get(0)).toUpperCase(Locale.ROOT);
+            long now = System.currentTimeMillis();
+            switch (name) {
+                case "PING" -> out.write(PONG);
+                case "ECHO" -> bulk(command.get(1));
+                case "SELECT", "CLIENT", "READONLY" -> out.write(OK);
+                case "QUIT" -> {
+                    out.write(OK);
+                    out.flush();
+                    close();
+                }
+                case "GET" -> {
+                    Entry entry = live(key(command, 1));
+                    bulk(entry != null ? entry.value() : null);
+                }
+                case "MGET" -> {
+                    array(command.size() - 1);
+                    for (int i = 1; i < command.size(); i++) {
+                        Entry entry = live(key(command, i));
+                        bulk(entry != null ? entry.value() : null);
+                    }
+                }
+                case "SET" -> set(command, now);
+                case "DEL", "UNLINK" -> {
+                    int removed = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        if (live(key(command, i)) != null && data.remove(key(command, i)) != null) {
+                            removed++;
+                        }
+                    }
+                    integer(removed);
+                }
+                case "EXISTS" -> {
+                    int found = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        found += live(key(command, i)) != null ? 1 : 0;
+                    }
+                    integer(found);
+                }
+                case "PTTL", "TTL" -> {
+                    Entry entry = live(key(command, 1));
+                    long ttl = entry == null ? -2 : entry.expiresAt() == 0 ? -1 : entry.expiresAt() - now;
+                    integer(ttl > 0 && name.equals("TTL") ? (ttl + 999) / 1000 : ttl);
+                }
+                case "PEXPIRE", "EXPIRE" -> {
+                    String key = key(command, 1);
+                    long millis = Long.parseLong(text(command.get(2))) * (name.equals("EXPIRE") ? 1000 : 1);
+                    Entry entry = live(key);
+                    if (entry != null) {
+                        data.put(key, new Entry(entry.value(), entry.members(), now + millis));
+                    }
+                    integer(entry != null ? 1 : 0);
+                }
+                case "INCR" -> {
+                    Entry updated = data.compute(key(command, 1), (key, entry) -> {
+                        long current = entry == null || entry.isExpired(now) ? 0 : Long.parseLong(text(entry.value()));
+                        return Entry.string(String.valueOf(current + 1).getBytes(StandardCharsets.US_ASCII),
+                                entry == null ? 0 : entry.expiresAt());
+                    });
+                    integer(Long.parseLong(text(updated.value())));
+                }
+                case "KEYS" -> keys(text(command.get(1)));
+                case "SCAN" -> scan(command);
+                case "DBSIZE" -> integer(data.size());
+                case "FLUSHDB", "FLUSHALL" -> {
+                    data.clear();
+                    out.write(OK);
+                }
+                case "SADD", "SREM" -> {
+                    boolean add = name.equals("SADD");
+                    int[] changed = new int[1];
+                    data.compute(key(command, 1), (key, entry) -> {
+                        Set<String> members = entry != null && !entry.isExpired(now) && entry.members() != null
+                                ? entry.members() : ConcurrentHashMap.newKeySet();
+                        for (int i = 2; i < command.size(); i++) {
+                            boolean didChange = add ? members.add(key(command, i)) : members.remove(key(command, i));
+                            changed[0] += didChange ? 1 : 0;
+                        }
+                        return members.isEmpty() ? null
+                                : entry != null && entry.members() == members ? entry : Entry.set(members);
+                    });
+                    integer(changed[0]);
+                }
+                case "SMEMBERS" -> {
+                    Entry entry = live(key(command, 1));
+                    Set<String> members = entry != null && entry.members() != null ? entry.members() : Set.of();
+                    List<String> snapshot = new ArrayList<>(members);
+                    array(snapshot.size());
+                    for (String member : snapshot) {
+                        bulk(member.getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                }
+                case "SUBSCRIBE" -> {
+                    for (int i = 1; i < command.size(); i++) {
+                        String channel = key(command, i);
+                        channels.add(channel);
+                        subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(this);
+                        subscription("subscribe", channel);
+                    }
+                }
+                case "UNSUBSCRIBE" -> {
+                    List<String> leaving = command.size() > 1
+                            ? command.subList(1, command.size()).stream().map(RespStandIn::text).toList()
+                            : List.copyOf(channels);
+                    for (String channel : leaving) {
+                        channels.remove(channel);
+                        subscribers.getOrDefault(channel, Set.of()).remove(this);
+                        subscription("unsubscribe", channel);
+                    }
+                    if (leaving.isEmpty()) {
+                        subscription("unsubscribe", null);
+                    }
+                }
+                case "SPOP" -> spop(command, now);
+                case "EVAL", "EVALSHA" -> eval(command, name.equals("EVAL"));
+                case "PUBLISH" -> integer(publish(key(command, 1), command.get(2)));
+                default -> error("ERR unknown command '" + name + "' (not supported by the RESP stand-in)");
+            }
+        }
+
+        private void set(List<byte[]> command, long now) throws IOException {
+            String key = key(command, 1);
+            long expiresAt = 0;
+            boolean onlyIfAbsent = false;
+            boolean onlyIfPresent = false;
+            for (int i = 3; i < command.size(); i++) {
+                String option = text(command.get(i)).toUpperCase(Locale.ROOT);
+                switch (option) {
+                    case "PX" -> expiresAt = now + Long.parseLong(text(command.get(++i)));
+                    case "EX" -> expiresAt = now + Long.parseLong(text(command.get(++i))) * 1000;
+                    case "NX" -> onlyIfAbsent = true;
+                    case "XX" -> onlyIfPresent = true;
+                    default -> {
+                        // KEEPTTL, GET: not needed by the application
+                    }
+                }
+            }
+            Entry entry = Entry.string(command.get(2), expiresAt);
+            boolean written;
+            if (onlyIfAbsent) {
+                written = data.compute(key, (k, existing) ->
+                        existing == null || existing.isExpired(now) ? entry : existing) == entry;
+            } else if (onlyIfPresent) {
+                written = data.computeIfPresent(key, (k, existing) -> existing.isExpired(now) ? null : entry) == entry;
+            } else {
+                data.put(key, entry);
+                written = true;
+            }
+            if (written) {
+                out.write(OK);
+            } else {
+                out.write(NULL_BULK);
+            }
+        }
+
+        private void spop(List<byte[]> command, long now) throws IOException {
+            boolean withCount = command.size() > 2;
+            int count = withCount ? Integer.parseInt(text(command.get(2))) : 1;
+            List<String> popped = new ArrayList<>();
+            data.computeIfPresent(key(command, 1), (key, entry) -> {
+                if (entry.isExpired(now) || entry.members() == null) {
+                    return entry.isExpired(now) ? null : entry;
+                }
+                Iterator<String> it = entry.members().iterator();
+                while (it.hasNext() && popped.size() < count) {
+                    popped.add(it.next());
+                    it.remove();
+                }
+                return entry.members().isEmpty() ? null : entry;
+            });
+            if (!withCount) {
+                bulk(popped.isEmpty() ? null : popped.get(0).getBytes(StandardCharsets.ISO_8859_1));
+                return;
+            }
+            array(popped.size());
+            for (String member : popped) {
+                bulk(member.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        private void eval(List<byte[]> command, boolean withSource) throws IOException {
+            String sha1 = withSource ? sha1(new String(command.get(1), StandardCharsets.UTF_8)) : text(command.get(1));
+            Script script = scripts.get(sha1);
+            if (script == null) {
+                error(withSource ? "ERR no Java stand-in registered for this script (RESP stand-in has no Lua)"
+                        : "NOSCRIPT No matching script. Please use EVAL.");
+                return;
+            }
+            int keyCount = Integer.parseInt(text(command.get(2)));
+            List<String> keys = command.subList(3, 3 + keyCount).stream().map(RespStandIn::text).toList();
+            List<String> args = command.subList(3 + keyCount, command.size()).stream().map(RespStandIn::text).toList();
+            Object result;
+            scriptLock.lock();
+            try {
+                result = script.run(RespStandIn.this, keys, args);
+            } finally {
+                scriptLock.unlock();
+            }
+            reply(result);
+        }
+
+        private void reply(Object value) throws IOException {
+            if (value instanceof Number number) {
+                integer(number.longValue());
+            } else if (value instanceof String string) {
+                bulk(string.getBytes(StandardCharsets.ISO_8859_1));
+            } else if (value instanceof List<?> list) {
+                array(list.size());
+                for (Object element : list) {
+                    reply(element);
+                }
+            } else {
+                bulk(null);
+            }
+        }
+
+        private void keys(String pattern) throws IOException {
+            List<String> matches = matching(pattern);
+            array(matches.size());
+            for (String key : matches) {
+                bulk(key.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        private void scan(List<byte[]> command) throws IOException {
+            String pattern = "*";
+            for (int i = 2; i + 1 < command.size(); i += 2) {
+                if (text(command.get(i)).equalsIgnoreCase("MATCH")) {
+                    pattern = text(command.get(i + 1));
+                }
+            }
+            array(2);
+            bulk("0".getBytes(StandardCharsets.US_ASCII));
+            keys(pattern);
+        }
+
+        private List<String> matching(String pattern) {
+            Pattern regex = Pattern.compile(globToRegex(pattern), Pattern.DOTALL);
+            return data.keySet().stream().filter(key -> live(key) != null && regex.matcher(key).matches()).toList();
+        }
+
+        private void subscription(String kind, String channel) throws IOException {
+            array(3);
+            bulk(kind.getBytes(StandardCharsets.US_ASCII));
+            bulk(channel != null ? channel.getBytes(StandardCharsets.ISO_8859_1) : null);
+            integer(channels.size());
+        }
+
+        private void deliver(String channel, byte[] message) {
+            synchronized (out) {
+                try {
+                    array(3);
+                    bulk("message".getBytes(StandardCharsets.US_ASCII));
+                    bulk(channel.getBytes(StandardCharsets.ISO_8859_1));
+                    bulk(message);
+                    out.flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        private void array(int size) throws IOException {
+            out.write(('*' + Integer.toString(size) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private void bulk(byte[] value) throws IOException {
+            if (value == null) {
+                out.write(NULL_BULK);
+                return;
+            }
+            out.write(('$' + Integer.toString(value.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(value);
+            out.write('\r');
+            out.write('\n');
+        }
+
+        private void integer(long value) throws IOException {
+            out.write((':' + Long.toString(value) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private void error(String message) throws IOException {
+            out.write(('-' + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private int publish(String channel, byte[] message) {
+        Set<Connection> receivers = subscribers.getOrDefault(channel, Set.of());
+        receivers.forEach(connection -> connection.deliver(channel, message));
+        return receivers.size();
+    }
+
+    /**
+     * Keys are held as ISO-8859-1 strings so that any byte sequence round-trips unchanged.
+     */
+    private static String key(List<byte[]> command, int index) {
+        return text(command.get(index));
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String sha1(String source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+                    .digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+}